@@ -0,0 +1,34 @@
+package com.mycompany.projetrecette;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Point d'entrée du JAR des benchmarks.
+ * Lance JMH avec les arguments donnés ; sans {@code -rf} les résultats sont écrits
+ * en JSON dans {@code jmh-resultats.json} pour pouvoir comparer deux exécutions.
+ *
+ * @author bapti
+ * @version 1.0
+ */
+public class Benchmarks {
+
+    private Benchmarks() {
+        // que le main
+    }
+
+    /**
+     * Lance les benchmarks.
+     *
+     * @param args les options de JMH (ex : {@code -p taille=10000 Recherche})
+     * @throws Exception si JMH échoue
+     */
+    public static void main(String[] args) throws Exception {
+        List<String> options = new ArrayList<>(Arrays.asList(args));
+        if (!options.contains("-rf")) {
+            options.addAll(List.of("-rf", "json", "-rff", "jmh-resultats.json"));
+        }
+        org.openjdk.jmh.Main.main(options.toArray(new String[0]));
+    }
+}
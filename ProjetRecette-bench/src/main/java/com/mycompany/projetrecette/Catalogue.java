@@ -0,0 +1,61 @@
+package com.mycompany.projetrecette;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Catalogue de recettes factice pour les benchmarks, toujours le même pour une taille donnée
+ * (graine fixe), pour que deux exécutions mesurent exactement les mêmes données.
+ *
+ * @author bapti
+ * @version 1.0
+ */
+final class Catalogue {
+
+    static final String[] GENRES = { "Entrée", "Plat", "Dessert", "Apéritif" };
+
+    private static final String[] PLATS = {
+        "Tarte", "Gratin", "Soupe", "Salade", "Crème", "Gâteau", "Quiche", "Poêlée", "Velouté", "Tajine",
+        "Risotto", "Clafoutis", "Crumble", "Curry", "Blanquette", "Terrine", "Mousse", "Omelette"
+    };
+    private static final String[] GARNITURES = {
+        "aux pommes", "de légumes", "au chocolat", "de saumon", "aux poireaux", "à la tomate",
+        "de courgettes", "au fromage", "aux champignons", "de poulet", "aux fraises", "à l'orange",
+        "de lentilles", "au citron", "de boeuf", "aux épinards", "de potiron", "à la vanille"
+    };
+    private static final String[] QUANTITES = {
+        "250g", "0,5 L", "1/2", "1.5kg", "2 cuillères", "une pincée", "3", "20 cl", "1 1/2 verre", "100 g"
+    };
+
+    final List<Recette> recettes = new ArrayList<>();
+    final Map<Integer, List<String>> nomsIngredients = new HashMap<>();
+    final Map<Integer, List<IngredientRecette>> ingredients = new HashMap<>();
+
+    Catalogue(int taille) {
+        Random rnd = new Random(42);
+        String[] nomsIng = new String[300];
+        for (int i = 0; i < nomsIng.length; i++) {
+            nomsIng[i] = PLATS[i % PLATS.length].toLowerCase() + " " + GARNITURES[(i * 7) % GARNITURES.length] + " " + i;
+        }
+
+        for (int id = 1; id <= taille; id++) {
+            String nom = PLATS[rnd.nextInt(PLATS.length)] + " " + GARNITURES[rnd.nextInt(GARNITURES.length)] + " n°" + id;
+            recettes.add(new Recette(id, nom, GENRES[rnd.nextInt(GENRES.length)], "", "Mélanger puis cuire.",
+                    "30 min", 1 + rnd.nextInt(8), 5 + rnd.nextInt(20)));
+
+            int nb = 5 + rnd.nextInt(8);
+            List<String> noms = new ArrayList<>(nb);
+            List<IngredientRecette> liens = new ArrayList<>(nb);
+            for (int j = 0; j < nb; j++) {
+                String n = nomsIng[rnd.nextInt(nomsIng.length)];
+                noms.add(n);
+                liens.add(new IngredientRecette(n, QUANTITES[rnd.nextInt(QUANTITES.length)]));
+            }
+            nomsIngredients.put(id, noms);
+            ingredients.put(id, liens);
+        }
+    }
+}
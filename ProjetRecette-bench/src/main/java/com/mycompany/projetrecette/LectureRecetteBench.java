@@ -0,0 +1,96 @@
+package com.mycompany.projetrecette;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Construction des {@link Recette} à partir des lignes, comme dans {@code RecetteDAO.getAll},
+ * sur un ResultSet factice en mémoire : on mesure le mapping sans le réseau ni la base.
+ * Le ResultSet est un proxy, son coût d'appel fait partie de la mesure et reste le même
+ * d'une exécution à l'autre.
+ *
+ * @author bapti
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LectureRecetteBench {
+
+    @Param({ "1000", "10000", "100000" })
+    public int lignes;
+
+    private Object[][] donnees; // [ligne][colonne], dans l'ordre de RecetteDAO.COLONNES
+
+    private static final String[] COLONNES = {
+        "id", "nom", "genre", "ingredients", "instructions", "duree", "nb_personnes", "prix_moyen"
+    };
+
+    @Setup
+    public void preparer() {
+        List<Recette> recettes = new Catalogue(lignes).recettes;
+        donnees = new Object[recettes.size()][];
+        for (int i = 0; i < donnees.length; i++) {
+            Recette r = recettes.get(i);
+            donnees[i] = new Object[] { r.getIdRecette(), r.getNomRecette(), r.getGenreRecette(), r.getIngredients(),
+                    r.getInstructions(), r.getDuree(), r.getNbPersonnes(), r.getPrixMoyen() };
+        }
+    }
+
+    @Benchmark
+    public List<Recette> lireToutes() throws SQLException {
+        List<Recette> liste = new ArrayList<>();
+        try (ResultSet rs = resultSet(donnees)) {
+            while (rs.next()) {
+                liste.add(RecetteDAO.lire(rs));
+            }
+        }
+        return liste;
+    }
+
+    // un ResultSet en lecture seule sur un tableau, juste ce que RecetteDAO.lire utilise
+    private static ResultSet resultSet(Object[][] donnees) {
+        int[] ligne = { -1 };
+        return (ResultSet) Proxy.newProxyInstance(LectureRecetteBench.class.getClassLoader(),
+                new Class<?>[] { ResultSet.class }, (proxy, m, args) -> {
+                    switch (m.getName()) {
+                        case "next":
+                            return ++ligne[0] < donnees.length;
+                        case "close":
+                            return null;
+                        case "getInt":
+                        case "getString":
+                        case "getDouble":
+                            return donnees[ligne[0]][colonne(args[0])];
+                        default:
+                            throw new UnsupportedOperationException(m.getName());
+                    }
+                });
+    }
+
+    private static int colonne(Object cle) {
+        if (cle instanceof Integer) return (Integer) cle - 1;
+        for (int i = 0; i < COLONNES.length; i++) {
+            if (COLONNES[i].equals(cle)) return i;
+        }
+        throw new IllegalArgumentException("Colonne inconnue : " + cle);
+    }
+}
@@ -0,0 +1,74 @@
+package com.mycompany.projetrecette;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mise à l'échelle des quantités comme dans {@code App.majQuantites} (un clic sur +/-),
+ * et analyse des quantités au chargement.
+ *
+ * @author bapti
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuantiteBench {
+
+    @Param({ "5", "12", "40" })
+    public int nbIngredients;
+
+    private List<IngredientRecette> ingredients;
+    private List<String> textes;
+    private final StringBuilder sb = new StringBuilder(256);
+    private int personnes = 1;
+
+    @Setup
+    public void preparer() {
+        Catalogue c = new Catalogue(200);
+        ingredients = new ArrayList<>();
+        textes = new ArrayList<>();
+        for (List<IngredientRecette> liens : c.ingredients.values()) {
+            for (IngredientRecette ir : liens) {
+                if (ingredients.size() == nbIngredients) break;
+                ir.getMesure(); // analysees au chargement, comme dans le viewer
+                ingredients.add(ir);
+                textes.add(ir.getQuantite());
+            }
+        }
+    }
+
+    @Benchmark
+    public int majQuantites() {
+        personnes = personnes % 12 + 1;
+        sb.setLength(0);
+        for (IngredientRecette ir : ingredients) {
+            sb.append("- ").append(ir.getNomIngredient()).append(" : ");
+            ir.getMesure().ecrire(sb, personnes, 4);
+            sb.append('\n');
+        }
+        return sb.length();
+    }
+
+    @Benchmark
+    public long parser() {
+        long somme = 0;
+        for (String t : textes) somme += Quantite.parser(t).getNumerateur();
+        return somme;
+    }
+}
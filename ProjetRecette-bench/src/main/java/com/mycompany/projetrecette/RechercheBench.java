@@ -0,0 +1,80 @@
+package com.mycompany.projetrecette;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Recherche comme dans {@code App.appliquerFiltre} : les index de {@link RechercheRecettes}
+ * puis le filtre de la table (recherche dichotomique de chaque recette dans les résultats),
+ * pour les trois types de recherche, avec ou sans fautes de frappe.
+ *
+ * @author bapti
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RechercheBench {
+
+    @Param({ "1000", "10000", "100000" })
+    public int taille;
+
+    @Param({ "Nom", "Genre", "Ingrédient" })
+    public String type;
+
+    // un peu de tout : court (parcours), courant, rare, absent, des genres,
+    // et des fautes de frappe (rien tel quel, on passe par l'index approche)
+    private static final String[] REQUETES = {
+        "ta", "tarte", "chocolat", "gratin aux", "pomm", "zzz", "plat", "des", "apé",
+        "courgete", "blanquete", "chocolat noire"
+    };
+
+    private List<Recette> recettes;
+    private RechercheRecettes moteur;
+    private int suivante;
+
+    @Setup
+    public void preparer() {
+        Catalogue c = new Catalogue(taille);
+        recettes = c.recettes;
+        moteur = new RechercheRecettes(new IndexIngredients());
+        moteur.chargerIngredients(c.nomsIngredients);
+        moteur.indexer(recettes);
+    }
+
+    private String requete() {
+        String q = REQUETES[suivante];
+        suivante = (suivante + 1) % REQUETES.length;
+        return q;
+    }
+
+    @Benchmark
+    public int[] rechercher() {
+        return moteur.rechercher(requete(), type);
+    }
+
+    @Benchmark
+    public int rechercherEtFiltrer() {
+        int[] ids = moteur.rechercher(requete(), type);
+        int visibles = 0; // ce que fait le predicat de la FilteredList
+        for (Recette r : recettes) {
+            if (Arrays.binarySearch(ids, r.getIdRecette()) >= 0) visibles++;
+        }
+        return visibles;
+    }
+}
@@ -0,0 +1,80 @@
+package com.mycompany.projetrecette;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lectures faites par l'appli (page de la table, ingrédients d'une recette) sur un {@link Stockage}.
+ * Par défaut en mémoire, remplie avec le {@link Catalogue} ; avec {@code -p stockage=postgres}
+ * on mesure la vraie base, avec les recettes qui s'y trouvent déjà (rien n'y est écrit).
+ *
+ * @author bapti
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StockageBench {
+
+    @Param({ "memoire" })
+    public String stockage;
+
+    @Param({ "10000" })
+    public int taille;
+
+    private Stockage s;
+    private int[] ids;
+    private int suivante;
+
+    @Setup
+    public void preparer() {
+        System.setProperty("recette.stockage", stockage);
+        s = Stockage.depuisConfiguration();
+        if (s instanceof StockageMemoire) {
+            Catalogue c = new Catalogue(taille);
+            for (Recette r : c.recettes) {
+                s.save(new Recette(0, r.getNomRecette(), r.getGenreRecette(), r.getIngredients(),
+                        r.getInstructions(), r.getDuree(), r.getNbPersonnes(), r.getPrixMoyen()),
+                        c.ingredients.get(r.getIdRecette()));
+            }
+        }
+        List<Recette> toutes = s.getAll();
+        ids = new int[toutes.size()];
+        for (int i = 0; i < ids.length; i++) ids[i] = toutes.get(i).getIdRecette();
+    }
+
+    @TearDown
+    public void fermer() {
+        s.fermer();
+    }
+
+    private int id() {
+        suivante = (suivante + 7919) % ids.length; // saute partout dans le catalogue
+        return ids[suivante];
+    }
+
+    @Benchmark
+    public List<Recette> page() {
+        return s.getPage(id(), 200);
+    }
+
+    @Benchmark
+    public List<IngredientRecette> ingredients() {
+        return s.getPourRecette(id());
+    }
+}
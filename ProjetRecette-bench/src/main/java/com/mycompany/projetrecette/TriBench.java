@@ -0,0 +1,60 @@
+package com.mycompany.projetrecette;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Tri de la liste par les boutons "Trier par Nom" et "Trier par Genre"
+ * ({@link Recette#PAR_NOM}, {@link Recette#PAR_GENRE}), sur une liste mélangée.
+ * La copie de la liste fait partie de la mesure, elle est négligeable devant le tri.
+ *
+ * @author bapti
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TriBench {
+
+    @Param({ "1000", "10000", "100000" })
+    public int taille;
+
+    private List<Recette> melangees;
+
+    @Setup
+    public void preparer() {
+        melangees = new ArrayList<>(new Catalogue(taille).recettes);
+        Collections.shuffle(melangees, new Random(7));
+    }
+
+    @Benchmark
+    public List<Recette> trierParNom() {
+        List<Recette> copie = new ArrayList<>(melangees);
+        copie.sort(Recette.PAR_NOM);
+        return copie;
+    }
+
+    @Benchmark
+    public List<Recette> trierParGenre() {
+        List<Recette> copie = new ArrayList<>(melangees);
+        copie.sort(Recette.PAR_GENRE);
+        return copie;
+    }
+}
@@ -1,5 +1,6 @@
 package com.mycompany.projetrecette;
 
+import javafx.animation.PauseTransition;
 import javafx.application.Application;
 import javafx.scene.Scene;
 import javafx.scene.control.Label;
@@ -18,6 +19,26 @@ import javafx.scene.control.TextArea;
 import java.util.List;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Alert;
+import javafx.scene.control.ContextMenu;
+import javafx.scene.control.MenuItem;
+import javafx.geometry.Side;
+import javafx.scene.control.ButtonType;
+import javafx.util.Duration;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.control.SelectionMode;
+import javafx.scene.layout.GridPane;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.io.IOException;
+import java.net.URL;
+import javafx.application.Platform;
+import javafx.css.CssParser;
 
 /**
  * Application principale pour la gestion des recettes.
@@ -29,15 +50,51 @@ import javafx.scene.control.Alert;
  */
 public class App extends Application {
 
-    // les DAO pr acceder a la bdd
-    private RecetteDAO recetteDAO = new RecetteDAO();
-    private IngredientDAO ingredientDAO = new IngredientDAO();
-    private RecetteIngredientDAO recetteIngredientDAO = new RecetteIngredientDAO();
+    // la ou sont rangees les recettes (postgres ou memoire, voir recette.stockage)
+    private Stockage stockage;
+
+    // tous les appels a la bdd passent par la, le thread FX n'attend jamais jdbc
+    private AsyncDAO dao;
+
+    // les index de recherche (noms, genres, ingredients), tenus a jour par le DAO
+    private final RechercheRecettes moteurRecherche = new RechercheRecettes(new IndexIngredients());
 
     // la liste observable pr afficher dans la table
     private final ObservableList<Recette> recettes =
             FXCollections.observableArrayList();
 
+    // recherche en arriere-plan, filtre la liste affichee
+    private PipelineRecherche recherche;
+
+    // remplit la liste page par page
+    private ChargeurPages chargeur;
+
+    // lances dans init(), en parallele de la construction de la scene
+    private CompletableFuture<Boolean> connexion;
+    private CompletableFuture<String> feuilleStyle;
+
+    private final ProfilDemarrage profil = new ProfilDemarrage();
+
+    /**
+     * Prépare tout ce qui ne touche pas à l'interface, avant {@link #start(Stage)} et hors du thread JavaFX.
+     * La connexion à la base (avec le chargement du pilote), la lecture de l'instantané local
+     * et l'analyse de la feuille de style partent en arrière-plan et avancent pendant
+     * la construction de la scène.
+     * Avec {@code -Drecette.demarrage.quitter=true} l'application se ferme dès que la base
+     * est jointe (pour mesurer le démarrage ou créer une archive CDS, voir le pom).
+     */
+    @Override
+    public void init() {
+        profil.etape("JavaFX prêt");
+        stockage = Stockage.depuisConfiguration(); // la base ne s'ouvre qu'au premier appel
+        dao = new AsyncDAO(stockage, stockage.getMaxParallele()); // pr une base : recette.pool.max, sans l'ouvrir
+        stockage.ajouterListener(moteurRecherche);
+
+        connexion = dao.executer(stockage::connecter);
+        feuilleStyle = CompletableFuture.supplyAsync(App::preparerStyle);
+        profil.etape("init");
+    }
+
     /**
      * Démarre l'application et initialise l'interface utilisateur.
      * Crée la table des recettes, les filtres de recherche, les boutons de tri et d'action.
@@ -46,12 +103,30 @@ public class App extends Application {
      */
     @Override
     public void start(Stage stage) {
-        // charge les recettes depuis la base
-        recettes.addAll(recetteDAO.getAll());
+        profil.etape("start");
+
+        // chaque page est indexee pr la recherche
+        chargeur = new ChargeurPages(dao, recettes, Integer.getInteger("recette.page", 200), page -> {
+            moteurRecherche.indexer(page);
+            if (!page.isEmpty()) profil.etape("première page");
+        });
+        chargerCatalogue();
+
+        // les modifications de la base, faites ici ou sur un autre poste, arrivent sur un thread de travail
+        stockage.ajouterListener(new RecetteListener() {
+            @Override
+            public void recetteEnregistree(Recette recette, List<IngredientRecette> ingredients) {
+                Platform.runLater(() -> mettreLigne(recette));
+            }
+
+            @Override
+            public void recetteSupprimee(int idRecette) {
+                Platform.runLater(() -> retirerLigne(idRecette));
+            }
+        });
 
         BorderPane borderPane = new BorderPane();
         Scene scene = new Scene(borderPane, 700, 600);
-        scene.getStylesheets().add(getClass().getResource("/style.css").toExternalForm());
 
         // cree la table pr afficher les recettes
         TableView<Recette> table = new TableView<>();
@@ -61,7 +136,7 @@ public class App extends Application {
         tfSearch.setPromptText("Rechercher...");
 
         ComboBox<String> cbType = new ComboBox<>();
-        cbType.getItems().addAll("Nom", "Genre", "Ingrédient");
+        cbType.getItems().addAll("Nom", "Genre", "Ingrédient", "Texte");
         cbType.setValue("Nom"); // c'est par nom par defaut
 
         HBox hSearch = new HBox(10, tfSearch, cbType);
@@ -80,30 +155,33 @@ public class App extends Application {
         colGenre.setCellValueFactory(new PropertyValueFactory<>("genreRecette"));
 
         table.getColumns().addAll(colNom, colGenre);
-        table.setItems(recettes); // charge les donnees dans la table
+        // la table affiche la liste filtree par la recherche (tout au depart)
+        // "Texte" cherche en base dans les noms, ingredients et instructions, que les meilleures
+        int limiteTexte = Integer.getInteger("recette.recherche.limite", 100);
+        recherche = new PipelineRecherche(recettes, moteurRecherche,
+                t -> dao.search(t, ModeRecherche.PREFIXE, limiteTexte), Duration.millis(150));
+        table.itemsProperty().bind(recherche.afficheesProperty());
 
         borderPane.setCenter(table);
 
         // listener pr la recherche en temps reel
         tfSearch.textProperty().addListener((obs, oldV, newV) -> {
-            appliquerFiltre(recettes, table, tfSearch.getText(), cbType.getValue());
+            appliquerFiltre(tfSearch.getText(), cbType.getValue());
             // applique le filtre a chaque fois qu'on tape quelquechose
         });
 
         // quand on change le type de recherche
         cbType.setOnAction(e -> {
-            appliquerFiltre(recettes, table, tfSearch.getText(), cbType.getValue());
+            appliquerFiltre(tfSearch.getText(), cbType.getValue());
         });
 
         buttonTriNom.setOnAction(e -> {
-            // trier par nom alphabetiquement cest easy
-            FXCollections.sort(recettes,
-                    (r1, r2) -> r1.getNomRecette().compareToIgnoreCase(r2.getNomRecette()));
+            // trier par nom dans l'ordre du francais (Éclair avant Zeste)
+            trier(Recette.PAR_NOM, table);
         });
 
         buttonTriGenre.setOnAction(e -> {
-            FXCollections.sort(recettes, // meme chose pr le genre
-                    (r1, r2) -> r1.getGenreRecette().compareToIgnoreCase(r2.getGenreRecette()));
+            trier(Recette.PAR_GENRE, table); // meme chose pr le genre
         });
 
         VBox topBox = new VBox(10, hSearch, hTri);
@@ -116,6 +194,10 @@ public class App extends Application {
         Button buttonMod = new Button("Modifier");
         Button buttonSup = new Button("Supprimer");
         Button buttonView = new Button("Voir");
+        Button buttonCourses = new Button("Liste de courses");
+
+        // on peut choisir plusieurs recettes pr la liste de courses
+        table.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
 
         buttonAdd.setOnAction(e -> openEditor(null)); // null = nouvelle recette
 
@@ -127,11 +209,10 @@ public class App extends Application {
         buttonSup.setOnAction(e -> {
             Recette selected = table.getSelectionModel().getSelectedItem();
             if (selected != null) {
-                // d'abord on supprime les ingredients de la recette sinon ca va crash
-                recetteIngredientDAO.deleteAllForRecette(selected.getIdRecette());
-                recetteDAO.delete(selected.getIdRecette());
-                recettes.clear();
-                recettes.addAll(recetteDAO.getAll()); // recharge tout
+                // les ingredients de la recette puis la recette, en arriere-plan
+                dao.delete(selected.getIdRecette()).thenAccept(ok -> {
+                    if (ok) retirerLigne(selected.getIdRecette()); // on enleve juste cette ligne, pas besoin de tout recharger
+                });
             }
         });
 
@@ -140,12 +221,50 @@ public class App extends Application {
             if (selected != null) openViewer(selected); // affiche les details
         });
 
-        hbox.getChildren().addAll(buttonAdd, buttonMod, buttonSup, buttonView);
+        buttonCourses.setOnAction(e -> {
+            List<Recette> choisies = new ArrayList<>(table.getSelectionModel().getSelectedItems());
+            if (choisies.isEmpty()) {
+                showError("Sélectionnez une ou plusieurs recettes.");
+                return;
+            }
+            openListeCourses(choisies);
+        });
+
+        // tourne tant qu'un appel a la bdd est en cours
+        ProgressIndicator chargement = new ProgressIndicator();
+        chargement.setMaxSize(20, 20);
+        chargement.visibleProperty().bind(dao.enCoursProperty().greaterThan(0));
+
+        hbox.getChildren().addAll(buttonAdd, buttonMod, buttonSup, buttonView, buttonCourses, chargement);
         borderPane.setBottom(hbox);
-        
 
+        // la base est jointe en arriere-plan, la table s'affiche deja depuis l'instantane
+        connexion.whenComplete((enLigne, erreur) -> {
+            boolean horsLigne = erreur != null || !enLigne;
+            profil.etape(horsLigne ? "hors ligne" : "base jointe");
+            if (Boolean.getBoolean("recette.demarrage.quitter")) Platform.exit();
+
+            if (horsLigne) {
+                // hors ligne : on garde l'instantane, en lecture seule
+                buttonAdd.setDisable(true);
+                buttonMod.setDisable(true);
+                buttonSup.setDisable(true);
+                stage.setTitle("Gestion de recettes (hors ligne)");
+                reessayerConnexion(Duration.seconds(5), () -> {
+                    buttonAdd.setDisable(false);
+                    buttonMod.setDisable(false);
+                    buttonSup.setDisable(false);
+                    stage.setTitle("Gestion de recettes");
+                    if (stockage instanceof StockageInstantane) chargerCatalogue();
+                });
+            } else if (stockage instanceof StockageInstantane) {
+                chargerCatalogue(); // l'instantane a pu vieillir, on relit depuis la base
+            }
+        });
 
-        
+        // en general deja analysee pendant la construction ; sinon on ne bloque pas le thread FX pour elle
+        feuilleStyle.thenAcceptAsync(css -> scene.getStylesheets().add(css), Platform::runLater);
+        profil.etape("scène construite");
 
         stage.setTitle("Gestion de recettes");
         stage.setScene(scene);
@@ -154,6 +273,116 @@ public class App extends Application {
         stage.setMinHeight(600);
         
         stage.show();
+        profil.etape("fenêtre affichée");
+
+        // la barre de defilement n'existe qu'une fois la table affichee
+        for (Node n : table.lookupAll(".scroll-bar")) {
+            if (n instanceof ScrollBar && ((ScrollBar) n).getOrientation() == Orientation.VERTICAL) {
+                ScrollBar sb = (ScrollBar) n;
+                sb.valueProperty().addListener((obs, oldV, newV) -> {
+                    // on approche du bas : on ajoute la page deja prechargee
+                    if (newV.doubleValue() >= sb.getMax() * 0.8) chargeur.pageSuivante();
+                });
+            }
+        }
+    }
+
+    // hors ligne : on reessaie de joindre la base de plus en plus rarement (jusqu'a toutes les 2 min),
+    // enLigne est appele sur le thread FX quand ca marche
+    private void reessayerConnexion(Duration attente, Runnable enLigne) {
+        PauseTransition pause = new PauseTransition(attente);
+        pause.setOnFinished(e -> dao.executer(stockage::connecter).whenComplete((ok, erreur) -> {
+            if (erreur == null && ok) {
+                enLigne.run();
+            } else {
+                reessayerConnexion(Duration.millis(Math.min(attente.toMillis() * 2, 120_000)), enLigne);
+            }
+        }));
+        pause.play();
+    }
+
+    // une premiere analyse de la feuille de style hors du thread FX charge les classes du parseur CSS,
+    // la scene ne paie plus que l'analyse elle-meme
+    private static String preparerStyle() {
+        URL url = App.class.getResource("/style.css");
+        try {
+            new CssParser().parse(url);
+        } catch (IOException e) {
+            System.out.println("Feuille de style illisible : " + e.getMessage());
+        }
+        return url.toExternalForm();
+    }
+
+    // trie toute la liste (une fois tout charge, voir ChargeurPages#trier) en gardant la ligne choisie
+    private void trier(Comparator<Recette> ordre, TableView<Recette> table) {
+        Recette choisie = table.getSelectionModel().getSelectedItem();
+        chargeur.trier(ordre).thenRun(() -> {
+            if (choisie != null) table.getSelectionModel().select(choisie); // setAll perd la selection
+        });
+    }
+
+    // remplace la ligne de la recette, ou l'ajoute si elle n'y est pas encore
+    // (la meme modification peut arriver plusieurs fois : reponse du dao puis notification)
+    private void mettreLigne(Recette recette) {
+        chargeur.mettre(recette);
+    }
+
+    private void retirerLigne(int idRecette) {
+        chargeur.retirer(idRecette);
+    }
+
+    // propose sous le champ les ingredients qui commencent par le texte tape, les plus utilises d'abord
+    // tout vient de l'index en memoire, aucune requete a chaque frappe
+    private void autocompleter(TextField champ) {
+        ContextMenu propositions = new ContextMenu();
+        champ.textProperty().addListener((obs, oldV, newV) -> {
+            String texte = newV == null ? "" : newV.trim();
+            List<String> noms = texte.isEmpty() || !champ.isFocused()
+                    ? List.of() : moteurRecherche.completerIngredient(texte, 8);
+            if (noms.isEmpty() || (noms.size() == 1 && noms.get(0).equals(texte))) {
+                propositions.hide(); // rien a proposer, ou deja complet
+                return;
+            }
+
+            List<MenuItem> items = new ArrayList<>(noms.size());
+            for (String nom : noms) {
+                MenuItem item = new MenuItem(nom);
+                item.setOnAction(e -> {
+                    champ.setText(nom); // rappelle le listener, qui cache le menu
+                    champ.positionCaret(nom.length());
+                });
+                items.add(item);
+            }
+            propositions.getItems().setAll(items);
+            if (!propositions.isShowing()) propositions.show(champ, Side.BOTTOM, 0, 0);
+        });
+        champ.focusedProperty().addListener((obs, oldV, newV) -> {
+            if (!newV) propositions.hide();
+        });
+    }
+
+    // (re)charge la table page par page et l'index des ingredients, en arriere-plan
+    private void chargerCatalogue() {
+        // une seule requete pr tous les liens recette-ingredient
+        dao.getNomsParRecette().thenAccept(noms -> {
+            moteurRecherche.chargerIngredients(noms);
+            recherche.relancer(); // une recherche par ingredient a pu partir avant
+            // puis ceux qu'aucune recette n'utilise, pr l'autocompletion (apres, charger vide tout)
+            dao.getNomsIngredients().thenAccept(moteurRecherche::ajouterNomsIngredients);
+        });
+        chargeur.recharger();
+    }
+
+    /**
+     * Appelée à la fermeture de l'application.
+     * Arrête les threads de recherche et d'accès à la base et ferme le stockage
+     * (réécrit l'instantané local et ferme le pool de connexions).
+     */
+    @Override
+    public void stop() {
+        if (recherche != null) recherche.arreter();
+        if (dao != null) dao.arreter();
+        if (stockage != null) stockage.fermer(); // ferme toutes les connections du pool
     }
 
     /**
@@ -168,59 +397,36 @@ public class App extends Application {
         alert.showAndWait(); // montre et attend
     }
 
+    /**
+     * Pose une question oui / non à l'utilisateur.
+     * 
+     * @param message la question
+     * @return true si l'utilisateur a répondu oui
+     */
+    public boolean confirmer(String message) {
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION, message, ButtonType.YES, ButtonType.NO);
+        alert.setHeaderText(null);
+        return alert.showAndWait().orElse(ButtonType.NO) == ButtonType.YES;
+    }
+
     /**
      * Applique un filtre à la liste des recettes selon le texte et le type de recherche.
-     * Les recherches peuvent se faire par nom, genre ou ingrédient.
+     * Les recherches peuvent se faire par nom, genre ou ingrédient, sans tenir compte
+     * des accents ni de la casse, ou sur tout le texte des recettes (faite et classée par le stockage).
+     * Un nom ou un ingrédient mal tapé est retrouvé quand même ("courgete").
+     * La recherche part après une courte pause dans la frappe
+     * et se fait en arrière-plan, la table est mise à jour quand elle est finie.
      * 
-     * @param recettes la liste complète des recettes
-     * @param table le TableView à mettre à jour avec les résultats filtrés
      * @param texte le texte de recherche à appliquer
-     * @param type le type de recherche : "Nom", "Genre" ou "Ingrédient"
+     * @param type le type de recherche : "Nom", "Genre", "Ingrédient" ou "Texte"
      */
-    private void appliquerFiltre(ObservableList<Recette> recettes,
-                                 TableView<Recette> table,
-                                 String texte,
-                                 String type) {
-
-        // si la recherche est vide on affiche tout
-        if (texte == null || texte.isEmpty()) {
-            table.setItems(recettes);
-            return;
-        }
-
-        // cree une nouvelle liste avec que les recettes qui match
-        ObservableList<Recette> filtre = FXCollections.observableArrayList();
-
-        for (Recette r : recettes) {
-            switch (type) {
-                case "Nom":
-                    // cherche dans le nom (insensible a la casse)
-                    if (r.getNomRecette().toLowerCase().contains(texte.toLowerCase()))
-                        filtre.add(r);
-                    break;
-
-                case "Genre":
-                    // cherche dans le genre
-                    if (r.getGenreRecette().toLowerCase().contains(texte.toLowerCase()))
-                        filtre.add(r);
-                    break;
-
-                case "Ingrédient":
-                    // la partie la plus compliquee, on cherche dans les ingrédients
-                    List<IngredientRecette> ing = ingredientDAO.getPourRecette(r.getIdRecette());
-                    for (IngredientRecette ir : ing) {
-                        if (ir.getNomIngredient().toLowerCase().contains(texte.toLowerCase())) {
-                            filtre.add(r);
-                            break; // pas besoin de continuer si ya trouvé
-                        }
-                    }
-                    break;
-            }
-        }
-
-        table.setItems(filtre); // affiche les resultats filtres
+    private void appliquerFiltre(String texte, String type) {
+        // on ne peut trouver que ce qui est charge, donc on charge le reste de la table
+        // (sauf pr "Texte" : la base renvoie directement les recettes trouvees)
+        if (texte != null && !texte.isEmpty() && !"Texte".equals(type)) chargeur.toutCharger();
+        recherche.demander(texte, type);
     }
-  
+
 
     /**
      * Ouvre la fenêtre d'édition pour créer ou modifier une recette.
@@ -293,6 +499,7 @@ public class App extends Application {
 
         TextField tfIngNom = new TextField();
         tfIngNom.setPromptText("Ingrédient");
+        autocompleter(tfIngNom);
 
         TextField tfIngQt = new TextField();
         tfIngQt.setPromptText("Quantité");
@@ -303,6 +510,12 @@ public class App extends Application {
             String qt = tfIngQt.getText().trim();
 
             if (!nom.isEmpty() && !qt.isEmpty()) {
+                // pas de "tomates" ou "Tomate" en plus quand "tomate" existe deja
+                String proche = moteurRecherche.ingredientProche(nom);
+                if (proche != null && !proche.equals(nom)
+                        && confirmer("L'ingrédient « " + proche + " » existe déjà. L'utiliser à la place de « " + nom + " » ?")) {
+                    nom = proche;
+                }
                 // ajoute l'ingredient a la table
                 ingredientsListe.add(new IngredientRecette(nom, qt));
                 tfIngNom.clear();
@@ -326,14 +539,25 @@ public class App extends Application {
             tfNbPers.setText(String.valueOf(toEdit.getNbPersonnes()));
             tfPrix.setText(String.valueOf(toEdit.getPrixMoyen()));
 
-            List<IngredientRecette> ing = ingredientDAO.getPourRecette(toEdit.getIdRecette());
-            ingredientsListe.addAll(ing);
-
         } else {
             tfNbPers.setText("1");
         }
 
         Button buttonOk = new Button("OK");
+
+        if (toEdit != null) {
+            // les ingredients arrivent en arriere-plan, ceux ajoutes entre temps restent a la fin
+            // pas d'enregistrement avant sinon on perdrait ceux pas encore charges
+            buttonOk.setDisable(true);
+            dao.getPourRecette(toEdit.getIdRecette()).whenComplete((ing, erreur) -> {
+                if (erreur != null) {
+                    showError("Impossible de charger les ingrédients de la recette.");
+                    return;
+                }
+                ingredientsListe.addAll(0, ing);
+                buttonOk.setDisable(false);
+            });
+        }
         Button cancelBtn = new Button("Annuler");
 
         cancelBtn.setOnAction(e -> dlg.close());
@@ -360,46 +584,24 @@ public class App extends Application {
                     // nouvelle recette
                     r = new Recette(0, nom, genre, "", instructions, duree, nbPers, prix);
 
-                    recetteDAO.insert(r);
-                    recettes.clear();
-                    recettes.addAll(recetteDAO.getAll());
-
-                    int idRecette = recetteDAO.getLastInsertedId();
-
-                    // on ajoute chaque ingredient a la recette
-                    for (IngredientRecette ir : ingredientsListe) {
-                        int idIng = ingredientDAO.getIdByName(ir.getNomIngredient());
-                        if (idIng == -1) idIng = ingredientDAO.insertIngredient(ir.getNomIngredient());
-
-                        recetteIngredientDAO.insert(idRecette, idIng, ir.getQuantite());
-                    }
-
                 } else {
-                    // modification d'une recete existante
-                    toEdit.setNomRecette(nom);
-                    toEdit.setGenreRecette(genre);
-                    toEdit.setInstructions(instructions);
-                    toEdit.setDuree(duree);
-                    toEdit.setNbPersonnes(nbPers);
-                    toEdit.setPrixMoyen(prix);
-
-                    recetteDAO.update(toEdit);
-
-                    // on efface les anciens ingredients pour en ajouter les nouveaux
-                    recetteIngredientDAO.deleteAllForRecette(toEdit.getIdRecette());
-
-                    for (IngredientRecette ir : ingredientsListe) {
-                        int idIng = ingredientDAO.getIdByName(ir.getNomIngredient());
-                        if (idIng == -1) idIng = ingredientDAO.insertIngredient(ir.getNomIngredient());
+                    // modification d'une recete existante, l'original reste intact si la bdd refuse
+                    r = new Recette(toEdit.getIdRecette(), nom, genre, toEdit.getIngredients(),
+                            instructions, duree, nbPers, prix);
+                }
 
-                        recetteIngredientDAO.insert(toEdit.getIdRecette(), idIng, ir.getQuantite());
+                // la recette et tous ses ingredients en une seule transaction, en arriere-plan
+                buttonOk.setDisable(true); // pas de double enregistrement
+                dao.save(r, ingredientsListe).whenComplete((enregistree, erreur) -> {
+                    buttonOk.setDisable(false);
+                    if (enregistree == null) {
+                        showError("Erreur lors de l'enregistrement de la recette.");
+                        return;
                     }
 
-                    recettes.clear();
-                    recettes.addAll(recetteDAO.getAll());
-                }
-
-                dlg.close();
+                    mettreLigne(enregistree); // ajoute ou remplace juste cette ligne
+                    dlg.close();
+                });
 
             } catch (Exception ex) {
                 System.out.println("Erreur : " + ex.getMessage());
@@ -466,7 +668,11 @@ public class App extends Application {
         TextArea taIng = new TextArea();
         taIng.setEditable(false);
 
-        majQuantites(recette, recette.getNbPersonnes(), taIng);
+        // les ingredients ne changent pas quand on change le nb de personnes, on les charge une fois
+        // (quantites deja analysees) et le texte est reecrit dans le meme buffer a chaque clic
+        CompletableFuture<List<IngredientRecette>> ingredients = dao.getPourRecette(recette.getIdRecette());
+        StringBuilder buffer = new StringBuilder(256);
+        ingredients.thenAccept(ing -> majQuantites(recette, ing, recette.getNbPersonnes(), taIng, buffer));
 
         btnMoinsView.setOnAction(ev -> {
             try {
@@ -475,7 +681,8 @@ public class App extends Application {
                     nb--;
                     tfNbPers.setText(String.valueOf(nb));
                     // recalcule les quantités
-                    majQuantites(recette, nb, taIng);
+                    int n = nb;
+                    ingredients.thenAccept(ing -> majQuantites(recette, ing, n, taIng, buffer));
                 }
             } catch (Exception ex) {}
         });
@@ -485,7 +692,8 @@ public class App extends Application {
                 int nb = Integer.parseInt(tfNbPers.getText());
                 nb++;
                 tfNbPers.setText(String.valueOf(nb));
-                majQuantites(recette, nb, taIng);
+                int n = nb;
+                ingredients.thenAccept(ing -> majQuantites(recette, ing, n, taIng, buffer));
             } catch (Exception ex) {}
         });
 
@@ -497,6 +705,7 @@ public class App extends Application {
 
         Button btnFermer = new Button("Fermer");
         btnFermer.setOnAction(e -> dlg.close());
+        dlg.setOnHidden(e -> ingredients.cancel(true)); // plus besoin si on ferme avant la fin
 
         VBox vbox = new VBox(10);
         vbox.getChildren().addAll(
@@ -520,65 +729,113 @@ public class App extends Application {
         dlg.show();
     }
 
+    /**
+     * Ouvre la fenêtre de la liste de courses pour les recettes choisies.
+     * On choisit le nombre de personnes de chaque recette, la liste additionne
+     * les ingrédients communs (en convertissant g/kg et ml/cl/l).
+     * 
+     * @param choisies les recettes sélectionnées
+     */
+    public void openListeCourses(List<Recette> choisies) {
+        Stage dlg = new Stage();
+        dlg.setTitle("Liste de courses");
+
+        // une ligne par recette : son nom et le nb de personnes voulu
+        GridPane grille = new GridPane();
+        grille.setHgap(10);
+        grille.setVgap(5);
+        Map<Recette, TextField> personnes = new LinkedHashMap<>();
+        int ligne = 0;
+        for (Recette r : choisies) {
+            TextField tfPers = new TextField(String.valueOf(r.getNbPersonnes()));
+            tfPers.setMaxWidth(60);
+            personnes.put(r, tfPers);
+            grille.add(new Label(r.getNomRecette()), 0, ligne);
+            grille.add(tfPers, 1, ligne);
+            ligne++;
+        }
+
+        TextArea taListe = new TextArea();
+        taListe.setEditable(false);
+
+        Button btnCalculer = new Button("Calculer");
+        btnCalculer.setOnAction(e -> {
+            Map<Recette, Integer> plan = new LinkedHashMap<>();
+            for (Map.Entry<Recette, TextField> en : personnes.entrySet()) {
+                try {
+                    int nb = Integer.parseInt(en.getValue().getText().trim());
+                    if (nb > 0) plan.put(en.getKey(), nb); // 0 = on ne la fait pas
+                } catch (NumberFormatException ex) {
+                    showError("Nombre de personnes invalide pour " + en.getKey().getNomRecette());
+                    return;
+                }
+            }
+
+            btnCalculer.setDisable(true);
+            dao.listeCourses(plan).whenComplete((lignes, erreur) -> {
+                btnCalculer.setDisable(false);
+                if (erreur != null) {
+                    showError("Impossible de calculer la liste de courses.");
+                    return;
+                }
+                StringBuilder sb = new StringBuilder();
+                for (ListeCourses.Ligne l : lignes) sb.append("- ").append(l).append('\n');
+                taListe.setText(sb.toString());
+            });
+        });
+
+        Button btnFermer = new Button("Fermer");
+        btnFermer.setOnAction(e -> dlg.close());
+
+        VBox vbox = new VBox(10,
+                new Label("Personnes par recette :"), grille,
+                btnCalculer,
+                new Label("À acheter :"), taListe,
+                btnFermer);
+
+        Scene scene = new Scene(vbox, 400, 600);
+        dlg.setScene(scene);
+        dlg.setMinWidth(400);
+        dlg.setMinHeight(600);
+        dlg.show();
+
+        btnCalculer.fire(); // premiere liste avec les nb de personnes des recettes
+    }
+
     /**
      * Met à jour les quantités des ingrédients en fonction du nombre de personnes affiché.
-     * Recalcule les quantités en appliquant un ratio basé sur le nombre de personnes original.
+     * Les quantités sont déjà analysées (voir {@link Quantite}), on ne fait que multiplier
+     * par le rapport entre le nombre de personnes affiché et l'original, sans toucher à la base.
      * 
      * @param recette la recette dont les quantités doivent être mises à jour
+     * @param ing les ingrédients de la recette
      * @param nbPersAffiche le nombre de personnes pour lequel calculer les quantités
      * @param taIng la TextArea où afficher les ingrédients avec les quantités mises à jour
+     * @param sb le buffer réutilisé pour construire le texte
      */
-    private void majQuantites(Recette recette, int nbPersAffiche, TextArea taIng) {
-        List<IngredientRecette> ing = ingredientDAO.getPourRecette(recette.getIdRecette());
+    private void majQuantites(Recette recette, List<IngredientRecette> ing, int nbPersAffiche,
+                              TextArea taIng, StringBuilder sb) {
 
         int nbOriginal = recette.getNbPersonnes();
         if (nbOriginal <= 0) nbOriginal = 1;
 
-        // calcule le ratio pour adapter les quantites
-        double ratio = (double) nbPersAffiche / (double) nbOriginal;
-
-        String texte = "";
+        sb.setLength(0); // on reutilise le buffer
         for (IngredientRecette ir : ing) {
-
-            String q = ir.getQuantite();
-            if (q == null) q = "";
-
-            // cherche ou commence le texte apres les chiffres
-            int i = 0;
-            while (i < q.length() && Character.isDigit(q.charAt(i))) {
-                i++;
-            }
-
-            if (i == 0) {
-                // pas de chiffre donc on laisse comme c'est
-                texte += "- " + ir.getNomIngredient() + " : " + q + "\n";
-            } else {
-                String numPart = q.substring(0, i);
-                String unitPart = q.substring(i);
-
-                int val;
-                try {
-                    val = Integer.parseInt(numPart);
-                } catch (Exception e) {
-                    texte += "- " + ir.getNomIngredient() + " : " + q + "\n";
-                    continue;
-                }
-
-                // multiplie la quantite par le ratio
-                int newVal = (int) Math.round(val * ratio);
-                texte += "- " + ir.getNomIngredient() + " : " + newVal + unitPart + "\n";
-            }
+            sb.append("- ").append(ir.getNomIngredient()).append(" : ");
+            // multiplie par nbPersAffiche / nbOriginal (laisse tel quel s'il n'y a pas de nombre)
+            ir.getMesure().ecrire(sb, nbPersAffiche, nbOriginal);
+            sb.append('\n');
         }
 
-        taIng.setText(texte);
+        taIng.setText(sb.toString());
     }
 
     /**
      * Point d'entrée de l'application.
      * 
-     * @param args les arguments de ligne de commande (non utilisés)
+     * @param args les arguments de ligne de commande ({@code --migrer}, voir {@link Lanceur})
      */
     public static void main(String[] args) {
-        launch();
+        Lanceur.main(args);
     }
 }
\ No newline at end of file
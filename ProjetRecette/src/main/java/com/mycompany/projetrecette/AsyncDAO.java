@@ -0,0 +1,284 @@
+package com.mycompany.projetrecette;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
+
+/**
+ * Façade asynchrone au-dessus du {@link Stockage}, pour que le thread JavaFX n'attende jamais la base.
+ * Chaque appel part sur un exécuteur dédié et borné (pas plus de tâches en parallèle
+ * que le stockage n'en supporte, les connexions du pool pour une base) et retourne un {@link CompletableFuture} complété
+ * sur le thread JavaFX. Annuler le future interrompt la tâche si elle n'est pas finie
+ * et son résultat n'est jamais livré.
+ * Sur Java 21 ou plus les tâches tournent sur des threads virtuels.
+ *
+ * @author bapti
+ * @version 1.0
+ */
+public class AsyncDAO {
+
+    private final Stockage stockage;
+
+    private final ExecutorService executeur;
+    private final Semaphore limite; // borne le parallelisme avec les threads virtuels
+    private final ReadOnlyIntegerWrapper enCours = new ReadOnlyIntegerWrapper(); // pr les indicateurs de chargement
+
+    /**
+     * Crée la façade.
+     *
+     * @param stockage le stockage des recettes et des ingrédients
+     * @param maxParallele le nombre maximum d'appels en parallèle (en général {@link Stockage#getMaxParallele()})
+     */
+    public AsyncDAO(Stockage stockage, int maxParallele) {
+        this.stockage = stockage;
+        this.limite = new Semaphore(maxParallele);
+
+        ExecutorService virtuels = threadsVirtuels();
+        if (virtuels != null) {
+            executeur = virtuels;
+        } else {
+            AtomicInteger num = new AtomicInteger();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(maxParallele, maxParallele,
+                    30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(256), r -> {
+                        Thread t = new Thread(r, "dao-" + num.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    });
+            pool.allowCoreThreadTimeOut(true); // pas de threads qui trainent quand l'appli est calme
+            executeur = pool;
+        }
+    }
+
+    /**
+     * Nombre d'appels en cours, à lier à un indicateur de chargement (lu sur le thread JavaFX).
+     *
+     * @return la propriété du nombre d'appels en cours
+     */
+    public ReadOnlyIntegerProperty enCoursProperty() {
+        return enCours.getReadOnlyProperty();
+    }
+
+    /**
+     * Lance un appel quelconque à la base en arrière-plan.
+     *
+     * @param <T> le type du résultat
+     * @param appel l'appel à exécuter
+     * @return le résultat, livré sur le thread JavaFX
+     */
+    public <T> CompletableFuture<T> executer(Callable<T> appel) {
+        CompletableFuture<T> resultat = new CompletableFuture<>();
+        surFx(() -> enCours.set(enCours.get() + 1));
+
+        Future<?> tache;
+        try {
+            tache = executeur.submit(() -> {
+                try {
+                    limite.acquire();
+                    try {
+                        T valeur = appel.call();
+                        Platform.runLater(() -> resultat.complete(valeur));
+                    } finally {
+                        limite.release();
+                    }
+                } catch (Throwable t) {
+                    Platform.runLater(() -> resultat.completeExceptionally(t));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            tache = null; // file pleine ou executeur arrete
+            resultat.completeExceptionally(e);
+        }
+
+        Future<?> aAnnuler = tache;
+        resultat.whenComplete((v, t) -> {
+            if (resultat.isCancelled() && aAnnuler != null) aAnnuler.cancel(true); // on interrompt la tache
+            surFx(() -> enCours.set(enCours.get() - 1));
+        });
+        return resultat;
+    }
+
+    /**
+     * Charge une page de recettes.
+     *
+     * @param apresId l'identifiant de la dernière recette de la page précédente
+     * @param limite le nombre maximum de recettes
+     * @return la page, livrée sur le thread JavaFX
+     * @see Stockage#getPage(int, int)
+     */
+    public CompletableFuture<List<Recette>> getPage(int apresId, int limite) {
+        return executer(() -> stockage.getPage(apresId, limite));
+    }
+
+    /**
+     * Parcourt les recettes (avec un curseur côté serveur pour une base).
+     * L'action est appelée sur le thread de travail, pas sur le thread JavaFX.
+     *
+     * @param apresId ne parcourt que les recettes d'identifiant supérieur
+     * @param fetchSize le nombre de lignes récupérées par aller-retour
+     * @param action appelée pour chaque recette
+     * @return complété sur le thread JavaFX à la fin du parcours
+     * @see Stockage#parcourir(int, int, Consumer)
+     */
+    public CompletableFuture<Void> parcourir(int apresId, int fetchSize, Consumer<Recette> action) {
+        return executer(() -> {
+            stockage.parcourir(apresId, fetchSize, action);
+            return null;
+        });
+    }
+
+    /**
+     * Charge une page de recettes triées par nom.
+     *
+     * @param apres la dernière recette de la page précédente (null pour la première page)
+     * @param limite le nombre maximum de recettes
+     * @return la page, livrée sur le thread JavaFX
+     * @see Stockage#getPageParNom(Recette, int)
+     */
+    public CompletableFuture<List<Recette>> getPageParNom(Recette apres, int limite) {
+        return executer(() -> stockage.getPageParNom(apres, limite));
+    }
+
+    /**
+     * Parcourt les recettes triées par nom (avec un curseur côté serveur pour une base).
+     * L'action est appelée sur le thread de travail, pas sur le thread JavaFX.
+     *
+     * @param apres ne parcourt que les recettes qui viennent après celle-ci (null pour toutes)
+     * @param fetchSize le nombre de lignes récupérées par aller-retour
+     * @param action appelée pour chaque recette
+     * @return complété sur le thread JavaFX à la fin du parcours
+     * @see Stockage#parcourirParNom(Recette, int, Consumer)
+     */
+    public CompletableFuture<Void> parcourirParNom(Recette apres, int fetchSize, Consumer<Recette> action) {
+        return executer(() -> {
+            stockage.parcourirParNom(apres, fetchSize, action);
+            return null;
+        });
+    }
+
+    /**
+     * Recherche plein texte dans les recettes.
+     *
+     * @param requete le texte cherché
+     * @param mode la façon de lire le texte
+     * @param limite le nombre maximum de recettes
+     * @return les recettes trouvées, la plus pertinente d'abord, livrées sur le thread JavaFX
+     * @see Stockage#search(String, ModeRecherche, int)
+     */
+    public CompletableFuture<List<Recette>> search(String requete, ModeRecherche mode, int limite) {
+        return executer(() -> stockage.search(requete, mode, limite));
+    }
+
+    /**
+     * Enregistre une recette et ses ingrédients.
+     *
+     * @param recette la recette à enregistrer
+     * @param ingredients ses ingrédients
+     * @return la recette enregistrée, ou null en cas d'erreur
+     * @see Stockage#save(Recette, List)
+     */
+    public CompletableFuture<Recette> save(Recette recette, List<IngredientRecette> ingredients) {
+        List<IngredientRecette> copie = List.copyOf(ingredients); // la liste FX peut changer pendant l'appel
+        return executer(() -> stockage.save(recette, copie));
+    }
+
+    /**
+     * Supprime une recette et ses liens vers les ingrédients.
+     *
+     * @param idRecette l'identifiant de la recette
+     * @return true si la suppression a réussi
+     */
+    public CompletableFuture<Boolean> delete(int idRecette) {
+        return executer(() -> stockage.delete(idRecette));
+    }
+
+    /**
+     * Charge les ingrédients d'une recette, quantités déjà analysées.
+     *
+     * @param idRecette l'identifiant de la recette
+     * @return les ingrédients avec leurs quantités
+     * @see Stockage#getPourRecette(int)
+     */
+    public CompletableFuture<List<IngredientRecette>> getPourRecette(int idRecette) {
+        return executer(() -> {
+            List<IngredientRecette> ingredients = stockage.getPourRecette(idRecette);
+            for (IngredientRecette ir : ingredients) ir.getMesure(); // analysees ici plutot que sur le thread FX
+            return ingredients;
+        });
+    }
+
+    /**
+     * Calcule en arrière-plan la liste de courses de plusieurs recettes.
+     * Les ingrédients de toutes les recettes sont lus en un seul appel au stockage.
+     *
+     * @param plan les recettes choisies avec le nombre de personnes voulu pour chacune
+     * @return les lignes de la liste de courses
+     * @see ListeCourses#calculer(Map, Map)
+     */
+    public CompletableFuture<List<ListeCourses.Ligne>> listeCourses(Map<Recette, Integer> plan) {
+        Map<Recette, Integer> copie = new LinkedHashMap<>(plan);
+        return executer(() -> {
+            List<Integer> ids = new ArrayList<>(copie.size());
+            for (Recette r : copie.keySet()) ids.add(r.getIdRecette());
+            return ListeCourses.calculer(copie, stockage.getPourRecettes(ids));
+        });
+    }
+
+    /**
+     * Charge les noms d'ingrédients de toutes les recettes.
+     *
+     * @return les noms par identifiant de recette
+     * @see Stockage#getNomsParRecette()
+     */
+    public CompletableFuture<Map<Integer, List<String>>> getNomsParRecette() {
+        return executer(stockage::getNomsParRecette);
+    }
+
+    /**
+     * Charge les noms de tous les ingrédients.
+     *
+     * @return les noms, livrés sur le thread JavaFX
+     * @see Stockage#getNomsIngredients()
+     */
+    public CompletableFuture<List<String>> getNomsIngredients() {
+        return executer(stockage::getNomsIngredients);
+    }
+
+    /**
+     * Arrête l'exécuteur et interrompt les appels en cours.
+     */
+    public void arreter() {
+        executeur.shutdownNow();
+    }
+
+    private static void surFx(Runnable r) {
+        if (Platform.isFxApplicationThread()) r.run();
+        else Platform.runLater(r);
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() n'existe qu'a partir de Java 21
+    private static ExecutorService threadsVirtuels() {
+        try {
+            Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) m.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null; // jdk plus ancien, on garde des threads classiques
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package com.mycompany.projetrecette;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.util.Duration;
+
+/**
+ * Remplit la liste des recettes page par page au lieu de tout charger d'un coup.
+ * Les recettes arrivent triées par nom ({@link AsyncDAO#getPageParNom(Recette, int)}, trié par la base
+ * avec un index), la table n'a donc rien à trier à l'affichage ; les recettes créées ou modifiées
+ * sur place sont rangées à leur place dans cet ordre.
+ * Les pages sont lues en arrière-plan et la page suivante est toujours préchargée pour être prête
+ * quand l'utilisateur arrive en bas de la table.
+ * {@link #toutCharger()} lit le reste de la table avec un curseur côté serveur.
+ * {@link #trier(Comparator)} change l'ordre de la liste une fois tout chargé ; les recettes
+ * créées ou modifiées ensuite sont rangées dans ce nouvel ordre.
+ * <p>
+ * L'ordre par nom de la base (collation {@code francais}, voir {@code V5__tri_francais.sql})
+ * et celui de {@link Recette#PAR_NOM} ({@link java.text.Collator} français) sont les mêmes
+ * avec ICU ; avec la collation de repli (locale du système ou par défaut) ils peuvent différer,
+ * et une recette rangée sur place peut alors être un peu décalée par rapport aux pages.
+ * Le chargeur le détecte en vérifiant l'ordre des pages reçues et le signale une fois dans la console.
+ * Une page ou un parcours en erreur n'est jamais pris pour la fin de la table : le chargement
+ * reprend après la dernière recette reçue (au prochain défilement, ou après {@link #DELAI_REPRISE}
+ * si tout le reste était demandé).
+ * Toutes les méthodes publiques doivent être appelées sur le thread JavaFX.
+ *
+ * @author bapti
+ * @version 1.0
+ */
+public class ChargeurPages {
+
+    /** Attente avant de relancer {@link #toutCharger()} après une erreur. */
+    static final Duration DELAI_REPRISE = Duration.seconds(5);
+
+    private final AsyncDAO dao;
+    private final ObservableList<Recette> cible;
+    private final int taillePage;
+    private final Consumer<List<Recette>> surPage; // prevenu avant l'ajout de chaque page (index de recherche)
+
+    private CompletableFuture<List<Recette>> prochaine; // la page prechargee
+    private Recette derniere; // cle (nom, id) de la derniere recette affichee, null au debut
+    private boolean occupe; // on attend deja la page prechargee
+    private boolean flux; // on lit tout le reste avec le curseur
+    private boolean termine;
+    private long generation; // change a chaque rechargement pr ignorer les vieilles pages
+    private final Set<Integer> ajoutsLocaux = new HashSet<>(); // deja dans la liste, a sauter dans les pages
+    private int enQueue; // recettes locales apres la derniere page, en fin de liste, a fusionner avec les pages
+
+    private Comparator<Recette> ordre = Recette.PAR_NOM; // celui de la liste, autre que PAR_NOM seulement si termine
+    private Comparator<Recette> triDemande; // a faire des que tout est charge
+    private CompletableFuture<Void> triFini; // complete quand triDemande est applique
+    private boolean triEnCours; // tri en arriere-plan
+    private long version; // change a chaque modification de la liste
+    private boolean ordreDifferent; // le serveur ne trie pas comme PAR_NOM, deja signale
+
+    /**
+     * Crée le chargeur.
+     *
+     * @param dao la façade asynchrone des DAO
+     * @param cible la liste à remplir
+     * @param taillePage le nombre de recettes par page (et le fetchSize du curseur)
+     * @param surPage appelé avec chaque page juste avant qu'elle soit ajoutée à la liste
+     */
+    public ChargeurPages(AsyncDAO dao, ObservableList<Recette> cible, int taillePage,
+                         Consumer<List<Recette>> surPage) {
+        this.dao = dao;
+        this.cible = cible;
+        this.taillePage = taillePage;
+        this.surPage = surPage;
+        cible.addListener((ListChangeListener<Recette>) c -> version++);
+    }
+
+    /**
+     * Vide la liste et recommence le chargement depuis la première page.
+     */
+    public void recharger() {
+        generation++;
+        cible.clear();
+        derniere = null;
+        occupe = false;
+        flux = false;
+        termine = false;
+        ajoutsLocaux.clear();
+        enQueue = 0;
+        ordre = Recette.PAR_NOM; // les pages arrivent par nom
+        triDemande = null;
+        if (triFini != null) triFini.complete(null); // annule par le rechargement
+        triFini = null;
+        prochaine = charger(null);
+        pageSuivante();
+    }
+
+    /**
+     * Ajoute la page suivante à la liste dès qu'elle est prête, et précharge celle d'après.
+     * Ne fait rien si une page est déjà attendue ou si tout est chargé.
+     */
+    public void pageSuivante() {
+        if (termine || occupe || flux || prochaine == null) return;
+        occupe = true;
+        attendre();
+    }
+
+    /**
+     * Charge tout le reste de la table (par exemple avant une recherche),
+     * en streaming par paquets de {@code taillePage}.
+     */
+    public void toutCharger() {
+        if (termine || flux || prochaine == null) return;
+        flux = true;
+        if (!occupe) { // sinon recue() enchainera sur le flux
+            occupe = true;
+            attendre();
+        }
+    }
+
+    /**
+     * Trie toute la liste dans un autre ordre. Les pages arrivent triées par nom : s'il en reste,
+     * tout le reste est d'abord chargé et la liste n'est triée qu'une fois, à la fin.
+     * Le tri se fait en arrière-plan sur une copie ; si la liste change pendant ce temps
+     * (notification), elle est retriée sur place une seule fois.
+     * {@link #recharger()} revient à l'ordre par nom.
+     *
+     * @param ordre le nouvel ordre, départagé par {@link Recette#PAR_NOM}
+     * @return complété sur le thread JavaFX quand la liste est triée
+     */
+    public CompletableFuture<Void> trier(Comparator<Recette> ordre) {
+        if (ordre == Recette.PAR_NOM && !termine) {
+            // pas encore tout charge, la liste est deja par nom : rien a attendre
+            triDemande = null;
+            if (triFini != null) triFini.complete(null);
+            triFini = null;
+            return CompletableFuture.completedFuture(null);
+        }
+        triDemande = ordre == Recette.PAR_NOM ? ordre : ordre.thenComparing(Recette.PAR_NOM);
+        if (triFini == null) triFini = new CompletableFuture<>();
+        CompletableFuture<Void> fini = triFini;
+        if (termine) {
+            lancerTri();
+        } else {
+            toutCharger(); // lancerTri() a la derniere page
+        }
+        return fini;
+    }
+
+    /**
+     * Ajoute à la liste une recette qu'on vient de créer, sans attendre sa page,
+     * à sa place dans l'ordre de la liste ({@link Recette#PAR_NOM} tant qu'elle n'est pas retriée).
+     * Si sa page n'est pas encore chargée, elle y sera ignorée pour éviter un doublon.
+     *
+     * @param recette la recette créée
+     */
+    public void ajouterLocale(Recette recette) {
+        surPage.accept(List.of(recette));
+        placer(recette);
+    }
+
+    /**
+     * Remplace une recette de la liste par sa nouvelle version (modifiée ici ou sur un autre poste),
+     * en la déplaçant si son nom a changé, ou l'ajoute si elle n'y est pas encore.
+     *
+     * @param recette la recette enregistrée
+     */
+    public void mettre(Recette recette) {
+        for (int i = 0; i < cible.size(); i++) {
+            if (cible.get(i).getIdRecette() != recette.getIdRecette()) continue;
+            if (aSaPlace(i, recette)) {
+                cible.set(i, recette);
+            } else {
+                retirerA(i);
+                placer(recette); // deja indexee par le moteur de recherche
+            }
+            return;
+        }
+        ajouterLocale(recette);
+    }
+
+    /**
+     * Retire une recette de la liste.
+     *
+     * @param idRecette l'identifiant de la recette
+     */
+    public void retirer(int idRecette) {
+        for (int i = cible.size() - 1; i >= 0; i--) {
+            if (cible.get(i).getIdRecette() == idRecette) retirerA(i);
+        }
+    }
+
+    /**
+     * Indique si toutes les recettes sont chargées.
+     * @return true si la dernière page a été reçue
+     */
+    public boolean isTermine() {
+        return termine;
+    }
+
+    private CompletableFuture<List<Recette>> charger(Recette apres) {
+        return dao.getPageParNom(apres, taillePage);
+    }
+
+    // la page prechargee sera livree sur le thread FX
+    private void attendre() {
+        long gen = generation;
+        prochaine.whenComplete((page, erreur) -> {
+            if (erreur == null) {
+                recue(gen, page);
+            } else if (gen == generation) {
+                echec(erreur);
+            }
+        });
+    }
+
+    // une page ou le curseur a echoue : rien n'est marque termine, on repart de la derniere recette recue
+    private void echec(Throwable erreur) {
+        System.out.println("Erreur chargement page : " + erreur.getMessage());
+        boolean toutDemande = flux;
+        occupe = false;
+        flux = false;
+        prochaine = charger(derniere); // on reessaiera au prochain defilement
+        if (toutDemande) {
+            // un tri ou une recherche attend la fin : on relance le flux un peu plus tard
+            long gen = generation;
+            PauseTransition pause = new PauseTransition(DELAI_REPRISE);
+            pause.setOnFinished(e -> {
+                if (gen == generation) toutCharger();
+            });
+            pause.play();
+        }
+    }
+
+    // une page prechargee est arrivee (thread FX)
+    private void recue(long gen, List<Recette> page) {
+        if (gen != generation) return; // rechargement entre temps
+        occupe = false;
+        ajouter(page);
+        if (page.size() < taillePage) {
+            finir();
+            return;
+        }
+
+        if (flux) {
+            streamer();
+        } else {
+            prochaine = charger(derniere); // on precharge la suivante tout de suite
+        }
+    }
+
+    private void ajouter(List<Recette> page) {
+        if (page.isEmpty()) return;
+        verifierOrdre(page);
+        derniere = page.get(page.size() - 1);
+
+        List<Recette> nouvelles = page;
+        if (!ajoutsLocaux.isEmpty()) {
+            nouvelles = new ArrayList<>(page.size());
+            for (Recette r : page) {
+                if (!ajoutsLocaux.remove(r.getIdRecette())) nouvelles.add(r);
+            }
+        }
+        surPage.accept(nouvelles);
+        if (enQueue == 0) {
+            cible.addAll(nouvelles);
+            return;
+        }
+
+        // des recettes creees ici sont deja en fin de liste, apres l'ancienne derniere : on les fusionne
+        int n = cible.size();
+        List<Recette> queue = new ArrayList<>(cible.subList(n - enQueue, n));
+        List<Recette> fusion = new ArrayList<>(nouvelles.size() + queue.size());
+        int i = 0;
+        int j = 0;
+        while (i < nouvelles.size() || j < queue.size()) {
+            if (j == queue.size() || (i < nouvelles.size() && Recette.PAR_NOM.compare(nouvelles.get(i), queue.get(j)) < 0)) {
+                fusion.add(nouvelles.get(i++));
+            } else {
+                fusion.add(queue.get(j++));
+            }
+        }
+        enQueue = 0;
+        for (Recette r : queue) {
+            if (Recette.PAR_NOM.compare(r, derniere) > 0) enQueue++; // toujours apres la page
+        }
+        cible.remove(n - queue.size(), n);
+        cible.addAll(fusion);
+    }
+
+    // la base doit trier comme PAR_NOM (collation francais), sinon les recettes rangees sur place
+    // et les fusions avec les pages sont decalees : on le signale une fois
+    private void verifierOrdre(List<Recette> page) {
+        if (ordreDifferent) return;
+        Recette avant = derniere;
+        for (Recette r : page) {
+            if (avant != null && Recette.PAR_NOM.compare(avant, r) > 0) {
+                ordreDifferent = true;
+                System.out.println("La base ne trie pas les noms comme l'appli (\"" + avant.getNomRecette()
+                        + "\" avant \"" + r.getNomRecette() + "\"), collation francais de repli ?");
+                return;
+            }
+            avant = r;
+        }
+    }
+
+    // insere une recette a sa place dans l'ordre de la liste
+    private void placer(Recette recette) {
+        int i = Collections.binarySearch(cible, recette, ordre);
+        cible.add(i < 0 ? -i - 1 : i, recette);
+        if (termine) return;
+        ajoutsLocaux.add(recette.getIdRecette());
+        if (derniere == null || Recette.PAR_NOM.compare(recette, derniere) > 0) enQueue++; // pas encore de page ici
+    }
+
+    // true si la recette peut remplacer celle a l'indice i sans casser l'ordre
+    private boolean aSaPlace(int i, Recette recette) {
+        return (i == 0 || ordre.compare(cible.get(i - 1), recette) <= 0)
+                && (i == cible.size() - 1 || ordre.compare(recette, cible.get(i + 1)) <= 0);
+    }
+
+    private void retirerA(int i) {
+        if (i >= cible.size() - enQueue) enQueue--;
+        cible.remove(i);
+    }
+
+    // lit tout le reste avec un curseur serveur et publie par paquets
+    private void streamer() {
+        long gen = generation;
+        Recette depuis = derniere;
+        List<Recette> paquet = new ArrayList<>(taillePage); // rempli sur le thread de travail
+        dao.parcourirParNom(depuis, taillePage, r -> {
+            paquet.add(r);
+            if (paquet.size() == taillePage) {
+                publier(gen, new ArrayList<>(paquet));
+                paquet.clear();
+            }
+        }).whenComplete((v, erreur) -> {
+            // thread FX, apres les paquets deja publies ; en cas d'erreur on garde ce qui a ete lu
+            if (gen != generation) return;
+            ajouter(paquet);
+            if (erreur == null) {
+                finir();
+            } else {
+                echec(erreur);
+            }
+        });
+    }
+
+    private void publier(long gen, List<Recette> paquet) {
+        Platform.runLater(() -> {
+            if (gen == generation) ajouter(paquet);
+        });
+    }
+
+    // la derniere page est arrivee : le tri demande peut se faire
+    private void finir() {
+        termine = true;
+        if (triDemande != null) lancerTri();
+    }
+
+    // trie une copie en arriere-plan (tri parallele sur les cles gardees par les recettes) puis remplace
+    // la liste d'un coup ; un seul tri a la fois, le dernier demande gagne
+    private void lancerTri() {
+        if (triEnCours) return; // relance a la fin de celui en cours
+        Comparator<Recette> o = triDemande;
+        CompletableFuture<Void> fini = triFini;
+        triDemande = null;
+        triFini = null;
+        triEnCours = true;
+
+        long gen = generation;
+        long v = version;
+        Recette[] copie = cible.toArray(new Recette[0]);
+        CompletableFuture.supplyAsync(() -> {
+            Arrays.parallelSort(copie, o);
+            return copie;
+        }).thenAcceptAsync(tries -> {
+            triEnCours = false;
+            if (gen == generation) {
+                if (version == v) {
+                    cible.setAll(tries);
+                } else {
+                    FXCollections.sort(cible, o); // la liste a change pendant le tri, presque triee
+                }
+                ordre = o;
+            }
+            fini.complete(null);
+            if (triDemande != null && termine) lancerTri(); // redemande pendant le tri
+        }, Platform::runLater);
+    }
+}
@@ -0,0 +1,430 @@
+package com.mycompany.projetrecette;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool de connexions JDBC borné.
+ * Garde entre {@code min} et {@code max} connexions physiques ouvertes, les valide avant
+ * de les prêter, et signale les connexions empruntées trop longtemps (fuites).
+ * Les connexions rendues par {@link #getConnection()} retournent au pool quand on les ferme,
+ * il faut donc toujours les utiliser dans un try-with-resources.
+ * <p>
+ * Les instructions préparées sont gardées par le driver lui-même, par connexion et par texte SQL
+ * ({@code preparedStatementCacheQueries}) : le pool ne fait que compter celles déjà vues sur la
+ * connexion. Les instructions oubliées sont fermées quand la connexion est rendue.
+ * <p>
+ * L'état du pool est publié en JMX ({@link PoolConnexionsMXBean}) et la durée de chaque
+ * emprunt est mesurée ({@code Pool.emprunt}, les emprunts refusés comptent comme des erreurs).
+ *
+ * @author bapti
+ * @version 1.0
+ */
+public class ConnectionPool implements PoolConnexionsMXBean {
+
+    private static final long VALIDATION_APRES_MS = 1000; // on revalide une connexion inactive depuis plus d'1s
+    private static final int VALIDATION_TIMEOUT_S = 2;
+    private static final int CACHE_DRIVER_DEFAUT = 256; // preparedStatementCacheQueries par defaut du driver
+
+    private final String url;
+    private final Properties proprietes;
+    private final int min;
+    private final int max;
+    private final long timeoutMs;
+    private final long fuiteMs;
+    private final int tailleCache; // instructions gardees par le driver sur chaque connexion
+
+    private final Semaphore permis; // limite le nb de connexions pretees en meme temps
+    private final LinkedBlockingDeque<ConnexionPhysique> libres = new LinkedBlockingDeque<>();
+    private final Map<Emprunt, Boolean> empruntees = new ConcurrentHashMap<>();
+    private final AtomicInteger total = new AtomicInteger(); // connexions physiques ouvertes
+    private final AtomicLong instructionsReutilisees = new AtomicLong(); // deja dans le cache du driver
+    private final AtomicLong instructionsPreparees = new AtomicLong(); // pas encore vues sur la connexion
+    private final AtomicLong ouvertures = new AtomicLong();
+    private final AtomicLong invalides = new AtomicLong(); // jetees parce qu'elles ne repondaient plus
+    private final Mesure emprunts = Metriques.mesure("Pool.emprunt"); // attente + validation
+    private final ScheduledExecutorService surveillance;
+    private volatile boolean ferme;
+
+    /**
+     * Crée un pool de connexions.
+     *
+     * @param url l'URL JDBC de la base
+     * @param proprietes les propriétés de connexion (user, password, options du driver)
+     * @param min le nombre de connexions gardées ouvertes en permanence
+     * @param max le nombre maximum de connexions ouvertes
+     * @param timeoutMs le temps d'attente maximum pour obtenir une connexion
+     * @param fuiteMs la durée d'emprunt au-delà de laquelle une fuite est signalée (0 pour désactiver)
+     */
+    public ConnectionPool(String url, Properties proprietes, int min, int max, long timeoutMs, long fuiteMs) {
+        if (max < 1 || min < 0 || min > max) {
+            throw new IllegalArgumentException("Taille de pool invalide : min=" + min + ", max=" + max);
+        }
+        this.url = url;
+        this.proprietes = proprietes;
+        this.min = min;
+        this.max = max;
+        this.timeoutMs = timeoutMs;
+        this.fuiteMs = fuiteMs;
+        this.tailleCache = Integer.parseInt(proprietes.getProperty("preparedStatementCacheQueries",
+                String.valueOf(CACHE_DRIVER_DEFAUT)));
+        this.permis = new Semaphore(max, true); // fair pr eviter la famine
+
+        surveillance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pool-surveillance");
+            t.setDaemon(true); // bloque pas la fermeture de l'appli
+            return t;
+        });
+        if (fuiteMs > 0) {
+            long periode = Math.max(fuiteMs / 2, 1000);
+            surveillance.scheduleAtFixedRate(this::detecterFuites, periode, periode, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Ouvre les connexions minimales du pool.
+     * La première est ouverte tout de suite pour vérifier que la base répond,
+     * les suivantes en arrière-plan.
+     *
+     * @throws SQLException si la première connexion ne peut pas être ouverte
+     */
+    public void prechauffer() throws SQLException {
+        if (min == 0) return;
+        ConnexionPhysique premiere = ouvrir(min);
+        if (premiere != null) libres.offerLast(premiere); // sinon deja ouvertes par des emprunts
+
+        for (int i = 1; i < min; i++) {
+            surveillance.execute(() -> {
+                try {
+                    ConnexionPhysique c = ouvrir(min); // null si les emprunts ont deja atteint min
+                    if (c != null) libres.offerLast(c);
+                } catch (SQLException e) {
+                    System.out.println("Erreur de préchauffage du pool : " + e.getMessage());
+                }
+            });
+        }
+    }
+
+    /**
+     * Emprunte une connexion au pool.
+     * Attend au plus le timeout configuré si toutes les connexions sont déjà prêtées.
+     *
+     * @return une connexion, à fermer pour la rendre au pool
+     * @throws SQLException si aucune connexion n'est disponible à temps ou si la base est injoignable
+     */
+    public Connection getConnection() throws SQLException {
+        if (ferme) throw new SQLException("Le pool de connexions est fermé");
+
+        long debut = emprunts.debut();
+        try {
+            return emprunter();
+        } catch (SQLException | RuntimeException e) {
+            emprunts.erreur();
+            throw e;
+        } finally {
+            emprunts.fin(debut);
+        }
+    }
+
+    private Connection emprunter() throws SQLException {
+        try {
+            if (!permis.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLTimeoutException("Aucune connexion disponible après " + timeoutMs + " ms ("
+                        + max + " connexions déjà empruntées)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Attente de connexion interrompue", e);
+        }
+
+        try {
+            ConnexionPhysique physique = prendreValide();
+            Emprunt emprunt = new Emprunt(physique);
+            empruntees.put(emprunt, Boolean.TRUE);
+            emprunt.proxy = (Connection) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(),
+                    new Class<?>[] { Connection.class },
+                    emprunt);
+            return emprunt.proxy;
+        } catch (SQLException | RuntimeException e) {
+            permis.release(); // on rend le permis si on a pas reussi a ouvrir
+            throw e;
+        }
+    }
+
+    /**
+     * Ferme le pool et toutes les connexions inactives.
+     * Les connexions encore empruntées sont fermées quand elles sont rendues.
+     */
+    public void fermer() {
+        ferme = true;
+        surveillance.shutdownNow();
+        ConnexionPhysique c;
+        while ((c = libres.pollFirst()) != null) {
+            detruire(c);
+        }
+    }
+
+    @Override
+    public int getMax() { return max; }
+
+    @Override
+    public int getTotal() { return total.get(); }
+
+    @Override
+    public int getActives() { return empruntees.size(); }
+
+    @Override
+    public int getLibres() { return libres.size(); }
+
+    @Override
+    public int getDisponibles() { return permis.availablePermits(); }
+
+    @Override
+    public int getAttentes() { return permis.getQueueLength(); }
+
+    @Override
+    public long getOuvertures() { return ouvertures.get(); }
+
+    @Override
+    public long getInvalides() { return invalides.get(); }
+
+    @Override
+    public long getInstructionsReutilisees() { return instructionsReutilisees.get(); }
+
+    @Override
+    public long getInstructionsPreparees() { return instructionsPreparees.get(); }
+
+    // prend une connexion libre (la plus recente d'abord) et verifie qu'elle marche encore,
+    // ou en ouvre une nouvelle s'il reste de la place
+    private ConnexionPhysique prendreValide() throws SQLException {
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (true) {
+            ConnexionPhysique c = libres.pollFirst();
+            if (c == null) c = ouvrir(max);
+            if (c == null) {
+                // les max places sont prises par des connexions en route vers le pool (rendue, prechauffee)
+                c = attendreLibre(limite);
+            }
+            if (System.currentTimeMillis() - c.derniereUtilisation < VALIDATION_APRES_MS) return c;
+            if (estValide(c)) return c;
+            invalides.incrementAndGet();
+            detruire(c); // connexion morte (timeout serveur, reseau...) on la jette
+        }
+    }
+
+    private ConnexionPhysique attendreLibre(long limite) throws SQLException {
+        try {
+            ConnexionPhysique c = libres.pollFirst(Math.max(0, limite - System.nanoTime()), TimeUnit.NANOSECONDS);
+            if (c == null) throw new SQLTimeoutException("Aucune connexion libre après " + timeoutMs + " ms");
+            return c;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Attente de connexion interrompue", e);
+        }
+    }
+
+    private boolean estValide(ConnexionPhysique c) {
+        try {
+            return c.connexion.isValid(VALIDATION_TIMEOUT_S);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    // reserve une place (total < limite) avant d'ouvrir, sinon deux threads peuvent depasser max ensemble ;
+    // null s'il n'y a plus de place
+    private ConnexionPhysique ouvrir(int limite) throws SQLException {
+        int t;
+        do {
+            t = total.get();
+            if (t >= limite) return null;
+        } while (!total.compareAndSet(t, t + 1));
+
+        try {
+            Connection connexion = DriverManager.getConnection(url, proprietes);
+            ouvertures.incrementAndGet();
+            return new ConnexionPhysique(connexion, tailleCache);
+        } catch (SQLException | RuntimeException e) {
+            total.decrementAndGet(); // on rend la place
+            throw e;
+        }
+    }
+
+    private void detruire(ConnexionPhysique c) {
+        total.decrementAndGet();
+        try {
+            c.connexion.close();
+        } catch (SQLException e) {
+            // deja cassee, rien a faire
+        }
+    }
+
+    // remet la connexion dans un etat propre avant de la rendre au pool
+    private void rendre(Emprunt emprunt) {
+        empruntees.remove(emprunt);
+        ConnexionPhysique c = emprunt.physique;
+        emprunt.fermerOubliees();
+        try {
+            boolean reutilisable = !ferme && !c.connexion.isClosed();
+            if (reutilisable && !c.connexion.getAutoCommit()) {
+                c.connexion.rollback(); // annule une transaction pas terminee
+                c.connexion.setAutoCommit(true);
+            }
+            if (reutilisable && total.get() > max) {
+                reutilisable = false; // en trop (ne devrait pas arriver, les ouvertures reservent leur place)
+            }
+            if (reutilisable) {
+                c.connexion.clearWarnings();
+                c.derniereUtilisation = System.currentTimeMillis();
+                libres.offerFirst(c);
+            } else {
+                detruire(c);
+            }
+        } catch (SQLException e) {
+            detruire(c);
+        } finally {
+            permis.release();
+        }
+    }
+
+    private void detecterFuites() {
+        long maintenant = System.currentTimeMillis();
+        for (Emprunt e : empruntees.keySet()) {
+            if (!e.signale && maintenant - e.debut > fuiteMs) {
+                e.signale = true; // on previent une seule fois par emprunt
+                System.out.println("Fuite de connexion probable : empruntée depuis "
+                        + (maintenant - e.debut) + " ms par");
+                e.origine.printStackTrace(System.out);
+            }
+        }
+    }
+
+    /**
+     * Connexion physique gérée par le pool.
+     * Retient les textes SQL préparés dessus, en LRU et avec la même taille que le cache du driver
+     * ({@code preparedStatementCacheQueries}) : un texte encore retenu est servi par ce cache,
+     * c'est ce que comptent {@link #getInstructionsReutilisees()} et {@link #getInstructionsPreparees()}.
+     * Un seul emprunteur à la fois, pas besoin de synchroniser.
+     */
+    private static final class ConnexionPhysique {
+        final Connection connexion;
+        volatile long derniereUtilisation = System.currentTimeMillis();
+        final Map<String, Boolean> vues; // sql deja prepare sur cette connexion, ordre lru
+
+        ConnexionPhysique(Connection connexion, int tailleCache) {
+            this.connexion = connexion;
+            this.vues = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> plusVieille) {
+                    return size() > tailleCache; // le driver l'a oubliee aussi
+                }
+            };
+        }
+    }
+
+    private static void fermerSansErreur(AutoCloseable ressource) {
+        try {
+            ressource.close();
+        } catch (Exception e) {
+            // on fait le menage, rien a faire de plus
+        }
+    }
+
+    /**
+     * Un emprunt de connexion : redirige les appels vers la connexion physique
+     * et intercepte close() pour la rendre au pool.
+     * Les instructions sont celles du driver, sans proxy : leur {@code getConnection()}
+     * (et celui de leurs ResultSet) rend la connexion physique. Il ne faut pas la fermer ;
+     * si ça arrive quand même, le pool la jette quand l'emprunt est rendu.
+     */
+    private final class Emprunt implements InvocationHandler {
+        final ConnexionPhysique physique;
+        final long debut = System.currentTimeMillis();
+        final Throwable origine; // ou la connexion a ete empruntee, pr les fuites
+        volatile boolean signale;
+        Connection proxy; // ce que voit l'emprunteur
+        private boolean rendu;
+        private final List<Statement> ouvertes = new ArrayList<>(); // fermees au retour si oubliees
+
+        Emprunt(ConnexionPhysique physique) {
+            this.physique = physique;
+            this.origine = fuiteMs > 0 ? new Throwable("emprunt de connexion") : null;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    synchronized (this) {
+                        if (rendu) return null; // close() deux fois c'est autorise
+                        rendu = true;
+                    }
+                    rendre(this);
+                    return null;
+                case "isClosed":
+                    synchronized (this) {
+                        if (rendu) return true;
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Connexion du pool (" + physique.connexion + ")";
+                case "prepareStatement":
+                    synchronized (this) {
+                        if (rendu) throw new SQLException("Connexion déjà rendue au pool");
+                    }
+                    // le driver garde les instructions par texte sql, on compte juste
+                    if (physique.vues.put((String) args[0], Boolean.TRUE) != null) {
+                        instructionsReutilisees.incrementAndGet();
+                    } else {
+                        instructionsPreparees.incrementAndGet();
+                    }
+                    break;
+                default:
+                    synchronized (this) {
+                        if (rendu) throw new SQLException("Connexion déjà rendue au pool");
+                    }
+            }
+
+            Object resultat;
+            try {
+                resultat = method.invoke(physique.connexion, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (resultat instanceof Statement) ouvertes.add((Statement) resultat);
+            return resultat;
+        }
+
+        // ce que l'emprunteur a oublie de fermer, appele quand la connexion revient au pool ;
+        // fermer une instruction ne vide pas le cache du driver
+        void fermerOubliees() {
+            for (Statement st : ouvertes) fermerSansErreur(st);
+            ouvertes.clear();
+        }
+    }
+}
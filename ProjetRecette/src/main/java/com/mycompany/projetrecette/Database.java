@@ -1,20 +1,43 @@
 package com.mycompany.projetrecette;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 
 /**
- * Classe singleton pour gérer la connexion à la base de données PostgreSQL.
- * Établit une connexion unique à la base de données lors de la première utilisation.
+ * Classe singleton pour gérer l'accès à la base de données PostgreSQL.
+ * Crée un pool de connexions lors de la première utilisation ; chaque DAO emprunte
+ * une connexion pour la durée d'un appel puis la rend en la fermant.
+ * La taille du pool se configure avec les propriétés système {@code recette.pool.min},
+ * {@code recette.pool.max}, {@code recette.pool.timeoutMs} et {@code recette.pool.fuiteMs}.
+ * {@code recette.prepareThreshold} règle après combien d'exécutions d'une même instruction
+ * le driver la prépare côté serveur (5 par défaut, comme le driver) ;
+ * {@code recette.cacheInstructions} et {@code recette.cacheInstructionsMo} bornent le cache
+ * d'instructions du driver sur chaque connexion (256 requêtes et 5 Mo par défaut).
+ * {@link #demarrerEcoute(BiConsumer, String...)} ouvre en plus une connexion dédiée,
+ * hors du pool, qui reçoit les notifications (LISTEN/NOTIFY) envoyées par les triggers.
+ * Les mesures des DAO et l'état du pool sont publiés en JMX dès la création (voir {@link Metriques}).
  * 
  * @author bapti
  * @version 1.0
  */
 public class Database {
 
-    private static Database instance; // l'instance unique (singleton)
-    private Connection connection; // la connection a la bdd
+    private final ConnectionPool pool; // le pool de connexions a la bdd
+    private final Properties props;
+
+    // l'ecoute des notifications, sur sa propre connexion
+    private Thread ecoute; // thread demon, il s'arrete avec l'appli
+    private volatile boolean ferme;
+    private final CountDownLatch ecouteActive = new CountDownLatch(1); // le premier LISTEN est fait
+    private final Mesure notifications = Metriques.mesure("Database.notification"); // traitement de chacune
 
     // les infos pr la connection
     private final String url = "jdbc:postgresql://postgresql-projetrecette.alwaysdata.net:5432/projetrecette_recettemanager";
@@ -23,20 +46,80 @@ public class Database {
 
     /**
      * Constructeur privé pour implémenter le pattern singleton.
-     * Établit la connexion à la base de données.
+     * Crée le pool et ouvre les premières connexions.
      */
     private Database() {
+        props = new Properties();
+        props.setProperty("user", user);
+        props.setProperty("password", password);
+        // le driver regroupe les INSERT d'un batch en un seul INSERT multi-lignes
+        props.setProperty("reWriteBatchedInserts", "true");
+        // le driver garde les instructions de chaque connexion par texte sql
+        // et les prepare cote serveur apres n executions
+        props.setProperty("prepareThreshold", System.getProperty("recette.prepareThreshold", "5"));
+        props.setProperty("preparedStatementCacheQueries", System.getProperty("recette.cacheInstructions", "256"));
+        props.setProperty("preparedStatementCacheSizeMiB", System.getProperty("recette.cacheInstructionsMo", "5"));
+
+        pool = new ConnectionPool(url, props,
+                Integer.getInteger("recette.pool.min", 2),
+                getTailleMaxPool(),
+                Long.getLong("recette.pool.timeoutMs", 5000),
+                Long.getLong("recette.pool.fuiteMs", 30000));
+        Metriques.demarrer(pool); // on est deja hors du thread de l'interface
         try {
             // Tentative de connexion à la base
-            connection = DriverManager.getConnection(url, user, password);
+            pool.prechauffer();
             System.out.println("Connexion BDD OK");
         } catch (SQLException e) {
             System.out.println("Erreur de connexion BDD");
             e.printStackTrace();
-           
+            // le pool reessaiera d'ouvrir une connexion au prochain emprunt
+        }
+    }
+
+    /**
+     * Vérifie qu'aucune migration du schéma n'est en attente, sans rien modifier.
+     * Prévient dans la console sinon : il faut alors relancer avec {@code --migrer}.
+     *
+     * @return true si le schéma est à jour
+     * @throws SQLException si la base est injoignable
+     */
+    public boolean verifierSchema() throws SQLException {
+        int enAttente;
+        try (Connection conn = pool.getConnection()) {
+            enAttente = Migrations.enAttente(conn);
+        }
+        if (enAttente > 0) {
+            System.out.println("Schéma de la base en retard de " + enAttente
+                    + " migration(s), relancer avec --migrer");
+        }
+        return enAttente == 0;
+    }
+
+    /**
+     * Applique les migrations du schéma qui ne l'ont pas encore été.
+     *
+     * @throws SQLException si la base est injoignable ou si une migration échoue
+     */
+    public void migrer() throws SQLException {
+        try (Connection conn = pool.getConnection()) {
+            Migrations.appliquer(conn, pool);
         }
     }
 
+    /**
+     * Retourne la taille maximale du pool ({@code recette.pool.max}), sans ouvrir la base.
+     *
+     * @return le nombre maximum de connexions
+     */
+    public static int getTailleMaxPool() {
+        return Integer.getInteger("recette.pool.max", 8);
+    }
+
+    // holder pr un singleton paresseux et thread-safe sans synchronized
+    private static class Holder {
+        private static final Database INSTANCE = new Database();
+    }
 
     /**
      * Obtient l'instance unique de la classe Database.
@@ -45,28 +128,150 @@ public class Database {
      * @return l'instance unique de Database
      */
     public static Database getInstance() {
-        if (instance == null) {
-            instance = new Database(); // cree une instance si existe pas
-        }
-        return instance;
+        return Holder.INSTANCE; // cree l'instance au premier appel
     }
 
     /**
-     * Retourne la connexion à la base de données.
+     * Emprunte une connexion au pool.
+     * La connexion doit être fermée (try-with-resources) pour être rendue au pool.
      * 
-     * @return la connexion JDBC
+     * @return une connexion JDBC empruntée
+     * @throws SQLException si aucune connexion n'est disponible à temps
      */
-    public Connection getConnection() {
-        return connection; // retourne la connection actuelle
+    public Connection getConnection() throws SQLException {
+        return pool.getConnection(); // emprunte une connection au pool
     }
     
     /**
-     * Vérifie si la connexion à la base de données est active.
+     * Vérifie si la base de données est joignable.
      * 
-     * @return true si la connexion est établie, false sinon
+     * @return true si au moins une connexion est ouverte, false sinon
      */
     public boolean isConnected() {
-        return connection != null; // verifie si c'est pas null
+        return pool.getTotal() > 0; // au moins une connection ouverte
+    }
+
+    /**
+     * Retourne le pool de connexions utilisé.
+     * 
+     * @return le pool de connexions
+     */
+    public ConnectionPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Démarre l'écoute des notifications PostgreSQL sur une connexion dédiée, dans un thread à part.
+     * La connexion est rouverte si elle tombe ; les notifications envoyées pendant la coupure
+     * sont perdues. Ne démarre pas une deuxième écoute si elle l'est déjà.
+     * Attend que les canaux soient vraiment écoutés avant de rendre la main : tout ce qui est
+     * commité ensuite arrive par une notification, on peut donc lire l'état de la base après.
+     *
+     * @param surNotification appelée avec le canal et le contenu de chaque notification,
+     *                        sur le thread d'écoute
+     * @param canaux les canaux à écouter
+     * @return true si l'écoute est active, false si elle n'a pas démarré à temps
+     *         ({@code recette.pool.timeoutMs}, elle continue d'essayer en arrière-plan)
+     */
+    public boolean demarrerEcoute(BiConsumer<String, String> surNotification, String... canaux) {
+        synchronized (this) {
+            if (ecoute == null && !ferme) {
+                ecoute = new Thread(() -> ecouter(surNotification, canaux), "bdd-notifications");
+                ecoute.setDaemon(true);
+                ecoute.start();
+            }
+        }
+        try {
+            return ecouteActive.await(Long.getLong("recette.pool.timeoutMs", 5000), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void ecouter(BiConsumer<String, String> surNotification, String[] canaux) {
+        // PGConnection et PGNotification par reflexion : le pilote est un module automatique,
+        // le requires dans module-info donnerait un avertissement a chaque compilation
+        Class<?> pgConnection;
+        Method getNotifications;
+        Method getName;
+        Method getParameter;
+        try {
+            pgConnection = Class.forName("org.postgresql.PGConnection");
+            getNotifications = pgConnection.getMethod("getNotifications", int.class);
+            Class<?> pgNotification = Class.forName("org.postgresql.PGNotification");
+            getName = pgNotification.getMethod("getName");
+            getParameter = pgNotification.getMethod("getParameter");
+        } catch (ReflectiveOperationException e) {
+            System.out.println("Pilote PostgreSQL sans LISTEN/NOTIFY, pas de mise à jour en direct : " + e);
+            ecouteActive.countDown(); // rien a attendre
+            return;
+        }
+
+        long attente = 1000; // avant de rouvrir la connexion, double a chaque echec
+        while (!ferme) {
+            try (Connection conn = DriverManager.getConnection(url, props)) {
+                try (Statement st = conn.createStatement()) {
+                    for (String canal : canaux) st.execute("LISTEN " + canal);
+                }
+                ecouteActive.countDown();
+                Object pg = conn.unwrap(pgConnection);
+                attente = 1000;
+
+                while (!ferme) {
+                    // bloque jusqu'a 10 s, la connexion est verifiee a chaque tour
+                    Object[] notifications = (Object[]) appeler(getNotifications, pg, 10_000);
+                    if (notifications == null) continue;
+                    for (Object n : notifications) {
+                        long debut = this.notifications.debut();
+                        try {
+                            surNotification.accept((String) appeler(getName, n), (String) appeler(getParameter, n));
+                        } catch (RuntimeException e) {
+                            this.notifications.erreur();
+                            e.printStackTrace(); // une notification mal traitee n'arrete pas l'ecoute
+                        } finally {
+                            this.notifications.fin(debut);
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (ferme) return;
+                System.out.println("Écoute des notifications interrompue : " + e.getMessage());
+                try {
+                    Thread.sleep(attente);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+                attente = Math.min(attente * 2, 30_000);
+            }
+        }
+    }
+
+    // appelle une methode du pilote, ses SQLException ressortent telles quelles
+    private static Object appeler(Method m, Object cible, Object... args) throws SQLException {
+        try {
+            return m.invoke(cible, args);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof SQLException) throw (SQLException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Ferme le pool et toutes ses connexions, et arrête l'écoute des notifications.
+     * Écrit les métriques de la session dans la console.
+     */
+    public void fermer() {
+        ferme = true; // l'ecoute s'arrete au plus tard 10 s apres, ou avec la jvm
+
+        Metriques.arreter();
+        System.out.print(Metriques.rapport());
+
+        System.out.println("Instructions SQL : " + pool.getInstructionsReutilisees() + " réutilisées, "
+                + pool.getInstructionsPreparees() + " préparées");
+        pool.fermer();
     }
 
 }
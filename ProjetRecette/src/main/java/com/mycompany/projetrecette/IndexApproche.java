@@ -0,0 +1,171 @@
+package com.mycompany.projetrecette;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Index pour la recherche qui tolère les fautes de frappe ("tomat", "courgete", "chocolat noire").
+ * Chaque document (un identifiant entier et un texte) est découpé en mots normalisés, rangés dans
+ * un {@link TrieMots}. Un document est trouvé si chaque mot de la requête est proche d'un de ses mots :
+ * au plus une faute pour 4 lettres, sans dépasser la distance donnée à la création
+ * (les mots de moins de 4 lettres doivent être exacts, sinon "riz" trouverait tout).
+ * Tenu à jour document par document, comme {@link IndexTrigrammes}.
+ * Lectures et écritures peuvent venir de threads différents.
+ *
+ * @author bapti
+ * @version 1.0
+ */
+public class IndexApproche {
+
+    private static final Pattern SEPARATEURS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final int distanceMax;
+    private final TrieMots trie = new TrieMots();
+    private final Map<String, Set<Integer>> documentsParMot = new HashMap<>();
+    private final Map<Integer, List<String>> motsParDocument = new HashMap<>();
+    private final ReentrantReadWriteLock verrou = new ReentrantReadWriteLock();
+
+    /**
+     * Crée un index vide.
+     *
+     * @param distanceMax le nombre maximum de fautes tolérées dans un mot
+     */
+    public IndexApproche(int distanceMax) {
+        this.distanceMax = distanceMax;
+    }
+
+    /**
+     * Crée un index avec la distance de la propriété {@code recette.recherche.distance} (2 par défaut).
+     */
+    public IndexApproche() {
+        this(Integer.getInteger("recette.recherche.distance", 2));
+    }
+
+    /**
+     * Ajoute ou remplace un document.
+     *
+     * @param id l'identifiant du document
+     * @param texte son texte (normalisé ici)
+     */
+    public void ajouter(int id, String texte) {
+        List<String> mots = mots(texte);
+        verrou.writeLock().lock();
+        try {
+            List<String> anciens = motsParDocument.put(id, mots);
+            if (mots.equals(anciens)) return; // rien n'a change
+            if (anciens != null) retirerMots(id, anciens);
+            for (String mot : mots) {
+                Set<Integer> docs = documentsParMot.computeIfAbsent(mot, k -> new HashSet<>());
+                if (docs.isEmpty()) trie.ajouter(mot); // nouveau, ou remis
+                docs.add(id);
+            }
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retire un document de l'index.
+     *
+     * @param id l'identifiant du document
+     */
+    public void retirer(int id) {
+        verrou.writeLock().lock();
+        try {
+            List<String> anciens = motsParDocument.remove(id);
+            if (anciens != null) retirerMots(id, anciens);
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Vide l'index.
+     */
+    public void vider() {
+        verrou.writeLock().lock();
+        try {
+            for (String mot : documentsParMot.keySet()) trie.retirer(mot);
+            documentsParMot.clear();
+            motsParDocument.clear();
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Cherche les documents dont chaque mot de la requête est proche d'un de leurs mots.
+     *
+     * @param requete le texte recherché (normalisé ici)
+     * @return les identifiants des documents trouvés, triés
+     */
+    public int[] rechercher(String requete) {
+        List<String> mots = mots(requete);
+        if (mots.isEmpty()) return new int[0];
+
+        verrou.readLock().lock();
+        try {
+            Set<Integer> resultat = null;
+            for (String mot : mots) {
+                Set<Integer> pourCeMot = new HashSet<>();
+                for (String proche : trie.rechercher(mot, distancePour(mot))) {
+                    pourCeMot.addAll(documentsParMot.get(proche));
+                }
+                if (resultat == null) resultat = pourCeMot;
+                else resultat.retainAll(pourCeMot);
+                if (resultat.isEmpty()) break; // tous les mots sont obligatoires
+            }
+
+            int[] ids = new int[resultat.size()];
+            int i = 0;
+            for (int id : resultat) ids[i++] = id;
+            Arrays.sort(ids);
+            return ids;
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retourne le nombre de documents indexés.
+     * @return le nombre de documents
+     */
+    public int taille() {
+        verrou.readLock().lock();
+        try {
+            return motsParDocument.size();
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    // une faute pr 4 lettres, sans depasser distanceMax
+    private int distancePour(String mot) {
+        return Math.min(distanceMax, mot.length() / 4);
+    }
+
+    // sous le verrou d'ecriture
+    private void retirerMots(int id, List<String> mots) {
+        for (String mot : mots) {
+            Set<Integer> docs = documentsParMot.get(mot);
+            if (docs == null || !docs.remove(id)) continue;
+            if (docs.isEmpty()) trie.retirer(mot); // plus aucun document avec ce mot
+        }
+    }
+
+    // les mots distincts d'un texte, normalises
+    private static List<String> mots(String texte) {
+        List<String> mots = new ArrayList<>();
+        for (String m : SEPARATEURS.split(Normalisation.normaliser(texte))) {
+            if (!m.isEmpty() && !mots.contains(m)) mots.add(m);
+        }
+        return mots;
+    }
+}
@@ -0,0 +1,196 @@
+package com.mycompany.projetrecette;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index inversé en mémoire : nom d'ingrédient normalisé vers les recettes qui l'utilisent.
+ * Chargé en une seule requête au démarrage puis tenu à jour à chaque enregistrement
+ * ou suppression de recette, pour que la recherche par ingrédient ne touche plus la base.
+ * Les noms distincts sont eux-mêmes dans un {@link IndexTrigrammes}, une recherche
+ * ne parcourt donc que les noms qui contiennent le texte ; si aucun ne le contient,
+ * on cherche les noms proches ({@link IndexApproche}, "chocolat noire" trouve "chocolat noir").
+ * Sert aussi à l'autocomplétion du nom d'ingrédient dans l'éditeur ({@link #completer(String, int)}) :
+ * un {@link TrieMots} de tous les noms connus, chacun pesé par le nombre de recettes qui l'utilisent.
+ *
+ * @author bapti
+ * @version 1.0
+ */
+public class IndexIngredients {
+
+    private final Map<String, Integer> idParNom = new HashMap<>(); // nom -> numero interne du nom
+    private final List<String> noms = new ArrayList<>(); // numero -> nom
+    private final List<String> affiches = new ArrayList<>(); // numero -> nom tel que saisi la premiere fois
+    private final List<Set<Integer>> recettesParNom = new ArrayList<>(); // numero -> ids des recettes
+    private final Map<Integer, List<String>> nomsParRecette = new HashMap<>(); // pr pouvoir retirer une recette
+    private final IndexTrigrammes trigrammes = new IndexTrigrammes(); // sur les noms distincts
+    private final IndexApproche approche = new IndexApproche(); // pareil, avec des fautes
+    private TrieMots completion = new TrieMots(); // tous les noms connus, poids = nb de recettes
+
+    /**
+     * Remplace tout le contenu de l'index.
+     *
+     * @param noms les noms d'ingrédients de chaque recette, par identifiant de recette
+     */
+    public synchronized void charger(Map<Integer, List<String>> noms) {
+        idParNom.clear();
+        this.noms.clear();
+        affiches.clear();
+        recettesParNom.clear();
+        nomsParRecette.clear();
+        trigrammes.vider();
+        approche.vider();
+        completion = new TrieMots();
+        for (Map.Entry<Integer, List<String>> e : noms.entrySet()) {
+            ajouter(e.getKey(), e.getValue());
+        }
+    }
+
+    /**
+     * Met à jour les ingrédients d'une recette après son enregistrement.
+     *
+     * @param idRecette l'identifiant de la recette
+     * @param noms les noms de ses ingrédients
+     */
+    public synchronized void majRecette(int idRecette, List<String> noms) {
+        retirer(idRecette);
+        ajouter(idRecette, noms);
+    }
+
+    /**
+     * Retire une recette supprimée de l'index.
+     *
+     * @param idRecette l'identifiant de la recette
+     */
+    public synchronized void retirerRecette(int idRecette) {
+        retirer(idRecette);
+    }
+
+    /**
+     * Cherche les recettes dont au moins un ingrédient contient le texte donné (sans tenir compte de la casse ni des accents).
+     *
+     * @param texte le texte recherché
+     * @return les identifiants des recettes trouvées, triés
+     */
+    public synchronized int[] rechercher(String texte) {
+        Set<Integer> resultat = new HashSet<>();
+        int[] nums = trigrammes.rechercher(texte);
+        if (nums.length == 0) nums = approche.rechercher(texte); // une faute de frappe ?
+        for (int num : nums) {
+            resultat.addAll(recettesParNom.get(num));
+        }
+
+        int[] ids = new int[resultat.size()];
+        int i = 0;
+        for (int id : resultat) ids[i++] = id;
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    /**
+     * Ajoute des noms d'ingrédients pour l'autocomplétion, même s'ils ne sont utilisés
+     * par aucune recette (par exemple tous ceux de la table {@code ingredients}).
+     *
+     * @param noms les noms d'ingrédients
+     */
+    public synchronized void ajouterNoms(Collection<String> noms) {
+        for (String nom : noms) numero(normaliser(nom), nom);
+    }
+
+    /**
+     * Propose les noms d'ingrédients qui commencent par le texte saisi (sans tenir compte
+     * de la casse ni des accents), les plus utilisés d'abord. Tout est en mémoire.
+     *
+     * @param debut le début du nom
+     * @param limite le nombre maximum de propositions
+     * @return les noms proposés, tels que saisis la première fois
+     */
+    public synchronized List<String> completer(String debut, int limite) {
+        List<String> proposes = new ArrayList<>();
+        for (String cle : completion.completer(normaliser(debut), limite)) {
+            proposes.add(affiches.get(idParNom.get(cle)));
+        }
+        return proposes;
+    }
+
+    /**
+     * Cherche un nom d'ingrédient connu et proche du nom donné.
+     *
+     * @param nom le nom saisi
+     * @return le nom existant (tel que saisi la première fois) identique aux accents et à la casse près,
+     *         sinon le plus proche en nombre de fautes, ou null si aucun n'est proche
+     */
+    public synchronized String nomProche(String nom) {
+        String cle = normaliser(nom);
+        Integer exact = idParNom.get(cle);
+        if (exact != null) return affiches.get(exact);
+
+        String meilleur = null;
+        int meilleureDistance = Integer.MAX_VALUE;
+        for (int num : approche.rechercher(cle)) {
+            int d = TrieMots.distance(cle, noms.get(num), meilleureDistance);
+            if (d < meilleureDistance) {
+                meilleureDistance = d;
+                meilleur = affiches.get(num);
+            }
+        }
+        return meilleur;
+    }
+
+    private void ajouter(int idRecette, List<String> noms) {
+        List<String> cles = new ArrayList<>(noms.size());
+        for (String nom : noms) {
+            String cle = normaliser(nom);
+            cles.add(cle);
+            int num = numero(cle, nom);
+            Set<Integer> ids = recettesParNom.get(num);
+            if (ids.isEmpty()) { // premiere recette avec cet ingredient, on peut le chercher
+                trigrammes.ajouter(num, cle);
+                approche.ajouter(num, cle);
+            }
+            ids.add(idRecette);
+            completion.setPoids(cle, ids.size());
+        }
+        nomsParRecette.put(idRecette, cles);
+    }
+
+    private void retirer(int idRecette) {
+        List<String> anciens = nomsParRecette.remove(idRecette);
+        if (anciens == null) return;
+        for (String cle : anciens) {
+            Integer num = idParNom.get(cle);
+            if (num == null) continue;
+            Set<Integer> ids = recettesParNom.get(num);
+            ids.remove(idRecette);
+            completion.setPoids(cle, ids.size()); // toujours propose, meme sans recette
+            if (ids.isEmpty()) { // plus aucune recette avec cet ingredient
+                trigrammes.retirer(num);
+                approche.retirer(num);
+            }
+        }
+    }
+
+    // numero interne d'un nom, on le cree s'il est nouveau
+    private int numero(String cle, String affiche) {
+        Integer num = idParNom.get(cle);
+        if (num == null) {
+            num = noms.size();
+            idParNom.put(cle, num);
+            noms.add(cle);
+            affiches.add(affiche);
+            recettesParNom.add(new HashSet<>());
+            completion.setPoids(cle, 0);
+        }
+        return num;
+    }
+
+    private static String normaliser(String s) {
+        return Normalisation.normaliser(s);
+    }
+}
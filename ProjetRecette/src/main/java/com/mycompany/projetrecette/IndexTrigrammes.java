@@ -0,0 +1,201 @@
+package com.mycompany.projetrecette;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index de trigrammes pour la recherche de sous-chaînes.
+ * Chaque document (un identifiant entier et un texte) est découpé en trigrammes ;
+ * pour chaque trigramme on garde la liste triée des documents qui le contiennent
+ * dans un tableau d'int. Une recherche intersecte les listes des trigrammes de la requête
+ * puis vérifie les candidats, son coût dépend donc du nombre de résultats
+ * et pas du nombre total de documents.
+ * Les requêtes de moins de 3 caractères font un simple parcours.
+ * Lectures et écritures peuvent venir de threads différents.
+ *
+ * @author bapti
+ * @version 1.0
+ */
+public class IndexTrigrammes {
+
+    private final Map<Long, Postings> postings = new HashMap<>(); // trigramme -> documents
+    private final Map<Integer, String> textes = new HashMap<>(); // document -> texte normalise
+    private final ReentrantReadWriteLock verrou = new ReentrantReadWriteLock();
+
+    /**
+     * Ajoute ou remplace un document.
+     *
+     * @param id l'identifiant du document
+     * @param texte son texte (normalisé ici)
+     */
+    public void ajouter(int id, String texte) {
+        String t = Normalisation.normaliser(texte);
+        verrou.writeLock().lock();
+        try {
+            String ancien = textes.put(id, t);
+            if (ancien != null) {
+                if (ancien.equals(t)) return; // rien n'a change
+                for (long tri : trigrammes(ancien)) retirerPosting(tri, id);
+            }
+            for (long tri : trigrammes(t)) {
+                postings.computeIfAbsent(tri, k -> new Postings()).ajouter(id);
+            }
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retire un document de l'index.
+     *
+     * @param id l'identifiant du document
+     */
+    public void retirer(int id) {
+        verrou.writeLock().lock();
+        try {
+            String ancien = textes.remove(id);
+            if (ancien == null) return;
+            for (long tri : trigrammes(ancien)) retirerPosting(tri, id);
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Vide l'index.
+     */
+    public void vider() {
+        verrou.writeLock().lock();
+        try {
+            postings.clear();
+            textes.clear();
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Cherche les documents dont le texte contient la requête.
+     *
+     * @param requete le texte recherché (normalisé ici)
+     * @return les identifiants des documents trouvés, triés
+     */
+    public int[] rechercher(String requete) {
+        String q = Normalisation.normaliser(requete);
+        verrou.readLock().lock();
+        try {
+            if (q.length() < 3) return parcourir(q); // pas assez pr un trigramme
+
+            Set<Long> tris = trigrammes(q);
+            Postings[] listes = new Postings[tris.size()];
+            int n = 0;
+            for (long tri : tris) {
+                Postings p = postings.get(tri);
+                if (p == null) return new int[0]; // un trigramme absent : aucun resultat possible
+                listes[n++] = p;
+            }
+            // on commence par la liste la plus courte, les intersections restent petites
+            Arrays.sort(listes, (a, b) -> Integer.compare(a.taille, b.taille));
+
+            int[] candidats = Arrays.copyOf(listes[0].ids, listes[0].taille);
+            int nb = candidats.length;
+            for (int i = 1; i < listes.length && nb > 0; i++) {
+                nb = intersecter(candidats, nb, listes[i]);
+            }
+
+            // les trigrammes ne garantissent pas l'ordre, on verifie le vrai texte
+            int trouves = 0;
+            for (int i = 0; i < nb; i++) {
+                if (textes.get(candidats[i]).contains(q)) candidats[trouves++] = candidats[i];
+            }
+            return Arrays.copyOf(candidats, trouves);
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retourne le nombre de documents indexés.
+     * @return le nombre de documents
+     */
+    public int taille() {
+        verrou.readLock().lock();
+        try {
+            return textes.size();
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    private int[] parcourir(String q) {
+        int[] ids = new int[textes.size()];
+        int n = 0;
+        for (Map.Entry<Integer, String> e : textes.entrySet()) {
+            if (e.getValue().contains(q)) ids[n++] = e.getKey();
+        }
+        int[] res = Arrays.copyOf(ids, n);
+        Arrays.sort(res);
+        return res;
+    }
+
+    // garde dans candidats[0..nb) ceux presents dans p, retourne le nouveau nb
+    private static int intersecter(int[] candidats, int nb, Postings p) {
+        int garde = 0;
+        int debut = 0;
+        for (int i = 0; i < nb; i++) {
+            int pos = Arrays.binarySearch(p.ids, debut, p.taille, candidats[i]);
+            if (pos >= 0) {
+                candidats[garde++] = candidats[i];
+                debut = pos + 1;
+            } else {
+                debut = -pos - 1; // les candidats sont tries, on repart d'ici
+            }
+        }
+        return garde;
+    }
+
+    private void retirerPosting(long tri, int id) {
+        Postings p = postings.get(tri);
+        if (p == null) return;
+        p.retirer(id);
+        if (p.taille == 0) postings.remove(tri);
+    }
+
+    // les trigrammes distincts d'un texte, 3 chars de 16 bits dans un long
+    private static Set<Long> trigrammes(String t) {
+        Set<Long> tris = new HashSet<>();
+        for (int i = 0; i + 3 <= t.length(); i++) {
+            tris.add(((long) t.charAt(i) << 32) | ((long) t.charAt(i + 1) << 16) | t.charAt(i + 2));
+        }
+        return tris;
+    }
+
+    /**
+     * Liste triée d'identifiants de documents, dans un tableau d'int qui grandit au besoin.
+     */
+    private static final class Postings {
+        int[] ids = new int[4];
+        int taille;
+
+        void ajouter(int id) {
+            int pos = Arrays.binarySearch(ids, 0, taille, id);
+            if (pos >= 0) return; // deja la
+            pos = -pos - 1;
+            if (taille == ids.length) ids = Arrays.copyOf(ids, taille * 2);
+            System.arraycopy(ids, pos, ids, pos + 1, taille - pos); // les ids arrivent surtout en fin de tableau
+            ids[pos] = id;
+            taille++;
+        }
+
+        void retirer(int id) {
+            int pos = Arrays.binarySearch(ids, 0, taille, id);
+            if (pos < 0) return;
+            System.arraycopy(ids, pos + 1, ids, pos, taille - pos - 1);
+            taille--;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.mycompany.projetrecette;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache concurrent et borné des identifiants d'ingrédients par nom.
+ * Les ingrédients ne sont jamais renommés ni supprimés par l'application,
+ * donc une entrée reste valable tant qu'elle est dans le cache.
+ * Quand la taille maximale est dépassée, le nom lu le moins récemment est évincé (LRU).
+ * Le cache est découpé en sections indépendantes (un verrou chacune) selon le nom,
+ * comme {@link IngredientsRecetteCache}.
+ *
+ * @author bapti
+ * @version 1.0
+ */
+public class IngredientCache {
+
+    private static final int SECTIONS = 8;
+
+    private final Section[] sections = new Section[SECTIONS];
+
+    /**
+     * Crée un cache vide.
+     *
+     * @param tailleMax le nombre maximum de noms gardés en mémoire
+     */
+    public IngredientCache(int tailleMax) {
+        int parSection = Math.max(1, (tailleMax + SECTIONS - 1) / SECTIONS);
+        for (int i = 0; i < SECTIONS; i++) sections[i] = new Section(parSection);
+    }
+
+    /**
+     * Retourne l'identifiant connu pour un nom d'ingrédient.
+     *
+     * @param nom le nom de l'ingrédient
+     * @return l'identifiant, ou -1 si le nom n'est pas dans le cache
+     */
+    public int get(String nom) {
+        Section s = section(nom);
+        Integer id;
+        synchronized (s) {
+            id = s.get(nom); // remonte en tete
+        }
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Mémorise l'identifiant d'un ingrédient.
+     *
+     * @param nom le nom de l'ingrédient
+     * @param id son identifiant en base
+     */
+    public void put(String nom, int id) {
+        Section s = section(nom);
+        synchronized (s) {
+            s.put(nom, id); // evince le plus ancien si la section est pleine
+        }
+    }
+
+    /**
+     * Mémorise plusieurs identifiants d'un coup.
+     *
+     * @param nouveaux les identifiants par nom
+     */
+    public void putAll(Map<String, Integer> nouveaux) {
+        for (Map.Entry<String, Integer> e : nouveaux.entrySet()) put(e.getKey(), e.getValue());
+    }
+
+    /**
+     * Retourne le nombre de noms en cache.
+     * @return la taille du cache
+     */
+    public int size() {
+        int n = 0;
+        for (Section s : sections) {
+            synchronized (s) {
+                n += s.size();
+            }
+        }
+        return n;
+    }
+
+    private Section section(String nom) {
+        int h = nom.hashCode() * 0x9E3779B9;
+        return sections[(h >>> 29) & (SECTIONS - 1)];
+    }
+
+    // une section : du nom lu le moins recemment au plus recent, protegee par son propre verrou
+    private static final class Section extends LinkedHashMap<String, Integer> {
+        private final int tailleMax;
+
+        Section(int tailleMax) {
+            super(16, 0.75f, true);
+            this.tailleMax = tailleMax;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Integer> plusAncienne) {
+            return size() > tailleMax;
+        }
+    }
+}
@@ -5,24 +5,49 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Data Access Object pour la gestion des ingrédients en base de données.
  * Fournit les méthodes pour accéder et gérer les ingrédients.
+ * Les identifiants déjà vus sont gardés dans un cache partagé par nom, ce qui évite
+ * la plupart des requêtes de résolution lors des enregistrements.
+ * Les ingrédients de chaque recette sont aussi gardés dans un {@link IngredientsRecetteCache},
+ * invalidé à chaque écriture des liens ou suppression de la recette.
  * 
  * @author bapti
  * @version 1.0
  */
 public class IngredientDAO {
 
-    private Connection conn; // la connection unique a la bdd
+    // cache nom -> id partage par tous les DAO (les ingredients ne changent jamais d'id)
+    private static final IngredientCache CACHE = new IngredientCache(10_000);
+
+    // ingredients de chaque recette, pr ne pas refaire la jointure a chaque ouverture
+    private static final IngredientsRecetteCache LISTES =
+            new IngredientsRecetteCache(Integer.getInteger("recette.cache.recettes", 2_000));
+
+    // une mesure par methode, publiees en JMX (voir Metriques) ; les lectures servies par un cache n'y sont pas
+    private static final Mesure GET_ID_BY_NAME = Metriques.mesure("IngredientDAO.getIdByName");
+    private static final Mesure INSERT_INGREDIENT = Metriques.mesure("IngredientDAO.insertIngredient");
+    private static final Mesure GET_POUR_RECETTE = Metriques.mesure("IngredientDAO.getPourRecette");
+    private static final Mesure GET_POUR_RECETTES = Metriques.mesure("IngredientDAO.getPourRecettes");
+    private static final Mesure GET_NOMS = Metriques.mesure("IngredientDAO.getNoms");
+    private static final Mesure GET_NOMS_PAR_RECETTE = Metriques.mesure("IngredientDAO.getNomsParRecette");
+    private static final Mesure RESOUDRE_IDS = Metriques.mesure("IngredientDAO.resoudreIds");
+
+    private final Database db; // la bdd, on y emprunte une connection a chaque appel
 
     /**
-     * Constructeur qui initialise la connexion à la base de données.
+     * Constructeur qui récupère l'accès à la base de données.
      */
     public IngredientDAO() {
-        conn = Database.getInstance().getConnection(); // recup la connection
+        db = Database.getInstance(); // le singleton qui gere le pool
     }
 
     /**
@@ -32,54 +57,61 @@ public class IngredientDAO {
      * @return l'identifiant de l'ingrédient, ou -1 si non trouvé
      */
     public int getIdByName(String nom) {
-        try {
-            String sql = "SELECT id FROM ingredients WHERE nom = ?";
-            PreparedStatement pst = conn.prepareStatement(sql);
-            pst.setString(1, nom);
-            ResultSet rs = pst.executeQuery();
+        int enCache = CACHE.get(nom);
+        if (enCache != -1) return enCache; // deja connu, pas besoin de la bdd
 
-            if (rs.next()) {
-                int id = rs.getInt("id");
-                rs.close();
-                pst.close();
-                return id;
+        String sql = "SELECT id FROM ingredients WHERE nom = ?";
+        long debut = GET_ID_BY_NAME.debut();
+        // tout est ferme a la fin du try, meme en cas d'exception (la requete reste en cache dans le pool)
+        try (Connection conn = db.getConnection(); // emprunte une connection, rendue a la fin du try
+             PreparedStatement pst = conn.prepareStatement(sql)) {
+            pst.setString(1, nom);
+            try (ResultSet rs = pst.executeQuery()) {
+                if (rs.next()) {
+                    int id = rs.getInt("id");
+                    CACHE.put(nom, id);
+                    return id;
+                }
             }
 
-            rs.close();
-            pst.close();
-
         } catch (SQLException e) {
+            GET_ID_BY_NAME.erreur();
             e.printStackTrace();
+        } finally {
+            GET_ID_BY_NAME.fin(debut);
         }
         return -1;
     }
 
     /**
      * Insère un nouvel ingrédient dans la base de données.
+     * Si un ingrédient du même nom existe déjà, son identifiant est retourné.
      * 
      * @param nom le nom de l'ingrédient à insérer
      * @return l'identifiant de l'ingrédient inséré, ou -1 en cas d'erreur
      */
     public int insertIngredient(String nom) {
-        try {
-            String sql = "INSERT INTO ingredients(nom) VALUES(?) RETURNING id";
-            PreparedStatement pst = conn.prepareStatement(sql);
+        // upsert : si un autre poste vient d'ajouter le meme nom on recupere son id au lieu d'un doublon
+        String sql = "INSERT INTO ingredients(nom) VALUES(?) " +
+                     "ON CONFLICT (nom) DO UPDATE SET nom = EXCLUDED.nom RETURNING id";
+        long debut = INSERT_INGREDIENT.debut();
+        try (Connection conn = db.getConnection();
+             PreparedStatement pst = conn.prepareStatement(sql)) {
             pst.setString(1, nom);
             // RETURNING id cest pour avoir l'id juste apres l'insertion
-            ResultSet rs = pst.executeQuery();
-
-            if (rs.next()) {
-                int id = rs.getInt(1);
-                rs.close();
-                pst.close();
-                return id;
+            try (ResultSet rs = pst.executeQuery()) {
+                if (rs.next()) {
+                    int id = rs.getInt(1);
+                    CACHE.put(nom, id); // le cache reste a jour
+                    return id;
+                }
             }
 
-            rs.close();
-            pst.close();
-
         } catch (SQLException e) {
+            INSERT_INGREDIENT.erreur();
             e.printStackTrace();
+        } finally {
+            INSERT_INGREDIENT.fin(debut);
         }
         return -1;
     }
@@ -88,37 +120,283 @@ public class IngredientDAO {
      * Récupère la liste des ingrédients pour une recette donnée.
      * 
      * @param idRecette l'identifiant de la recette
-     * @return une liste d'IngredientRecette contenant les ingrédients et leurs quantités
+     * @return une liste d'IngredientRecette contenant les ingrédients et leurs quantités (texte, montant et unité)
      */
     public List<IngredientRecette> getPourRecette(int idRecette) {
+        List<IngredientRecette> enCache = LISTES.get(idRecette);
+        if (enCache != null) return enCache; // deja lue, pas besoin de la bdd
+        long generation = LISTES.generation(idRecette); // avant la requete, voir IngredientsRecetteCache
 
         List<IngredientRecette> liste = new ArrayList<>();
 
         // join pr avoir les noms des ingredients et pas juste les ids
-        String sql = "SELECT i.nom, ri.quantite " +
+        String sql = "SELECT i.nom, ri.quantite, ri.montant, ri.unite " +
                      "FROM recette_ingredients ri " +
                      "JOIN ingredients i ON ri.ingredient_id = i.id " +
                      "WHERE ri.recette_id = ?";
 
-        try {
-            PreparedStatement pst = conn.prepareStatement(sql);
+        long debut = GET_POUR_RECETTE.debut();
+        try (Connection conn = db.getConnection();
+             PreparedStatement pst = conn.prepareStatement(sql)) {
             pst.setInt(1, idRecette); // l'id de la recette
-            ResultSet rs = pst.executeQuery();
+
+            try (ResultSet rs = pst.executeQuery()) {
+                while (rs.next()) {
+                    String nom = rs.getString("nom"); // le nom depuis la table ingredients
+                    String quantite = rs.getString("quantite"); // ex: "250g"
+                    // montant et unite deja analyses a l'enregistrement (250 et "g")
+                    IngredientRecette ir = new IngredientRecette(nom, quantite,
+                            rs.getBigDecimal("montant"), rs.getString("unite")); // cree l'objet
+                    liste.add(ir); // ajoute a la liste
+                }
+            }
+            LISTES.put(idRecette, liste, generation); // seulement si tout a ete lu
+
+        } catch (SQLException e) {
+            GET_POUR_RECETTE.erreur();
+            e.printStackTrace();
+        } finally {
+            GET_POUR_RECETTE.fin(debut, liste.size());
+        }
+
+        return liste;
+    }
+
+    /**
+     * Récupère les ingrédients de plusieurs recettes en une seule requête.
+     * 
+     * @param idsRecettes les identifiants des recettes
+     * @return les ingrédients (texte, montant et unité) par identifiant de recette (vide en cas d'erreur)
+     */
+    public Map<Integer, List<IngredientRecette>> getPourRecettes(Collection<Integer> idsRecettes) {
+        try {
+            return lirePourRecettes(idsRecettes);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return new HashMap<>();
+        }
+    }
+
+    /**
+     * Comme {@link #getPourRecettes(Collection)}, mais une erreur n'est pas confondue avec
+     * des recettes sans ingrédients.
+     * 
+     * @param idsRecettes les identifiants des recettes
+     * @return les ingrédients par identifiant de recette
+     * @throws SQLException en cas d'erreur SQL
+     */
+    Map<Integer, List<IngredientRecette>> lirePourRecettes(Collection<Integer> idsRecettes) throws SQLException {
+        Map<Integer, List<IngredientRecette>> parRecette = new HashMap<>();
+        // celles en cache ne vont pas en base
+        Map<Integer, Long> manquantes = new HashMap<>();
+        for (int id : idsRecettes) {
+            List<IngredientRecette> enCache = LISTES.get(id);
+            if (enCache != null) {
+                if (!enCache.isEmpty()) parRecette.put(id, enCache);
+            } else {
+                manquantes.put(id, LISTES.generation(id));
+            }
+        }
+        if (manquantes.isEmpty()) return parRecette;
+
+        String sql = "SELECT ri.recette_id, i.nom, ri.quantite, ri.montant, ri.unite " +
+                     "FROM recette_ingredients ri " +
+                     "JOIN ingredients i ON ri.ingredient_id = i.id " +
+                     "WHERE ri.recette_id = ANY(?)";
+
+        long debut = GET_POUR_RECETTES.debut();
+        int lues = 0;
+        try (Connection conn = db.getConnection();
+             PreparedStatement pst = conn.prepareStatement(sql)) {
+            pst.setArray(1, conn.createArrayOf("integer", manquantes.keySet().toArray()));
+
+            try (ResultSet rs = pst.executeQuery()) {
+                while (rs.next()) {
+                    parRecette.computeIfAbsent(rs.getInt(1), k -> new ArrayList<>())
+                            .add(new IngredientRecette(rs.getString(2), rs.getString(3),
+                                    rs.getBigDecimal(4), rs.getString(5)));
+                    lues++;
+                }
+            }
+            for (Map.Entry<Integer, Long> e : manquantes.entrySet()) {
+                LISTES.put(e.getKey(), parRecette.getOrDefault(e.getKey(), List.of()), e.getValue());
+            }
+
+        } catch (SQLException e) {
+            GET_POUR_RECETTES.erreur();
+            throw e;
+        } finally {
+            GET_POUR_RECETTES.fin(debut, lues);
+        }
+
+        return parRecette;
+    }
+
+    /**
+     * Récupère les noms de tous les ingrédients, utilisés ou non par une recette.
+     * Sert à l'autocomplétion du nom d'ingrédient dans l'éditeur.
+     * 
+     * @return les noms des ingrédients (vide en cas d'erreur)
+     */
+    public List<String> getNoms() {
+        List<String> noms = new ArrayList<>();
+
+        String sql = "SELECT nom FROM ingredients";
+
+        long debut = GET_NOMS.debut();
+        try (Connection conn = db.getConnection();
+             PreparedStatement pst = conn.prepareStatement(sql);
+             ResultSet rs = pst.executeQuery()) {
 
             while (rs.next()) {
-                String nom = rs.getString("nom"); // le nom depuis la table ingredients
-                String quantite = rs.getString("quantite"); // ex: "250g"
-                IngredientRecette ir = new IngredientRecette(nom, quantite); // cree l'objet
-                liste.add(ir); // ajoute a la liste
+                noms.add(rs.getString(1));
             }
 
-            rs.close(); // toujours fermer
-            pst.close();
+        } catch (SQLException e) {
+            GET_NOMS.erreur();
+            e.printStackTrace();
+        } finally {
+            GET_NOMS.fin(debut, noms.size());
+        }
+
+        return noms;
+    }
+
+    /**
+     * Récupère les noms d'ingrédients de toutes les recettes en une seule requête.
+     * Sert à construire l'index de recherche par ingrédient.
+     * 
+     * @return les noms d'ingrédients par identifiant de recette
+     */
+    public Map<Integer, List<String>> getNomsParRecette() {
+        Map<Integer, List<String>> noms = new HashMap<>();
+
+        String sql = "SELECT ri.recette_id, i.nom " +
+                     "FROM recette_ingredients ri " +
+                     "JOIN ingredients i ON ri.ingredient_id = i.id";
+
+        long debut = GET_NOMS_PAR_RECETTE.debut();
+        int lues = 0;
+        try (Connection conn = db.getConnection();
+             PreparedStatement pst = conn.prepareStatement(sql);
+             ResultSet rs = pst.executeQuery()) {
+
+            while (rs.next()) {
+                noms.computeIfAbsent(rs.getInt(1), k -> new ArrayList<>()).add(rs.getString(2));
+                lues++;
+            }
 
         } catch (SQLException e) {
+            GET_NOMS_PAR_RECETTE.erreur();
             e.printStackTrace();
+        } finally {
+            GET_NOMS_PAR_RECETTE.fin(debut, lues);
         }
 
-        return liste;
+        return noms;
+    }
+
+    /**
+     * Résout les identifiants d'un ensemble de noms d'ingrédients, en créant ceux qui n'existent pas.
+     * Les noms déjà en cache ne coûtent rien, les autres sont résolus en une seule requête.
+     * 
+     * @param noms les noms des ingrédients
+     * @return les identifiants par nom (vide en cas d'erreur)
+     */
+    public Map<String, Integer> resoudreIds(Collection<String> noms) {
+        long debut = RESOUDRE_IDS.debut();
+        try (Connection conn = db.getConnection()) {
+            Map<String, Integer> ids = resoudreIds(conn, noms);
+            memoriser(ids); // autocommit, donc les nouveaux sont deja valides
+            return ids;
+
+        } catch (SQLException e) {
+            RESOUDRE_IDS.erreur();
+            e.printStackTrace();
+        } finally {
+            RESOUDRE_IDS.fin(debut, noms.size());
+        }
+        return new HashMap<>();
+    }
+
+    /**
+     * Résout les identifiants d'un ensemble de noms sur une connexion donnée.
+     * Les ingrédients manquants sont créés avec un upsert {@code ON CONFLICT DO NOTHING},
+     * ce qui évite les doublons quand deux postes ajoutent le même ingrédient.
+     * Le cache n'est pas mis à jour : l'appelant doit appeler {@link #memoriser(Map)}
+     * une fois sa transaction validée.
+     * 
+     * @param conn la connexion (et la transaction) à utiliser
+     * @param noms les noms des ingrédients
+     * @return les identifiants par nom
+     * @throws SQLException en cas d'erreur SQL
+     */
+    Map<String, Integer> resoudreIds(Connection conn, Collection<String> noms) throws SQLException {
+        Map<String, Integer> ids = new HashMap<>();
+        Set<String> manquants = new LinkedHashSet<>();
+
+        for (String nom : noms) {
+            int id = CACHE.get(nom);
+            if (id != -1) ids.put(nom, id);
+            else manquants.add(nom);
+        }
+        if (manquants.isEmpty()) return ids; // tout etait en cache
+
+        // un seul aller-retour : insere ceux qui manquent et relit ceux qui existent deja
+        String sql = "WITH demandes(nom) AS (SELECT DISTINCT unnest(?::text[])), " +
+                     "nouveaux AS (INSERT INTO ingredients(nom) SELECT nom FROM demandes " +
+                     "             ON CONFLICT (nom) DO NOTHING RETURNING id, nom) " +
+                     "SELECT id, nom FROM nouveaux " +
+                     "UNION ALL " +
+                     "SELECT i.id, i.nom FROM ingredients i JOIN demandes d ON d.nom = i.nom";
+        lireIds(conn, sql, manquants, ids);
+
+        // un autre poste a pu inserer le meme nom pendant la requete, on le relit
+        manquants.removeAll(ids.keySet());
+        if (!manquants.isEmpty()) {
+            lireIds(conn, "SELECT id, nom FROM ingredients WHERE nom = ANY(?)", manquants, ids);
+        }
+
+        return ids;
+    }
+
+    /**
+     * Oublie les ingrédients en cache d'une recette. À appeler après chaque écriture
+     * validée de ses liens et après sa suppression.
+     * 
+     * @param idRecette l'identifiant de la recette
+     */
+    static void invaliderRecette(int idRecette) {
+        LISTES.invalider(idRecette);
+    }
+
+    /**
+     * Retourne le cache des ingrédients par recette, pour ses statistiques.
+     * 
+     * @return le cache partagé par tous les DAO
+     */
+    public static IngredientsRecetteCache getCacheRecettes() {
+        return LISTES;
+    }
+
+    /**
+     * Ajoute des identifiants validés en base au cache partagé.
+     * 
+     * @param ids les identifiants par nom
+     */
+    void memoriser(Map<String, Integer> ids) {
+        CACHE.putAll(ids);
+    }
+
+    private void lireIds(Connection conn, String sql, Set<String> noms, Map<String, Integer> ids)
+            throws SQLException {
+        try (PreparedStatement pst = conn.prepareStatement(sql)) {
+            pst.setArray(1, conn.createArrayOf("text", noms.toArray()));
+            try (ResultSet rs = pst.executeQuery()) {
+                while (rs.next()) {
+                    ids.put(rs.getString(2), rs.getInt(1));
+                }
+            }
+        }
     }
 }
@@ -1,8 +1,15 @@
 package com.mycompany.projetrecette;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Classe représentant un ingrédient dans le contexte d'une recette.
- * Contient le nom de l'ingrédient et sa quantité pour la recette.
+ * Contient le nom de l'ingrédient et sa quantité pour la recette, en texte tel que saisi
+ * et en montant et unité normalisée (colonnes {@code montant} et {@code unite}).
  * 
  * @author bapti
  * @version 1.0
@@ -11,6 +18,9 @@ public class IngredientRecette {
 
     private String nomIngredient; // nom de l'ingredient
     private String quantite; // ex: 250g, 1L, 2 cuilleres
+    private volatile Quantite mesure; // la quantite analysee, calculee une seule fois
+    private BigDecimal montant; // lu en base, null si pas encore analyse ou sans nombre
+    private String unite;
 
     /**
      * Constructeur pour créer un ingrédient de recette.
@@ -24,6 +34,20 @@ public class IngredientRecette {
         this.quantite = quantite;
     }
 
+    /**
+     * Constructeur avec la quantité déjà analysée en base.
+     * 
+     * @param nomIngredient le nom de l'ingrédient
+     * @param quantite la quantité telle que saisie
+     * @param montant le montant (null si la quantité n'a pas de nombre)
+     * @param unite l'unité normalisée (null si la quantité n'a pas de nombre)
+     */
+    public IngredientRecette(String nomIngredient, String quantite, BigDecimal montant, String unite) {
+        this(nomIngredient, quantite);
+        this.montant = montant;
+        this.unite = unite;
+    }
+
     /**
      * Retourne le nom de l'ingrédient.
      * 
@@ -41,4 +65,49 @@ public class IngredientRecette {
     public String getQuantite() {
         return quantite; // retourne la quantité (250g, 1L, etc)
     }
+
+    /**
+     * Retourne la quantité analysée (nombre et unité), pour la mettre à l'échelle sans reparser le texte.
+     * Calculée au premier appel.
+     * 
+     * @return la quantité analysée
+     */
+    public Quantite getMesure() {
+        Quantite m = mesure;
+        if (m == null) mesure = m = Quantite.parser(quantite);
+        return m;
+    }
+
+    /**
+     * Retourne le montant de la quantité, lu en base ou analysé depuis le texte.
+     * 
+     * @return le montant, ou null si la quantité n'a pas de nombre
+     */
+    public BigDecimal getMontant() {
+        if (unite != null) return montant; // deja en base
+        return getMesure().getMontant();
+    }
+
+    /**
+     * Retourne l'unité normalisée de la quantité (g, kg, ml, l...), lue en base ou analysée depuis le texte.
+     * 
+     * @return l'unité (vide s'il n'y en a pas), ou null si la quantité n'a pas de nombre
+     */
+    public String getUnite() {
+        if (unite != null) return unite;
+        return getMesure().getUnite(); // null si la quantite n'a pas de nombre
+    }
+
+    /**
+     * Garde un seul ingrédient par nom, avec la dernière quantité saisie, à la place du premier.
+     * Une recette n'a qu'un lien par ingrédient, à la création comme à la modification.
+     * 
+     * @param ingredients les ingrédients tels que saisis
+     * @return la liste sans doublons (la même liste s'il n'y en avait pas)
+     */
+    static List<IngredientRecette> sansDoublons(List<IngredientRecette> ingredients) {
+        Map<String, IngredientRecette> parNom = new LinkedHashMap<>();
+        for (IngredientRecette ir : ingredients) parNom.put(ir.getNomIngredient(), ir);
+        return parNom.size() == ingredients.size() ? ingredients : new ArrayList<>(parNom.values());
+    }
 }
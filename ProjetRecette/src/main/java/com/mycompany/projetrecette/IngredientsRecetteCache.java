@@ -0,0 +1,242 @@
+package com.mycompany.projetrecette;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache concurrent et borné des ingrédients de chaque recette, par identifiant de recette.
+ * Éviction LRU segmentée : une recette entre en période d'essai et ne passe dans la partie
+ * protégée (80 % de la place) qu'à sa deuxième lecture, une série de recettes vues une seule fois
+ * ne chasse donc pas celles qu'on consulte souvent.
+ * Le cache est découpé en sections indépendantes (un verrou chacune) selon l'identifiant.
+ * <p>
+ * Une lecture en base commencée avant une invalidation ne remet pas l'ancienne liste en cache :
+ * on note la génération de la section avant la requête ({@link #generation(int)}) et
+ * {@link #put(int, List, long)} ignore le résultat si une invalidation a eu lieu entre temps.
+ *
+ * @author bapti
+ * @version 1.0
+ */
+public class IngredientsRecetteCache {
+
+    private static final int SECTIONS = 8;
+
+    private final Section[] sections = new Section[SECTIONS];
+    private final LongAdder succes = new LongAdder();
+    private final LongAdder echecs = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Crée un cache vide.
+     *
+     * @param tailleMax le nombre maximum de recettes gardées en mémoire
+     */
+    public IngredientsRecetteCache(int tailleMax) {
+        int parSection = Math.max(1, (tailleMax + SECTIONS - 1) / SECTIONS);
+        for (int i = 0; i < SECTIONS; i++) sections[i] = new Section(parSection);
+    }
+
+    /**
+     * Retourne les ingrédients en cache d'une recette.
+     *
+     * @param idRecette l'identifiant de la recette
+     * @return une copie de la liste, ou null si la recette n'est pas en cache
+     */
+    public List<IngredientRecette> get(int idRecette) {
+        List<IngredientRecette> l = section(idRecette).get(idRecette);
+        if (l == null) {
+            echecs.increment();
+            return null;
+        }
+        succes.increment();
+        return new ArrayList<>(l); // l'appelant peut modifier sa liste
+    }
+
+    /**
+     * Retourne la génération de la section d'une recette, à lire avant de l'interroger en base.
+     *
+     * @param idRecette l'identifiant de la recette
+     * @return la génération courante
+     */
+    public long generation(int idRecette) {
+        return section(idRecette).generation();
+    }
+
+    /**
+     * Met en cache les ingrédients lus en base, sauf si la recette a été invalidée depuis.
+     *
+     * @param idRecette l'identifiant de la recette
+     * @param ingredients les ingrédients lus
+     * @param generation la génération lue avant la requête
+     */
+    public void put(int idRecette, List<IngredientRecette> ingredients, long generation) {
+        section(idRecette).put(idRecette, List.copyOf(ingredients), generation);
+    }
+
+    /**
+     * Oublie les ingrédients d'une recette, après une écriture de ses liens ou sa suppression.
+     *
+     * @param idRecette l'identifiant de la recette
+     */
+    public void invalider(int idRecette) {
+        section(idRecette).invalider(idRecette);
+    }
+
+    /**
+     * Retourne le nombre de recettes en cache.
+     * @return la taille du cache
+     */
+    public int size() {
+        int n = 0;
+        for (Section s : sections) n += s.size();
+        return n;
+    }
+
+    /**
+     * Retourne le nombre de lectures trouvées dans le cache.
+     * @return le nombre de succès
+     */
+    public long getSucces() {
+        return succes.sum();
+    }
+
+    /**
+     * Retourne le nombre de lectures absentes du cache.
+     * @return le nombre d'échecs
+     */
+    public long getEchecs() {
+        return echecs.sum();
+    }
+
+    /**
+     * Retourne la part des lectures trouvées dans le cache.
+     * @return le taux de succès, entre 0 et 1 (0 si aucune lecture)
+     */
+    public double getTauxSucces() {
+        long s = succes.sum();
+        long total = s + echecs.sum();
+        return total == 0 ? 0 : (double) s / total;
+    }
+
+    /**
+     * Retourne le nombre de recettes sorties du cache faute de place.
+     * @return le nombre d'évictions
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Estime la mémoire occupée par les listes en cache (objets et textes, pas les index).
+     * @return une estimation en octets
+     */
+    public long getOctetsEstimes() {
+        long n = 0;
+        for (Section s : sections) n += s.octets();
+        return n;
+    }
+
+    private Section section(int idRecette) {
+        int h = idRecette * 0x9E3779B9;
+        return sections[(h >>> 29) & (SECTIONS - 1)];
+    }
+
+    // taille approximative d'une liste : en-tetes d'objets, references et textes
+    private static long estimer(List<IngredientRecette> l) {
+        long octets = 16 + 16L * l.size(); // la liste et son tableau
+        for (IngredientRecette ir : l) {
+            octets += 40 + texte(ir.getNomIngredient()) + texte(ir.getQuantite()) + texte(ir.getUnite());
+            if (ir.getMontant() != null) octets += 40;
+        }
+        return octets;
+    }
+
+    private static long texte(String s) {
+        return s == null ? 0 : 40 + s.length(); // String + byte[] (latin-1 le plus souvent)
+    }
+
+    // une section : periode d'essai + partie protegee, chacune de la plus ancienne a la plus recente
+    private final class Section {
+        private final int tailleMax;
+        private final int tailleProtegee;
+        private final LinkedHashMap<Integer, Entree> essai = new LinkedHashMap<>(16, 0.75f, true);
+        private final LinkedHashMap<Integer, Entree> protegee = new LinkedHashMap<>(16, 0.75f, true);
+        private long generation;
+        private long octets;
+
+        Section(int tailleMax) {
+            this.tailleMax = tailleMax;
+            this.tailleProtegee = Math.max(1, tailleMax * 4 / 5);
+        }
+
+        synchronized List<IngredientRecette> get(int id) {
+            Entree e = protegee.get(id); // remonte en tete
+            if (e != null) return e.ingredients;
+
+            e = essai.remove(id);
+            if (e == null) return null;
+            protegee.put(id, e); // deuxieme lecture : protegee
+            if (protegee.size() > tailleProtegee) {
+                // la plus ancienne des protegees redescend en essai, cote recent
+                Iterator<Map.Entry<Integer, Entree>> it = protegee.entrySet().iterator();
+                Map.Entry<Integer, Entree> ancienne = it.next();
+                it.remove();
+                essai.put(ancienne.getKey(), ancienne.getValue());
+            }
+            return e.ingredients;
+        }
+
+        synchronized long generation() {
+            return generation;
+        }
+
+        synchronized void put(int id, List<IngredientRecette> ingredients, long gen) {
+            if (gen != generation) return; // invalidee pendant la lecture en base
+            Entree nouvelle = new Entree(ingredients);
+            Entree ancienne = protegee.get(id);
+            if (ancienne != null) {
+                protegee.put(id, nouvelle);
+            } else {
+                ancienne = essai.put(id, nouvelle);
+            }
+            octets += nouvelle.octets - (ancienne == null ? 0 : ancienne.octets);
+
+            while (essai.size() + protegee.size() > tailleMax) {
+                Map<Integer, Entree> victimes = essai.isEmpty() ? protegee : essai;
+                Iterator<Entree> it = victimes.values().iterator();
+                octets -= it.next().octets;
+                it.remove();
+                evictions.increment();
+            }
+        }
+
+        synchronized void invalider(int id) {
+            generation++;
+            Entree e = essai.remove(id);
+            if (e == null) e = protegee.remove(id);
+            if (e != null) octets -= e.octets;
+        }
+
+        synchronized int size() {
+            return essai.size() + protegee.size();
+        }
+
+        synchronized long octets() {
+            return octets;
+        }
+    }
+
+    private static final class Entree {
+        final List<IngredientRecette> ingredients;
+        final long octets;
+
+        Entree(List<IngredientRecette> ingredients) {
+            this.ingredients = ingredients;
+            this.octets = estimer(ingredients);
+        }
+    }
+}
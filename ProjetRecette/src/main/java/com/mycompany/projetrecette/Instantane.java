@@ -0,0 +1,386 @@
+package com.mycompany.projetrecette;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Copie binaire et compacte du catalogue (recettes et ingrédients de chaque recette) sur le disque local.
+ * Le fichier est lu en le projetant en mémoire ({@link FileChannel#map}) : pas de copie
+ * dans un tampon intermédiaire, l'OS charge les pages à la demande.
+ * {@link #lire(Path)} ne fait que repérer où commence chaque recette ; une recette n'est décodée
+ * que quand on la demande, et ses ingrédients seulement quand on les parcourt.
+ * Il est écrit dans un fichier temporaire puis renommé, un fichier à moitié écrit n'est jamais lu.
+ * Chaque écriture crée une nouvelle génération ({@code catalogue.bin.1}, {@code catalogue.bin.2}...)
+ * au lieu de remplacer le fichier : l'instantané en cours d'utilisation reste projeté en mémoire
+ * (Windows refuse de remplacer un fichier projeté) et {@link #lire(Path)} prend la plus récente
+ * au démarrage suivant.
+ * <p>
+ * Format (gros-boutiste, comme {@link DataOutputStream}) : l'entier {@link #MAGIQUE}, la version,
+ * le numéro du journal des recettes à la dernière mise à jour (-1 si inconnu), la table des noms
+ * d'ingrédients, le nombre de recettes, puis pour chaque recette ses colonnes et ses ingrédients
+ * (indice du nom dans la table, quantité, montant, unité). Les textes sont une longueur suivie
+ * des octets UTF-8, -1 pour null. La version 1 (sans numéro ni table des noms) est encore lue.
+ *
+ * @author bapti
+ * @version 1.0
+ */
+public final class Instantane {
+
+    /** "RCP1" en ASCII, au début de chaque fichier. */
+    static final int MAGIQUE = 0x52435031;
+    private static final int VERSION = 2;
+
+    private final MappedByteBuffer buf; // lu seulement avec des positions absolues, partageable entre threads
+    private final int version;
+    private final long numero;
+    private final String[] noms; // table des noms d'ingredients (vide en version 1)
+    private final int[] positions; // debut de chaque recette dans buf
+
+    private Instantane(MappedByteBuffer buf, int version, long numero, String[] noms, int[] positions) {
+        this.buf = buf;
+        this.version = version;
+        this.numero = numero;
+        this.noms = noms;
+        this.positions = positions;
+    }
+
+    /**
+     * Retourne le numéro du journal des recettes quand l'instantané a été mis à jour.
+     * @return le numéro, ou -1 s'il est inconnu (il faut tout relire)
+     */
+    public long getNumero() {
+        return numero;
+    }
+
+    /**
+     * Retourne le nombre de recettes de l'instantané.
+     * @return le nombre de recettes
+     */
+    public int getNbRecettes() {
+        return positions.length;
+    }
+
+    /**
+     * Retourne les noms des ingrédients utilisés par les recettes de l'instantané.
+     * @return les noms, sans doublons (vide pour un fichier en version 1)
+     */
+    public List<String> getNomsIngredients() {
+        return Arrays.asList(noms);
+    }
+
+    /**
+     * Décode une recette.
+     *
+     * @param i la position de la recette, de 0 à {@link #getNbRecettes()} exclu (triées par identifiant)
+     * @return une nouvelle recette à chaque appel
+     */
+    public Recette getRecette(int i) {
+        Lecteur l = new Lecteur(positions[i]);
+        return new Recette(l.entier(), l.texte(), l.texte(), l.texte(), l.texte(), l.texte(),
+                l.entier(), l.reel());
+    }
+
+    /**
+     * Retourne les ingrédients d'une recette, décodés au premier accès à la liste.
+     *
+     * @param i la position de la recette
+     * @return une liste en lecture seule
+     */
+    public List<IngredientRecette> getIngredients(int i) {
+        return new IngredientsDifferes(i);
+    }
+
+    /**
+     * Lit un instantané depuis le disque : la génération la plus récente qui soit lisible,
+     * ou le fichier lui-même s'il n'a encore aucune génération. Le fichier est parcouru une fois
+     * pour repérer les recettes et vérifier qu'il est complet, sans rien décoder.
+     *
+     * @param fichier le fichier à lire
+     * @return l'instantané, ou null si le fichier n'existe pas ou n'est pas lisible
+     */
+    public static Instantane lire(Path fichier) {
+        try {
+            for (Path g : generations(fichier)) {
+                Instantane inst = lireFichier(g);
+                if (inst != null) return inst;
+            }
+        } catch (IOException e) {
+            System.out.println("Dossier de l'instantané illisible : " + fichier + " (" + e + ")");
+        }
+        return lireFichier(fichier); // ecrit avant les generations, ou fichier donne tel quel
+    }
+
+    private static Instantane lireFichier(Path fichier) {
+        try (FileChannel canal = FileChannel.open(fichier, StandardOpenOption.READ)) {
+            MappedByteBuffer buf = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+            int version = buf.getInt() == MAGIQUE ? buf.getInt() : -1;
+            if (version != 1 && version != VERSION) {
+                System.out.println("Instantané ignoré (format inconnu) : " + fichier);
+                return null;
+            }
+
+            long numero = -1;
+            String[] noms = new String[0];
+            if (version >= 2) {
+                numero = buf.getLong();
+                int nbNoms = nombre(buf, "nombre de noms");
+                noms = new String[nbNoms];
+                for (int i = 0; i < nbNoms; i++) noms[i] = texte(buf); // quelques centaines, on les garde
+            }
+
+            int nb = nombre(buf, "nombre de recettes");
+            int[] positions = new int[nb];
+            for (int i = 0; i < nb; i++) {
+                positions[i] = buf.position();
+                buf.getInt(); // id
+                for (int t = 0; t < 5; t++) sauter(buf);
+                buf.getInt(); // nb personnes
+                buf.getDouble(); // prix
+                int nbIng = nombre(buf, "nombre d'ingrédients");
+                for (int j = 0; j < nbIng; j++) {
+                    if (version >= 2) {
+                        int nom = buf.getInt();
+                        if (nom < 0 || nom >= noms.length) throw new IllegalArgumentException("nom d'ingrédient " + nom);
+                    } else {
+                        sauter(buf);
+                    }
+                    for (int t = 0; t < 3; t++) sauter(buf);
+                }
+            }
+            return new Instantane(buf, version, numero, noms, positions);
+
+        } catch (NoSuchFileException e) {
+            return null; // premier lancement
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            System.out.println("Instantané illisible : " + fichier + " (" + e + ")");
+            return null;
+        }
+    }
+
+    /**
+     * Écrit un instantané sur le disque dans une nouvelle génération, qui remplace l'ancienne
+     * d'un seul coup pour le prochain {@link #lire(Path)}. Les anciennes générations sont
+     * supprimées quand le système le permet, sinon à l'écriture suivante.
+     *
+     * @param fichier le fichier à écrire (le nom de base des générations)
+     * @param recettes les recettes, triées par identifiant
+     * @param ingredients les ingrédients par identifiant de recette
+     * @param numero le numéro du journal des recettes de ces données (-1 si inconnu)
+     * @throws IOException si l'écriture échoue (l'ancien fichier reste intact)
+     */
+    public static void ecrire(Path fichier, List<Recette> recettes,
+                              Map<Integer, List<IngredientRecette>> ingredients, long numero) throws IOException {
+        // chaque nom n'est ecrit qu'une fois, les ingredients renvoient a sa place dans la table
+        Map<String, Integer> noms = new LinkedHashMap<>();
+        for (List<IngredientRecette> liste : ingredients.values()) {
+            for (IngredientRecette ir : liste) noms.putIfAbsent(ir.getNomIngredient(), noms.size());
+        }
+
+        Path dossier = fichier.toAbsolutePath().getParent();
+        Files.createDirectories(dossier);
+        List<Path> anciennes = generations(fichier);
+        long n = anciennes.isEmpty() ? 1 : numeroGeneration(anciennes.get(0)) + 1;
+        Path cible = dossier.resolve(fichier.getFileName() + "." + n);
+        Path temp = Files.createTempFile(dossier, fichier.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                out.writeInt(MAGIQUE);
+                out.writeInt(VERSION);
+                out.writeLong(numero);
+                out.writeInt(noms.size());
+                for (String nom : noms.keySet()) texte(out, nom);
+
+                out.writeInt(recettes.size());
+                for (Recette r : recettes) {
+                    out.writeInt(r.getIdRecette());
+                    texte(out, r.getNomRecette());
+                    texte(out, r.getGenreRecette());
+                    texte(out, r.getIngredients());
+                    texte(out, r.getInstructions());
+                    texte(out, r.getDuree());
+                    out.writeInt(r.getNbPersonnes());
+                    out.writeDouble(r.getPrixMoyen());
+
+                    List<IngredientRecette> liste = ingredients.getOrDefault(r.getIdRecette(), List.of());
+                    out.writeInt(liste.size());
+                    for (IngredientRecette ir : liste) {
+                        out.writeInt(noms.get(ir.getNomIngredient()));
+                        texte(out, ir.getQuantite());
+                        BigDecimal montant = ir.getMontant();
+                        texte(out, montant == null ? null : montant.toPlainString());
+                        texte(out, ir.getUnite());
+                    }
+                }
+            }
+            Files.move(temp, cible, StandardCopyOption.ATOMIC_MOVE); // nom neuf, rien a remplacer
+        } finally {
+            Files.deleteIfExists(temp); // seulement si le renommage n'a pas eu lieu
+        }
+
+        anciennes.add(fichier.toAbsolutePath());
+        for (Path ancienne : anciennes) {
+            try {
+                Files.deleteIfExists(ancienne);
+            } catch (IOException e) {
+                // encore projetee en memoire (Windows), on reessaiera a la prochaine ecriture
+            }
+        }
+    }
+
+    // les generations "<fichier>.<n>" deja ecrites, de la plus recente a la plus ancienne
+    private static List<Path> generations(Path fichier) throws IOException {
+        Path dossier = fichier.toAbsolutePath().getParent();
+        String prefixe = fichier.getFileName() + ".";
+        List<Path> generations = new ArrayList<>();
+        if (!Files.isDirectory(dossier)) return generations;
+        try (DirectoryStream<Path> fichiers = Files.newDirectoryStream(dossier,
+                f -> f.getFileName().toString().startsWith(prefixe))) {
+            for (Path p : fichiers) {
+                String suite = p.getFileName().toString().substring(prefixe.length());
+                if (!suite.isEmpty() && suite.length() < 19 && suite.chars().allMatch(Character::isDigit)) {
+                    generations.add(p);
+                }
+            }
+        }
+        generations.sort(Comparator.comparingLong(Instantane::numeroGeneration).reversed());
+        return generations;
+    }
+
+    private static long numeroGeneration(Path generation) {
+        String nom = generation.getFileName().toString();
+        return Long.parseLong(nom.substring(nom.lastIndexOf('.') + 1));
+    }
+
+    // les ingredients d'une recette, decodes une seule fois au premier acces
+    // (deux threads peuvent les decoder en meme temps, ils trouvent la meme chose)
+    private final class IngredientsDifferes extends AbstractList<IngredientRecette> {
+        private final int recette;
+        private volatile List<IngredientRecette> lus;
+
+        IngredientsDifferes(int recette) {
+            this.recette = recette;
+        }
+
+        @Override
+        public IngredientRecette get(int index) {
+            return lus().get(index);
+        }
+
+        @Override
+        public int size() {
+            return lus().size();
+        }
+
+        private List<IngredientRecette> lus() {
+            List<IngredientRecette> l = lus;
+            if (l == null) lus = l = decoder();
+            return l;
+        }
+
+        private List<IngredientRecette> decoder() {
+            Lecteur l = new Lecteur(positions[recette]);
+            l.entier();
+            for (int t = 0; t < 5; t++) l.sauter();
+            l.entier();
+            l.reel();
+            int nb = l.entier();
+            List<IngredientRecette> liste = new ArrayList<>(nb);
+            for (int j = 0; j < nb; j++) {
+                String nom = version >= 2 ? noms[l.entier()] : l.texte();
+                String quantite = l.texte();
+                String montant = l.texte();
+                liste.add(new IngredientRecette(nom, quantite,
+                        montant == null ? null : new BigDecimal(montant), l.texte()));
+            }
+            return liste;
+        }
+    }
+
+    // lit buf avec des positions absolues, sans toucher a sa position (partage entre threads)
+    private final class Lecteur {
+        private int pos;
+
+        Lecteur(int pos) {
+            this.pos = pos;
+        }
+
+        int entier() {
+            int v = buf.getInt(pos);
+            pos += 4;
+            return v;
+        }
+
+        double reel() {
+            double v = buf.getDouble(pos);
+            pos += 8;
+            return v;
+        }
+
+        String texte() {
+            int n = entier();
+            if (n < 0) return null;
+            byte[] octets = new byte[n];
+            buf.get(pos, octets);
+            pos += n;
+            return new String(octets, StandardCharsets.UTF_8);
+        }
+
+        void sauter() {
+            int n = entier();
+            if (n > 0) pos += n;
+        }
+    }
+
+    // un compteur lu dans le fichier, borne par ce qui reste (fichier corrompu sinon)
+    private static int nombre(MappedByteBuffer buf, String quoi) {
+        int n = buf.getInt();
+        if (n < 0 || n > buf.remaining()) throw new IllegalArgumentException(quoi + " " + n);
+        return n;
+    }
+
+    private static String texte(MappedByteBuffer buf) {
+        int n = buf.getInt();
+        if (n < 0) return null;
+        if (n > buf.remaining()) throw new BufferUnderflowException(); // fichier tronque
+        byte[] octets = new byte[n];
+        buf.get(octets);
+        return new String(octets, StandardCharsets.UTF_8);
+    }
+
+    private static void sauter(MappedByteBuffer buf) {
+        int n = buf.getInt();
+        if (n < 0) return;
+        if (n > buf.remaining()) throw new BufferUnderflowException();
+        buf.position(buf.position() + n);
+    }
+
+    private static void texte(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] octets = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(octets.length);
+        out.write(octets);
+    }
+}
@@ -0,0 +1,50 @@
+package com.mycompany.projetrecette;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import javafx.application.Application;
+
+/**
+ * Point d'entrée du JAR exécutable.
+ * Une classe qui n'hérite pas d'{@link Application} est nécessaire pour lancer JavaFX
+ * depuis le classpath ({@code java -jar}), sinon le JDK refuse de démarrer.
+ * Avec {@code --migrer}, met le schéma de la base à jour et s'arrête sans ouvrir l'interface.
+ *
+ * @author bapti
+ * @version 1.0
+ */
+public class Lanceur {
+
+    private Lanceur() {
+        // que le main
+    }
+
+    /**
+     * Lance l'application.
+     *
+     * @param args les arguments de la ligne de commande ({@code --migrer} pour mettre le schéma à jour)
+     */
+    public static void main(String[] args) {
+        if (Arrays.asList(args).contains("--migrer")) {
+            migrer();
+            return;
+        }
+        Application.launch(App.class, args);
+    }
+
+    // applique les migrations en attente, sans interface
+    private static void migrer() {
+        Database db = Database.getInstance();
+        boolean ok = true;
+        try {
+            db.migrer();
+            System.out.println("Schéma de la base à jour");
+        } catch (SQLException e) {
+            ok = false;
+            e.printStackTrace();
+        } finally {
+            db.fermer();
+        }
+        if (!ok) System.exit(1);
+    }
+}
@@ -0,0 +1,165 @@
+package com.mycompany.projetrecette;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collector;
+
+/**
+ * Calcule la liste de courses de plusieurs recettes, chacune pour un nombre de personnes choisi.
+ * Chaque quantité est mise à l'échelle ({@code personnes / nbPersonnes}) puis les quantités
+ * d'un même ingrédient sont additionnées quand leurs unités sont compatibles
+ * (g, kg et mg ensemble, ml, cl, dl et l ensemble). Les quantités sans nombre ("une pincée")
+ * sont gardées à part sur la ligne de leur ingrédient.
+ * Le calcul est une réduction parallèle : chaque thread additionne ses recettes dans sa propre
+ * table, les tables sont fusionnées à la fin, sans verrou.
+ *
+ * @author bapti
+ * @version 1.0
+ */
+public class ListeCourses {
+
+    private static final int DECIMALES = 4; // precision des calculs intermediaires
+
+    private ListeCourses() {
+        // que des methodes statiques
+    }
+
+    /**
+     * Calcule la liste de courses.
+     *
+     * @param plan les recettes choisies avec le nombre de personnes voulu pour chacune
+     * @param ingredients les ingrédients de ces recettes, par identifiant de recette
+     * @return les lignes de la liste, triées par nom d'ingrédient
+     */
+    public static List<Ligne> calculer(Map<Recette, Integer> plan, Map<Integer, List<IngredientRecette>> ingredients) {
+        Map<String, Ligne> total = plan.entrySet().parallelStream()
+                .collect(Collector.of(
+                        HashMap<String, Ligne>::new,
+                        (table, e) -> ajouter(table, e.getKey(), e.getValue(), ingredients),
+                        ListeCourses::fusionner));
+
+        List<Ligne> lignes = new ArrayList<>(total.values());
+        lignes.sort(Comparator.comparing((Ligne l) -> Normalisation.normaliser(l.nom)).thenComparing(l -> l.unite));
+        return lignes;
+    }
+
+    // ajoute les ingredients d'une recette, mis a l'echelle, a la table d'un thread
+    private static void ajouter(Map<String, Ligne> table, Recette recette, int personnes,
+                                Map<Integer, List<IngredientRecette>> ingredients) {
+        List<IngredientRecette> liste = ingredients.get(recette.getIdRecette());
+        if (liste == null) return;
+
+        BigDecimal cible = BigDecimal.valueOf(personnes);
+        BigDecimal nbOriginal = BigDecimal.valueOf(recette.getNbPersonnes() <= 0 ? 1 : recette.getNbPersonnes());
+
+        for (IngredientRecette ir : liste) {
+            BigDecimal montant = ir.getMontant(); // deja en base, pas de texte a reparser
+            String unite = montant == null ? "" : Quantite.uniteBase(ir.getUnite());
+            String cle = Normalisation.normaliser(ir.getNomIngredient()) + '\u0000' + unite;
+
+            Ligne l = table.computeIfAbsent(cle, k -> new Ligne(ir.getNomIngredient(), unite));
+            if (montant == null) {
+                if (ir.getQuantite() != null && !ir.getQuantite().isBlank()) l.autres.add(ir.getQuantite());
+            } else {
+                // on multiplie avant de diviser, 1/3 de 300 g fait bien 100 g
+                BigDecimal m = Quantite.versUniteBase(montant, ir.getUnite()).multiply(cible)
+                        .divide(nbOriginal, DECIMALES, RoundingMode.HALF_UP);
+                l.montant = l.montant.add(m);
+                l.chiffree = true;
+            }
+        }
+    }
+
+    // fusionne la table d'un thread dans celle d'un autre
+    private static Map<String, Ligne> fusionner(Map<String, Ligne> a, Map<String, Ligne> b) {
+        for (Map.Entry<String, Ligne> e : b.entrySet()) {
+            a.merge(e.getKey(), e.getValue(), Ligne::plus);
+        }
+        return a;
+    }
+
+    /**
+     * Une ligne de la liste de courses : un ingrédient dans une unité, avec son total.
+     */
+    public static final class Ligne {
+        private final String nom;
+        private final String unite; // unite de base (g, ml) ou autre unite, vide sans unite
+        private BigDecimal montant = BigDecimal.ZERO;
+        private boolean chiffree;
+        private final List<String> autres = new ArrayList<>(1); // quantites sans nombre
+
+        Ligne(String nom, String unite) {
+            this.nom = nom;
+            this.unite = unite;
+        }
+
+        /**
+         * Retourne le nom de l'ingrédient.
+         * @return le nom
+         */
+        public String getNom() {
+            return nom;
+        }
+
+        /**
+         * Retourne le total dans l'unité de base.
+         * @return le total, 0 si la ligne n'a que des quantités sans nombre
+         */
+        public BigDecimal getMontant() {
+            return montant;
+        }
+
+        /**
+         * Retourne l'unité du total (g, ml, une autre unité, ou vide).
+         * @return l'unité
+         */
+        public String getUnite() {
+            return unite;
+        }
+
+        /**
+         * Retourne les quantités sans nombre de cet ingrédient ("une pincée"...).
+         * @return les quantités, non modifiable
+         */
+        public List<String> getAutres() {
+            return Collections.unmodifiableList(autres);
+        }
+
+        // a += b, b n'est plus utilise apres
+        private Ligne plus(Ligne b) {
+            montant = montant.add(b.montant);
+            chiffree |= b.chiffree;
+            autres.addAll(b.autres);
+            return this;
+        }
+
+        /**
+         * Écrit la ligne pour l'affichage, en kg ou en l au-delà de 1000 g ou 1000 ml.
+         * @return par exemple "farine : 1,25 kg"
+         */
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(nom).append(" : ");
+            if (chiffree) {
+                BigDecimal m = montant;
+                String u = unite;
+                if (m.compareTo(BigDecimal.valueOf(1000)) >= 0 && (u.equals("g") || u.equals("ml"))) {
+                    m = m.movePointLeft(3);
+                    u = u.equals("g") ? "kg" : "l";
+                }
+                m = m.setScale(2, RoundingMode.HALF_UP).stripTrailingZeros();
+                sb.append(m.toPlainString().replace('.', ','));
+                if (!u.isEmpty()) sb.append(' ').append(u);
+                if (!autres.isEmpty()) sb.append(" + ");
+            }
+            sb.append(String.join(" + ", autres));
+            return sb.toString();
+        }
+    }
+}
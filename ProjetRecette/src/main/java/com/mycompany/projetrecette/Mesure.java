@@ -0,0 +1,196 @@
+package com.mycompany.projetrecette;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compteurs et histogramme des durées d'une opération (une méthode de DAO, l'emprunt d'une connexion...).
+ * Sans verrou : un appel coûte deux {@link System#nanoTime()} et quelques incréments,
+ * on peut donc mesurer les chemins les plus fréquents.
+ * <p>
+ * L'histogramme range les durées en microsecondes dans des classes log-linéaires :
+ * quatre classes par puissance de deux, les centiles sont donc justes à 25 % près
+ * (la borne haute de la classe est retournée). Les valeurs courent depuis le démarrage
+ * ou le dernier {@link #reinitialiser()}.
+ * <p>
+ * Utilisation :
+ * <pre>{@code
+ * long debut = MESURE.debut();
+ * try { ... } catch (SQLException e) { MESURE.erreur(); ... } finally { MESURE.fin(debut, lignes); }
+ * }</pre>
+ *
+ * @author bapti
+ * @version 1.0
+ */
+public final class Mesure implements MesureMXBean {
+
+    private static final int CLASSES = 144; // jusqu'a 2^37 us, soit plus de 38 h
+
+    private final String nom;
+    private final LongAdder appels = new LongAdder();
+    private final LongAdder erreurs = new LongAdder();
+    private final LongAdder lignes = new LongAdder();
+    private final LongAdder totalNs = new LongAdder();
+    private final AtomicLong maxNs = new AtomicLong();
+    private final AtomicLongArray histogramme = new AtomicLongArray(CLASSES);
+
+    /**
+     * Crée une mesure. Passer par {@link Metriques#mesure(String)} pour qu'elle soit publiée.
+     *
+     * @param nom le nom de l'opération
+     */
+    Mesure(String nom) {
+        this.nom = nom;
+    }
+
+    /**
+     * Retourne le nom de l'opération mesurée.
+     * @return le nom
+     */
+    public String getNom() {
+        return nom;
+    }
+
+    /**
+     * Retourne l'instant de début d'un appel, à repasser à {@link #fin(long)}.
+     * @return l'instant en nanosecondes
+     */
+    public long debut() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Note la fin d'un appel.
+     *
+     * @param debut la valeur rendue par {@link #debut()}
+     */
+    public void fin(long debut) {
+        long ns = System.nanoTime() - debut;
+        appels.increment();
+        totalNs.add(ns);
+        histogramme.incrementAndGet(classe(ns / 1000));
+        long max;
+        while (ns > (max = maxNs.get()) && !maxNs.compareAndSet(max, ns)) {
+            // un autre thread a ecrit un max entre temps, on recompare
+        }
+    }
+
+    /**
+     * Note la fin d'un appel et le nombre de lignes lues ou écrites.
+     *
+     * @param debut la valeur rendue par {@link #debut()}
+     * @param nbLignes le nombre de lignes
+     */
+    public void fin(long debut, int nbLignes) {
+        lignes.add(nbLignes);
+        fin(debut);
+    }
+
+    /**
+     * Ajoute des lignes lues ou écrites, quand on les connaît avant la fin de l'appel.
+     *
+     * @param nbLignes le nombre de lignes
+     */
+    public void lignes(int nbLignes) {
+        lignes.add(nbLignes);
+    }
+
+    /**
+     * Note un appel en erreur ; {@link #fin(long)} doit quand même être appelé.
+     */
+    public void erreur() {
+        erreurs.increment();
+    }
+
+    @Override
+    public long getAppels() {
+        return appels.sum();
+    }
+
+    @Override
+    public long getErreurs() {
+        return erreurs.sum();
+    }
+
+    @Override
+    public long getLignes() {
+        return lignes.sum();
+    }
+
+    @Override
+    public double getMoyenneMs() {
+        long n = appels.sum();
+        return n == 0 ? 0 : totalNs.sum() / 1e6 / n;
+    }
+
+    @Override
+    public double getP50Ms() {
+        return centile(0.50);
+    }
+
+    @Override
+    public double getP95Ms() {
+        return centile(0.95);
+    }
+
+    @Override
+    public double getP99Ms() {
+        return centile(0.99);
+    }
+
+    @Override
+    public double getMaxMs() {
+        return maxNs.get() / 1e6;
+    }
+
+    @Override
+    public void reinitialiser() {
+        // pas atomique, un appel en cours peut etre compte a moitie
+        appels.reset();
+        erreurs.reset();
+        lignes.reset();
+        totalNs.reset();
+        maxNs.set(0);
+        for (int i = 0; i < CLASSES; i++) histogramme.set(i, 0);
+    }
+
+    /**
+     * Calcule un centile des durées.
+     *
+     * @param q le centile voulu, entre 0 et 1
+     * @return la borne haute de la classe qui contient le centile, en millisecondes (0 sans appel)
+     */
+    public double centile(double q) {
+        long[] compte = new long[CLASSES];
+        long total = 0;
+        for (int i = 0; i < CLASSES; i++) {
+            compte[i] = histogramme.get(i);
+            total += compte[i];
+        }
+        if (total == 0) return 0;
+
+        long rang = Math.max(1, (long) Math.ceil(q * total));
+        long vus = 0;
+        for (int i = 0; i < CLASSES; i++) {
+            vus += compte[i];
+            if (vus >= rang) return Math.min(borneHaute(i) / 1000.0, getMaxMs());
+        }
+        return getMaxMs();
+    }
+
+    // 0..3 us : une classe chacune, puis 4 classes par puissance de deux ([4,5[ [5,6[ [6,7[ [7,8[ [8,10[ ...)
+    static int classe(long micros) {
+        if (micros < 4) return (int) Math.max(micros, 0);
+        int exp = 63 - Long.numberOfLeadingZeros(micros);
+        int i = exp * 4 + (int) ((micros >>> (exp - 2)) & 3) - 4;
+        return Math.min(i, CLASSES - 1);
+    }
+
+    // premiere duree (en us) qui n'est plus dans la classe i
+    static long borneHaute(int i) {
+        if (i < 4) return i + 1;
+        int exp = i / 4 + 1;
+        return (long) (4 + i % 4 + 1) << (exp - 2);
+    }
+}
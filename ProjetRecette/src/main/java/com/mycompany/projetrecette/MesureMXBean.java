@@ -0,0 +1,64 @@
+package com.mycompany.projetrecette;
+
+/**
+ * Vue JMX d'une {@link Mesure} : nombre d'appels, erreurs, lignes et durées d'une opération.
+ * Visible dans JConsole ou VisualVM sous {@code com.mycompany.projetrecette:type=Mesures}.
+ *
+ * @author bapti
+ * @version 1.0
+ */
+public interface MesureMXBean {
+
+    /**
+     * Retourne le nombre d'appels terminés, erreurs comprises.
+     * @return le nombre d'appels
+     */
+    long getAppels();
+
+    /**
+     * Retourne le nombre d'appels terminés par une erreur.
+     * @return le nombre d'erreurs
+     */
+    long getErreurs();
+
+    /**
+     * Retourne le nombre total de lignes lues ou écrites.
+     * @return le nombre de lignes
+     */
+    long getLignes();
+
+    /**
+     * Retourne la durée moyenne d'un appel.
+     * @return la moyenne en millisecondes
+     */
+    double getMoyenneMs();
+
+    /**
+     * Retourne la médiane des durées (à 25 % près, voir {@link Mesure}).
+     * @return la médiane en millisecondes
+     */
+    double getP50Ms();
+
+    /**
+     * Retourne le 95e centile des durées.
+     * @return le centile en millisecondes
+     */
+    double getP95Ms();
+
+    /**
+     * Retourne le 99e centile des durées.
+     * @return le centile en millisecondes
+     */
+    double getP99Ms();
+
+    /**
+     * Retourne la durée du plus long appel.
+     * @return le maximum en millisecondes
+     */
+    double getMaxMs();
+
+    /**
+     * Remet les compteurs à zéro.
+     */
+    void reinitialiser();
+}
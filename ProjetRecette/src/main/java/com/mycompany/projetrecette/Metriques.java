@@ -0,0 +1,128 @@
+package com.mycompany.projetrecette;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Registre des {@link Mesure} de l'application (une par méthode de DAO, plus l'emprunt des connexions)
+ * et de l'état du pool de connexions.
+ * <p>
+ * Les mesures se créent une fois, dans un champ statique ; elles ne sont publiées en JMX
+ * ({@code com.mycompany.projetrecette:type=Mesures,name=...}) qu'après {@link #demarrer(ConnectionPool)},
+ * appelé à l'ouverture de la base, pour ne pas charger JMX au démarrage de l'interface.
+ * {@code -Drecette.metriques.jmx=false} désactive la publication.
+ * {@code -Drecette.metriques.periodeS=n} écrit en plus {@link #rapport()} dans la console toutes les n secondes ;
+ * le rapport est de toute façon écrit à la fermeture de la base.
+ *
+ * @author bapti
+ * @version 1.0
+ */
+public final class Metriques {
+
+    private static final String DOMAINE = "com.mycompany.projetrecette";
+
+    private static final Map<String, Mesure> MESURES = new ConcurrentSkipListMap<>(); // par nom pr le rapport
+    private static volatile MBeanServer serveur; // null tant que rien n'est publie
+    private static volatile ConnectionPool pool;
+    private static ScheduledExecutorService rapports;
+
+    private Metriques() {
+        // que du statique
+    }
+
+    /**
+     * Retourne la mesure d'une opération, en la créant (et en la publiant) la première fois.
+     * À garder dans un champ : l'appel passe par une table.
+     *
+     * @param nom le nom de l'opération, par exemple {@code RecetteDAO.getAll}
+     * @return la mesure
+     */
+    public static Mesure mesure(String nom) {
+        Mesure m = MESURES.get(nom);
+        if (m != null) return m;
+
+        Mesure nouvelle = new Mesure(nom);
+        m = MESURES.putIfAbsent(nom, nouvelle);
+        if (m != null) return m; // creee par un autre thread
+        MBeanServer s = serveur;
+        if (s != null) publier(s, "type=Mesures,name=" + nom, nouvelle);
+        return nouvelle;
+    }
+
+    /**
+     * Publie les mesures et le pool en JMX et lance le rapport périodique s'il est demandé.
+     * Sans effet après le premier appel.
+     *
+     * @param pool le pool de connexions de la base
+     */
+    public static synchronized void demarrer(ConnectionPool pool) {
+        if (Metriques.pool != null) return;
+        Metriques.pool = pool;
+
+        if (Boolean.parseBoolean(System.getProperty("recette.metriques.jmx", "true"))) {
+            MBeanServer s = ManagementFactory.getPlatformMBeanServer();
+            publier(s, "type=Pool", pool);
+            serveur = s; // les mesures creees a partir d'ici se publient seules
+            for (Mesure m : MESURES.values()) publier(s, "type=Mesures,name=" + m.getNom(), m);
+        }
+
+        long periode = Long.getLong("recette.metriques.periodeS", 0);
+        if (periode > 0) {
+            rapports = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "metriques-rapport");
+                t.setDaemon(true);
+                return t;
+            });
+            rapports.scheduleAtFixedRate(() -> System.out.print(rapport()), periode, periode, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Arrête le rapport périodique.
+     */
+    public static synchronized void arreter() {
+        if (rapports != null) rapports.shutdownNow();
+        rapports = null;
+    }
+
+    /**
+     * Met en forme l'état du pool et toutes les mesures qui ont servi, une ligne chacune.
+     *
+     * @return le rapport, terminé par un retour à la ligne
+     */
+    public static String rapport() {
+        StringBuilder sb = new StringBuilder("Métriques :\n");
+        ConnectionPool p = pool;
+        if (p != null) {
+            sb.append(String.format("  pool : %d/%d connexions (%d prêtées, %d libres), %d en attente, %d ouvertes, %d invalides%n",
+                    p.getTotal(), p.getMax(), p.getActives(), p.getLibres(), p.getAttentes(),
+                    p.getOuvertures(), p.getInvalides()));
+        }
+        for (Mesure m : MESURES.values()) {
+            long appels = m.getAppels();
+            if (appels == 0) continue; // jamais appelee, pas la peine
+            sb.append(String.format("  %-32s %7d appels %5d erreurs %9d lignes  moy %8.2f  p50 %8.2f  p95 %8.2f  p99 %8.2f  max %8.2f ms%n",
+                    m.getNom(), appels, m.getErreurs(), m.getLignes(), m.getMoyenneMs(),
+                    m.getP50Ms(), m.getP95Ms(), m.getP99Ms(), m.getMaxMs()));
+        }
+        return sb.toString();
+    }
+
+    private static void publier(MBeanServer s, String cle, Object mbean) {
+        try {
+            s.registerMBean(mbean, new ObjectName(DOMAINE + ":" + cle));
+        } catch (InstanceAlreadyExistsException e) {
+            // publiee entre temps par demarrer() ou mesure()
+        } catch (JMException e) {
+            System.out.println("Publication JMX impossible (" + cle + ") : " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.mycompany.projetrecette;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Applique les évolutions du schéma de la base de données.
+ * Elles ne sont appliquées que sur demande (option {@code --migrer} du {@link Lanceur}) :
+ * au démarrage normal, l'application vérifie seulement qu'aucune n'est en attente.
+ * Chaque script de {@code /sql} est exécuté une seule fois, dans sa propre transaction,
+ * et sa version est enregistrée dans la table {@code schema_version}.
+ * Les migrations qui ne peuvent pas s'écrire en SQL (analyse des quantités par exemple)
+ * sont des étapes java, numérotées dans la même suite que les scripts.
+ * Un verrou consultatif évite que deux postes appliquent la même migration en même temps.
+ *
+ * @author bapti
+ * @version 1.0
+ */
+public class Migrations {
+
+    private static final long VERROU = 0x52454345545445L; // cle du pg_advisory_xact_lock
+
+    private static final int LOT_QUANTITES = 500; // lignes par UPDATE pr la migration des quantites
+
+    // les scripts dans l'ordre, la version c'est la position dans le tableau + 1
+    // (sans .sql c'est une etape java de ETAPES_JAVA)
+    private static final String[] SCRIPTS = {
+        "V1__ingredients_nom_unique.sql",
+        "V2__quantites_typees.sql",
+        "V3__quantites_existantes",
+        "V4__notifications.sql",
+        "V5__tri_francais.sql",
+        "V6__recherche_texte.sql",
+        "V7__journal_recettes.sql",
+        "V8__journal_transactions.sql"
+    };
+
+    private static final Map<String, EtapeJava> ETAPES_JAVA = Map.of(
+        "V3__quantites_existantes", Migrations::analyserQuantites
+    );
+
+    /**
+     * Une migration écrite en java, exécutée dans la transaction de sa version.
+     */
+    @FunctionalInterface
+    private interface EtapeJava {
+        void appliquer(Connection conn, ConnectionPool pool) throws SQLException;
+    }
+
+    private Migrations() {
+        // que des methodes statiques
+    }
+
+    /**
+     * Compte les migrations pas encore appliquées, sans rien modifier.
+     *
+     * @param conn une connexion à la base
+     * @return le nombre de migrations en attente (toutes si la base n'a jamais été migrée)
+     * @throws SQLException si la lecture de {@code schema_version} échoue
+     */
+    public static int enAttente(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            try (ResultSet rs = st.executeQuery("SELECT to_regclass('schema_version') IS NULL")) {
+                rs.next();
+                if (rs.getBoolean(1)) return SCRIPTS.length; // jamais migree
+            }
+            try (ResultSet rs = st.executeQuery(
+                    "SELECT count(*) FROM schema_version WHERE version <= " + SCRIPTS.length)) {
+                rs.next();
+                return SCRIPTS.length - rs.getInt(1);
+            }
+        }
+    }
+
+    /**
+     * Applique les migrations qui ne l'ont pas encore été.
+     *
+     * @param conn une connexion à la base
+     * @param pool le pool, pour les étapes java qui travaillent en parallèle
+     * @throws SQLException si une migration échoue ; un script SQL est alors annulé, une étape java
+     *         peut avoir déjà écrit une partie de son travail (voir {@link #analyserQuantites})
+     */
+    public static void appliquer(Connection conn, ConnectionPool pool) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.execute("CREATE TABLE IF NOT EXISTS schema_version ("
+                    + "version INT PRIMARY KEY, "
+                    + "script TEXT NOT NULL, "
+                    + "applique_le TIMESTAMPTZ NOT NULL DEFAULT now())");
+        }
+
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            for (int i = 0; i < SCRIPTS.length; i++) {
+                appliquer(conn, pool, i + 1, SCRIPTS[i]);
+            }
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static void appliquer(Connection conn, ConnectionPool pool, int version, String script)
+            throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.execute("SELECT pg_advisory_xact_lock(" + VERROU + ")"); // un seul poste a la fois
+
+            try (ResultSet rs = st.executeQuery("SELECT 1 FROM schema_version WHERE version = " + version)) {
+                if (rs.next()) {
+                    conn.commit(); // deja appliquee, on relache le verrou
+                    return;
+                }
+            }
+
+            if (script.endsWith(".sql")) {
+                st.execute(lire(script));
+            } else {
+                ETAPES_JAVA.get(script).appliquer(conn, pool);
+            }
+            st.execute("INSERT INTO schema_version(version, script) VALUES (" + version + ", '" + script + "')");
+            conn.commit();
+            System.out.println("Migration appliquée : " + script);
+
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        }
+    }
+
+    /**
+     * Remplit {@code montant} et {@code unite} des liens existants à partir du texte de la quantité.
+     * Les lignes sont analysées par lots en parallèle, chaque lot est écrit avec un seul UPDATE
+     * sur sa propre connexion du pool, en autocommit : cette étape n'est donc pas transactionnelle,
+     * un lot écrit reste écrit même si la migration échoue ensuite. Elle est idempotente :
+     * seules les lignes où {@code montant IS NULL} sont touchées, on peut la relancer sans risque.
+     * S'il ne reste aucune connexion libre dans le pool (pool de 1), les lots sont écrits
+     * un par un sur la connexion de la migration, dans sa transaction.
+     */
+    private static void analyserQuantites(Connection conn, ConnectionPool pool) throws SQLException {
+        List<Integer> recettes = new ArrayList<>();
+        List<Integer> ingredients = new ArrayList<>();
+        List<String> textes = new ArrayList<>();
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT recette_id, ingredient_id, quantite FROM recette_ingredients "
+                     + "WHERE montant IS NULL AND quantite IS NOT NULL")) {
+            while (rs.next()) {
+                recettes.add(rs.getInt(1));
+                ingredients.add(rs.getInt(2));
+                textes.add(rs.getString(3));
+            }
+        }
+        if (textes.isEmpty()) return;
+
+        // la connexion de la migration est deja prise, on ne compte que les places restantes
+        int threads = Math.min(4, pool.getDisponibles());
+        if (threads == 0) {
+            int analysees = 0;
+            for (int debut = 0; debut < textes.size(); debut += LOT_QUANTITES) {
+                int f = Math.min(debut + LOT_QUANTITES, textes.size());
+                analysees += ecrireLot(conn, recettes.subList(debut, f), ingredients.subList(debut, f),
+                        textes.subList(debut, f));
+            }
+            System.out.println("Quantités analysées : " + analysees + " / " + textes.size());
+            return;
+        }
+
+        ExecutorService executeur = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> lots = new ArrayList<>();
+            for (int debut = 0; debut < textes.size(); debut += LOT_QUANTITES) {
+                int d = debut;
+                int f = Math.min(debut + LOT_QUANTITES, textes.size());
+                lots.add(executeur.submit(() -> {
+                    try (Connection c = pool.getConnection()) {
+                        return ecrireLot(c, recettes.subList(d, f), ingredients.subList(d, f), textes.subList(d, f));
+                    }
+                }));
+            }
+
+            int analysees = 0;
+            for (Future<Integer> lot : lots) analysees += lot.get();
+            System.out.println("Quantités analysées : " + analysees + " / " + textes.size());
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Migration des quantités interrompue", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) throw (SQLException) cause;
+            throw new SQLException("Migration des quantités impossible", cause);
+        } finally {
+            executeur.shutdownNow();
+        }
+    }
+
+    // analyse un lot et l'ecrit en un seul UPDATE ... FROM unnest(...), retourne le nb de lignes chiffrees
+    private static int ecrireLot(Connection c, List<Integer> recettes, List<Integer> ingredients,
+                                 List<String> textes) throws SQLException {
+        List<Integer> r = new ArrayList<>();
+        List<Integer> i = new ArrayList<>();
+        List<String> q = new ArrayList<>();
+        List<String> montants = new ArrayList<>();
+        List<String> unites = new ArrayList<>();
+        for (int k = 0; k < textes.size(); k++) {
+            Quantite mesure = Quantite.parser(textes.get(k));
+            BigDecimal montant = mesure.getMontant();
+            if (montant == null) continue; // pas de nombre, reste NULL
+            r.add(recettes.get(k));
+            i.add(ingredients.get(k));
+            q.add(textes.get(k));
+            montants.add(montant.toPlainString());
+            unites.add(mesure.getUnite());
+        }
+        if (r.isEmpty()) return 0;
+
+        String sql = "UPDATE recette_ingredients ri SET montant = u.m::numeric, unite = u.un "
+                + "FROM unnest(?::int[], ?::int[], ?::text[], ?::text[], ?::text[]) AS u(r, i, q, m, un) "
+                + "WHERE ri.recette_id = u.r AND ri.ingredient_id = u.i AND ri.quantite = u.q AND ri.montant IS NULL";
+        try (PreparedStatement pst = c.prepareStatement(sql)) {
+            pst.setArray(1, c.createArrayOf("integer", r.toArray()));
+            pst.setArray(2, c.createArrayOf("integer", i.toArray()));
+            pst.setArray(3, c.createArrayOf("text", q.toArray()));
+            pst.setArray(4, c.createArrayOf("text", montants.toArray()));
+            pst.setArray(5, c.createArrayOf("text", unites.toArray()));
+            pst.executeUpdate();
+        }
+        return r.size();
+    }
+
+    private static String lire(String script) throws SQLException {
+        try (InputStream in = Migrations.class.getResourceAsStream("/sql/" + script)) {
+            if (in == null) throw new SQLException("Script de migration introuvable : " + script);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new SQLException("Lecture impossible du script " + script, e);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.mycompany.projetrecette;
+
+/**
+ * Façon de lire le texte d'une recherche plein texte ({@link Stockage#search(String, ModeRecherche, int)}).
+ *
+ * @author bapti
+ * @version 1.0
+ */
+public enum ModeRecherche {
+
+    /**
+     * Des mots, tous obligatoires, avec la syntaxe d'un moteur de recherche :
+     * "entre guillemets" pour une expression, {@code or} pour un choix, {@code -mot} pour exclure.
+     */
+    MOTS,
+
+    /** Les mots dans cet ordre, les uns à la suite des autres. */
+    PHRASE,
+
+    /** Des débuts de mots, tous obligatoires : pour chercher pendant la frappe ("pom tar" trouve "Tarte aux pommes"). */
+    PREFIXE
+}
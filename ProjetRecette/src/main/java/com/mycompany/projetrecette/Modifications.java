@@ -0,0 +1,90 @@
+package com.mycompany.projetrecette;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ce qui a changé dans le catalogue depuis un numéro du journal des recettes
+ * (voir {@link Stockage#getModifications(long)}) : les recettes créées ou modifiées avec leurs
+ * ingrédients, les recettes supprimées, et le numéro à redemander la prochaine fois.
+ * Quand il est {@link #isComplet() complet}, c'est tout le catalogue et non un delta.
+ *
+ * @author bapti
+ * @version 1.0
+ */
+public final class Modifications {
+
+    private final long numero;
+    private final boolean complet;
+    private final List<Recette> recettes;
+    private final Map<Integer, List<IngredientRecette>> ingredients;
+    private final List<Integer> supprimees;
+
+    /**
+     * Crée un ensemble de modifications.
+     *
+     * @param numero le numéro du journal jusqu'où elles vont
+     * @param complet true si {@code recettes} est tout le catalogue
+     * @param recettes les recettes créées ou modifiées (toutes si complet)
+     * @param ingredients les ingrédients de ces recettes, par identifiant
+     * @param supprimees les identifiants des recettes supprimées
+     */
+    public Modifications(long numero, boolean complet, List<Recette> recettes,
+                         Map<Integer, List<IngredientRecette>> ingredients, List<Integer> supprimees) {
+        this.numero = numero;
+        this.complet = complet;
+        this.recettes = recettes;
+        this.ingredients = ingredients;
+        this.supprimees = supprimees;
+    }
+
+    /**
+     * Retourne une copie avec les ingrédients des recettes.
+     *
+     * @param ingredients les ingrédients par identifiant de recette
+     * @return les mêmes modifications, avec ces ingrédients
+     */
+    public Modifications avecIngredients(Map<Integer, List<IngredientRecette>> ingredients) {
+        return new Modifications(numero, complet, recettes, ingredients, supprimees);
+    }
+
+    /**
+     * Retourne le numéro du journal à redemander la prochaine fois.
+     * @return le numéro lu avant les recettes (voir {@link RecetteDAO#getModifications(long)})
+     */
+    public long getNumero() {
+        return numero;
+    }
+
+    /**
+     * Indique si les recettes sont tout le catalogue (premier lancement).
+     * @return true pour tout remplacer, false pour un delta
+     */
+    public boolean isComplet() {
+        return complet;
+    }
+
+    /**
+     * Retourne les recettes créées ou modifiées.
+     * @return les recettes
+     */
+    public List<Recette> getRecettes() {
+        return recettes;
+    }
+
+    /**
+     * Retourne les ingrédients des recettes créées ou modifiées.
+     * @return les ingrédients par identifiant de recette (absentes si elles n'en ont pas)
+     */
+    public Map<Integer, List<IngredientRecette>> getIngredients() {
+        return ingredients;
+    }
+
+    /**
+     * Retourne les identifiants des recettes supprimées.
+     * @return les identifiants
+     */
+    public List<Integer> getSupprimees() {
+        return supprimees;
+    }
+}
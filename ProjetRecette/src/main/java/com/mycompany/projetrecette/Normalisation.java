@@ -0,0 +1,44 @@
+package com.mycompany.projetrecette;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Classe utilitaire pour normaliser du texte avant une recherche.
+ * Met en minuscules et enlève les accents, pour que "entree" trouve "Entrée".
+ *
+ * @author bapti
+ * @version 1.0
+ */
+public class Normalisation {
+
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+"); // les marques diacritiques apres NFD
+
+    private Normalisation() {
+        // classe utilitaire
+    }
+
+    /**
+     * Normalise un texte : minuscules et sans accents.
+     *
+     * @param texte le texte à normaliser (peut être null)
+     * @return le texte normalisé, ou une chaîne vide si null
+     */
+    public static String normaliser(String texte) {
+        if (texte == null) return "";
+
+        boolean ascii = true;
+        for (int i = 0; i < texte.length(); i++) {
+            if (texte.charAt(i) > 127) {
+                ascii = false;
+                break;
+            }
+        }
+        // cas le plus courant, pas besoin de passer par le Normalizer
+        if (ascii) return texte.toLowerCase(Locale.ROOT);
+
+        String decompose = Normalizer.normalize(texte, Normalizer.Form.NFD); // é -> e + accent
+        return ACCENTS.matcher(decompose).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+}
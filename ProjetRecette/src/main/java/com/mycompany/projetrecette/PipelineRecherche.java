@@ -0,0 +1,220 @@
+package com.mycompany.projetrecette;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import javafx.animation.Animation;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
+import javafx.util.Duration;
+
+/**
+ * Recherche en arrière-plan pour la table des recettes.
+ * Les frappes sont regroupées (debounce), chaque nouvelle recherche annule celle en cours,
+ * et les changements de la liste (pages chargées, notifications) ne relancent la recherche
+ * qu'une fois par délai ; un tri, qui remet les mêmes recettes, ne la relance pas.
+ * La comparaison se fait sur un thread de travail et le résultat est publié
+ * sur le thread JavaFX sous forme de prédicat d'une {@link FilteredList}.
+ * La recherche "Texte" (nom, ingrédients et instructions) est faite par le stockage, qui ne renvoie
+ * que les meilleures recettes, classées : elles sont affichées dans une liste à part
+ * (voir {@link #afficheesProperty()}), et peuvent ne pas être encore chargées dans la table.
+ *
+ * @author bapti
+ * @version 1.0
+ */
+public class PipelineRecherche {
+
+    private final FilteredList<Recette> resultats;
+    private final RechercheRecettes moteur;
+    private final Function<String, CompletableFuture<List<Recette>>> pleinTexte; // livre sur le thread FX
+    private final ObservableList<Recette> classees = FXCollections.observableArrayList();
+    private final ReadOnlyObjectWrapper<ObservableList<Recette>> affichees;
+    private final PauseTransition attente; // le debounce
+    private final ExecutorService executeur;
+
+    private Future<?> enCours; // la recherche en cours, a annuler si on tape encore
+    private long generation; // pr ignorer le resultat d'une recherche depassee
+    private String texte = "";
+    private String type = "Nom";
+
+    /**
+     * Crée le pipeline de recherche. Doit être appelé sur le thread JavaFX.
+     *
+     * @param source la liste complète des recettes
+     * @param moteur le moteur qui fait la comparaison
+     * @param pleinTexte la recherche "Texte", résultat livré sur le thread JavaFX
+     *                   (par exemple {@link AsyncDAO#search(String, ModeRecherche, int)})
+     * @param delai le temps sans frappe avant de lancer la recherche
+     */
+    public PipelineRecherche(ObservableList<Recette> source, RechercheRecettes moteur,
+                             Function<String, CompletableFuture<List<Recette>>> pleinTexte, Duration delai) {
+        this.resultats = new FilteredList<>(source);
+        this.moteur = moteur;
+        this.pleinTexte = pleinTexte;
+        this.affichees = new ReadOnlyObjectWrapper<>(resultats);
+
+        attente = new PauseTransition(delai);
+        attente.setOnFinished(e -> lancer());
+
+        executeur = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "recherche");
+            t.setDaemon(true);
+            return t;
+        });
+
+        // si des recettes sont ajoutees, modifiees ou retirees il faut refaire la recherche (un tri ne change rien)
+        // les index du moteur sont deja a jour, le DAO les previent avant qu'on recharge la liste
+        source.addListener((ListChangeListener<Recette>) c -> {
+            if (texte.isEmpty()) return; // pas de filtre, la FilteredList suit toute seule
+            if (type.equals("Texte")) {
+                suivreClassees(c); // le classement vient de la base, on ne refait pas la requete
+                return;
+            }
+            if (memesRecettes(c)) return;
+            // au plus une recherche par delai, meme quand les pages arrivent en continu
+            if (attente.getStatus() != Animation.Status.RUNNING) attente.playFromStart();
+        });
+    }
+
+    /**
+     * Retourne la liste filtrée à afficher dans la table.
+     *
+     * @return les recettes correspondant à la dernière recherche
+     */
+    public FilteredList<Recette> getResultats() {
+        return resultats;
+    }
+
+    /**
+     * La liste à afficher : {@link #getResultats()}, ou les recettes classées
+     * de la dernière recherche "Texte".
+     *
+     * @return la propriété de la liste affichée
+     */
+    public ReadOnlyObjectProperty<ObservableList<Recette>> afficheesProperty() {
+        return affichees.getReadOnlyProperty();
+    }
+
+    /**
+     * Demande une recherche. Elle ne part qu'après le délai sans nouvelle demande.
+     *
+     * @param texte le texte recherché
+     * @param type le type de recherche : "Nom", "Genre", "Ingrédient" ou "Texte"
+     */
+    public void demander(String texte, String type) {
+        this.texte = texte == null ? "" : texte;
+        this.type = type;
+        attente.playFromStart(); // chaque frappe relance le compte a rebours
+    }
+
+    /**
+     * Relance tout de suite la dernière recherche, par exemple quand un index vient d'être chargé.
+     */
+    public void relancer() {
+        if (!texte.isEmpty()) lancer();
+    }
+
+    /**
+     * Arrête le thread de recherche.
+     */
+    public void arreter() {
+        attente.stop();
+        executeur.shutdownNow();
+    }
+
+    // true si la modification ne fait que remettre les memes objets (un tri avec setAll, une permutation)
+    private static boolean memesRecettes(ListChangeListener.Change<? extends Recette> c) {
+        Set<Recette> retirees = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Recette> ajoutees = new ArrayList<>();
+        while (c.next()) {
+            if (c.wasPermutated()) continue;
+            retirees.addAll(c.getRemoved());
+            ajoutees.addAll(c.getAddedSubList());
+        }
+        c.reset();
+        if (ajoutees.size() != retirees.size()) return false;
+        for (Recette r : ajoutees) {
+            if (!retirees.contains(r)) return false;
+        }
+        return true;
+    }
+
+    // recherche "Texte" affichee : une recette modifiee remplace son ancienne version, une supprimee disparait ;
+    // les pages chargees et les tris ne changent rien au classement fait par la base
+    private void suivreClassees(ListChangeListener.Change<? extends Recette> c) {
+        if (classees.isEmpty()) return;
+        Map<Integer, Recette> ajoutees = new HashMap<>();
+        Set<Integer> retirees = new HashSet<>();
+        while (c.next()) {
+            if (c.wasPermutated()) continue;
+            for (Recette r : c.getRemoved()) retirees.add(r.getIdRecette());
+            for (Recette r : c.getAddedSubList()) ajoutees.put(r.getIdRecette(), r);
+        }
+        c.reset();
+
+        for (int i = classees.size() - 1; i >= 0; i--) {
+            int id = classees.get(i).getIdRecette();
+            Recette nouvelle = ajoutees.get(id);
+            if (nouvelle != null) {
+                if (nouvelle != classees.get(i)) classees.set(i, nouvelle);
+            } else if (retirees.contains(id)) {
+                classees.remove(i);
+            }
+        }
+    }
+
+    // lance la recherche sur le thread de travail (appele sur le thread FX)
+    private void lancer() {
+        if (enCours != null) enCours.cancel(true); // la precedente ne sert plus a rien
+        long maGeneration = ++generation;
+
+        if (texte.isEmpty()) {
+            resultats.setPredicate(null); // recherche vide : on affiche tout
+            affichees.set(resultats);
+            return;
+        }
+
+        String t = texte;
+        String ty = type;
+
+        if (ty.equals("Texte")) { // c'est le stockage qui cherche et classe
+            enCours = null;
+            pleinTexte.apply(t).thenAccept(trouvees -> {
+                if (maGeneration == generation) {
+                    classees.setAll(trouvees);
+                    affichees.set(classees);
+                }
+            });
+            return;
+        }
+
+        enCours = executeur.submit(() -> {
+            int[] ids = moteur.rechercher(t, ty); // tries, on peut faire une recherche dichotomique
+            if (Thread.currentThread().isInterrupted()) return; // annulee entre temps
+
+            Platform.runLater(() -> {
+                if (maGeneration == generation) {
+                    resultats.setPredicate(r -> Arrays.binarySearch(ids, r.getIdRecette()) >= 0);
+                    affichees.set(resultats);
+                }
+            });
+        });
+    }
+}
@@ -0,0 +1,72 @@
+package com.mycompany.projetrecette;
+
+/**
+ * Vue JMX de l'état du {@link ConnectionPool} : connexions ouvertes, prêtées, en attente
+ * et connexions jetées. Les durées d'emprunt sont dans la mesure {@code Pool.emprunt}.
+ *
+ * @author bapti
+ * @version 1.0
+ */
+public interface PoolConnexionsMXBean {
+
+    /**
+     * Retourne le nombre maximum de connexions du pool.
+     * @return la taille maximale
+     */
+    int getMax();
+
+    /**
+     * Retourne le nombre de connexions physiques ouvertes.
+     * @return le nombre total de connexions
+     */
+    int getTotal();
+
+    /**
+     * Retourne le nombre de connexions actuellement empruntées.
+     * @return le nombre de connexions actives
+     */
+    int getActives();
+
+    /**
+     * Retourne le nombre de connexions libres dans le pool.
+     * @return le nombre de connexions inactives
+     */
+    int getLibres();
+
+    /**
+     * Retourne le nombre de connexions qu'on peut encore emprunter sans attendre.
+     * @return le nombre de places disponibles
+     */
+    int getDisponibles();
+
+    /**
+     * Retourne le nombre de threads qui attendent une connexion.
+     * @return le nombre d'emprunts en attente
+     */
+    int getAttentes();
+
+    /**
+     * Retourne le nombre de connexions physiques ouvertes depuis le démarrage.
+     * @return le nombre d'ouvertures
+     */
+    long getOuvertures();
+
+    /**
+     * Retourne le nombre de connexions jetées parce qu'elles ne répondaient plus.
+     * @return le nombre de connexions invalides
+     */
+    long getInvalides();
+
+    /**
+     * Retourne le nombre de {@code prepareStatement} déjà vus sur la même connexion,
+     * donc servis par le cache d'instructions du driver.
+     * @return le nombre de réutilisations
+     */
+    long getInstructionsReutilisees();
+
+    /**
+     * Retourne le nombre de {@code prepareStatement} dont le texte SQL n'était pas (ou plus) dans ce cache.
+     * @return le nombre d'instructions préparées
+     */
+    long getInstructionsPreparees();
+}
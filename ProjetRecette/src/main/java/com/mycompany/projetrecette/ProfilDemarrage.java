@@ -0,0 +1,51 @@
+package com.mycompany.projetrecette;
+
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mesure les étapes du démarrage de l'application et les écrit dans la console,
+ * avec le temps depuis la création du profil et depuis le lancement de la JVM.
+ * Peut être appelé depuis n'importe quel thread.
+ *
+ * @author bapti
+ * @version 1.0
+ */
+public class ProfilDemarrage {
+
+    private final long debut = System.nanoTime();
+    private final long lancementJvm; // en ms depuis l'epoque, -1 si inconnu
+    private final Set<String> vues = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Crée le profil, le temps de référence est celui de la création.
+     */
+    public ProfilDemarrage() {
+        lancementJvm = ProcessHandle.current().info().startInstant()
+                .map(Instant::toEpochMilli).orElse(-1L);
+    }
+
+    /**
+     * Note une étape du démarrage. Une étape déjà notée est ignorée
+     * (par exemple la première page, qui arrive à chaque rechargement).
+     *
+     * @param nom le nom de l'étape
+     */
+    public void etape(String nom) {
+        if (!vues.add(nom)) return;
+        long ms = (System.nanoTime() - debut) / 1_000_000;
+        String jvm = lancementJvm < 0 ? "" : ", " + (System.currentTimeMillis() - lancementJvm) + " ms depuis la JVM";
+        System.out.println("Démarrage : " + nom + " à +" + ms + " ms" + jvm);
+    }
+
+    /**
+     * Indique si une étape a déjà été notée.
+     *
+     * @param nom le nom de l'étape
+     * @return true si l'étape a été notée
+     */
+    public boolean estPassee(String nom) {
+        return vues.contains(nom);
+    }
+}
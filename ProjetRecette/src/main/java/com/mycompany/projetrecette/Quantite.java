@@ -0,0 +1,440 @@
+package com.mycompany.projetrecette;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Quantité d'un ingrédient analysée une seule fois : un nombre exact (gardé en fraction)
+ * et une unité normalisée.
+ * Comprend les entiers ("250g"), les décimaux avec point ou virgule ("0,5 L", "1.5kg"),
+ * les fractions ("1/2", "1 1/2 verre") et ½, ¼, ¾. Un texte sans nombre ("une pincée", "1/0")
+ * est gardé tel quel, sans unité, et n'est jamais mis à l'échelle.
+ * Les calculs se font en fractions d'entiers, il n'y a donc pas d'erreur d'arrondi
+ * quand on change plusieurs fois le nombre de personnes. Un nombre de plus de {@value #CHIFFRES_MAX}
+ * chiffres est gardé comme un texte sans nombre, et une fraction qui ne tient plus dans un {@code long} après un calcul
+ * est arrondie au millionième, comme la colonne {@code montant}.
+ *
+ * @author bapti
+ * @version 1.0
+ */
+public final class Quantite {
+
+    // unite telle qu'ecrite (en minuscules, sans accents) -> unite normalisee
+    private static final Map<String, String> UNITES = new HashMap<>();
+    // unite normalisee -> unite de base et facteur, pr additionner g et kg par exemple
+    private static final Map<String, Conversion> CONVERSIONS = new HashMap<>();
+
+    /** Le nombre maximum de chiffres d'un entier, d'un numérateur ou d'un dénominateur saisi. */
+    static final int CHIFFRES_MAX = 9;
+
+    // montant * num / den donne le montant dans l'unite de base
+    private record Conversion(String base, long num, long den) {
+    }
+
+    static {
+        for (String u : new String[] { "g", "gr", "gramme", "grammes" }) UNITES.put(u, "g");
+        for (String u : new String[] { "kg", "kilo", "kilos", "kilogramme", "kilogrammes" }) UNITES.put(u, "kg");
+        for (String u : new String[] { "mg", "milligramme", "milligrammes" }) UNITES.put(u, "mg");
+        for (String u : new String[] { "l", "litre", "litres" }) UNITES.put(u, "l");
+        for (String u : new String[] { "dl", "decilitre", "decilitres" }) UNITES.put(u, "dl");
+        for (String u : new String[] { "cl", "centilitre", "centilitres" }) UNITES.put(u, "cl");
+        for (String u : new String[] { "ml", "millilitre", "millilitres" }) UNITES.put(u, "ml");
+
+        CONVERSIONS.put("mg", new Conversion("g", 1, 1000));
+        CONVERSIONS.put("g", new Conversion("g", 1, 1));
+        CONVERSIONS.put("kg", new Conversion("g", 1000, 1));
+        CONVERSIONS.put("ml", new Conversion("ml", 1, 1));
+        CONVERSIONS.put("cl", new Conversion("ml", 10, 1));
+        CONVERSIONS.put("dl", new Conversion("ml", 100, 1));
+        CONVERSIONS.put("l", new Conversion("ml", 1000, 1));
+    }
+
+    private static final Quantite VIDE = new Quantite("", 0, 0, "", null, false, false, ',');
+
+    private final String texte; // le texte d'origine
+    private final long numerateur;
+    private final long denominateur; // > 0 si la quantite a un nombre, fraction irreductible
+    private final String uniteTexte; // l'unite comme elle a ete ecrite
+    private final String unite; // normalisee : g, kg, ml, l... ou le texte en minuscules sans accents, null sans nombre
+    private final boolean espace; // un espace entre le nombre et l'unite
+    private final boolean fraction; // ecrite en fraction, on la reecrit pareil
+    private final char separateur; // '.' ou ',' pr les decimaux
+
+    private Quantite(String texte, long numerateur, long denominateur, String uniteTexte, String unite,
+                     boolean espace, boolean fraction, char separateur) {
+        this.texte = texte;
+        this.numerateur = numerateur;
+        this.denominateur = denominateur;
+        this.uniteTexte = uniteTexte;
+        this.unite = unite;
+        this.espace = espace;
+        this.fraction = fraction;
+        this.separateur = separateur;
+    }
+
+    /**
+     * Crée une quantité à partir d'un montant et d'une unité déjà connus.
+     *
+     * @param numerateur le numérateur du montant
+     * @param denominateur le dénominateur du montant (strictement positif)
+     * @param unite l'unité (peut être vide)
+     * @return la quantité
+     */
+    public static Quantite de(long numerateur, long denominateur, String unite) {
+        if (denominateur <= 0) throw new IllegalArgumentException("Dénominateur invalide : " + denominateur);
+        long p = pgcd(Math.abs(numerateur), denominateur);
+        String u = unite == null ? "" : unite.trim();
+        String norme = normaliserUnite(u);
+        // "250g" mais "2 cuilleres"
+        return new Quantite(null, numerateur / p, denominateur / p, u, norme,
+                !u.isEmpty() && !CONVERSIONS.containsKey(norme), false, ',');
+    }
+
+    /**
+     * Analyse le texte d'une quantité.
+     *
+     * @param texte la quantité saisie (ex : "250g", "0,5 L", "1/2", "2 cuillères")
+     * @return la quantité, jamais null (sans nombre si le texte n'en commence pas par un)
+     */
+    public static Quantite parser(String texte) {
+        if (texte == null) return VIDE;
+        String t = texte.trim();
+        int n = t.length();
+        if (n > 30) return sansNombre(texte); // pas une quantite, et on evite les debordements
+        int i = 0;
+
+        long num = 0;
+        long den = 1;
+        boolean enFraction = false;
+        char sep = ',';
+
+        int debut = i;
+        while (i < n && chiffre(t.charAt(i))) num = num * 10 + (t.charAt(i++) - '0');
+        boolean entier = i > debut;
+        if (i - debut > CHIFFRES_MAX) return sansNombre(texte); // num a deborde
+
+        if (entier && i + 1 < n && (t.charAt(i) == '.' || t.charAt(i) == ',') && chiffre(t.charAt(i + 1))) {
+            // decimal : 1.5 -> 15/10
+            sep = t.charAt(i++);
+            while (i < n && chiffre(t.charAt(i))) {
+                if (den < 1_000_000) { // au-dela les decimales ne servent a rien
+                    num = num * 10 + (t.charAt(i) - '0');
+                    den *= 10;
+                }
+                i++;
+            }
+        } else if (entier && i + 1 < n && t.charAt(i) == '/' && chiffre(t.charAt(i + 1))) {
+            // fraction : 1/2
+            int debutDen = ++i;
+            long d = 0;
+            while (i < n && chiffre(t.charAt(i))) d = d * 10 + (t.charAt(i++) - '0');
+            if (d == 0 || i - debutDen > CHIFFRES_MAX) return sansNombre(texte);
+            den = d;
+            enFraction = true;
+        } else if (entier && i + 3 < n && t.charAt(i) == ' ' && chiffre(t.charAt(i + 1))) {
+            // fraction mixte : 1 1/2
+            int j = i + 1;
+            long a = 0;
+            while (j < n && chiffre(t.charAt(j))) a = a * 10 + (t.charAt(j++) - '0');
+            if (j - i - 1 > CHIFFRES_MAX) return sansNombre(texte);
+            if (j + 1 < n && t.charAt(j) == '/' && chiffre(t.charAt(j + 1))) {
+                int debutDen = ++j;
+                long d = 0;
+                while (j < n && chiffre(t.charAt(j))) d = d * 10 + (t.charAt(j++) - '0');
+                if (j - debutDen > CHIFFRES_MAX) return sansNombre(texte);
+                if (d > 0) {
+                    num = num * d + a;
+                    den = d;
+                    enFraction = true;
+                    i = j;
+                }
+            }
+        }
+
+        // ½ ¼ ¾, seuls ou apres un entier
+        if (i < n && den == 1 && fractionUnicode(t.charAt(i)) != 0) {
+            int f = fractionUnicode(t.charAt(i++));
+            num = num * 4 + f; // en quarts
+            den = 4;
+            enFraction = true;
+            entier = true;
+        }
+
+        if (!entier) return sansNombre(texte);
+
+        boolean espace = i < n && Character.isWhitespace(t.charAt(i));
+        String uniteTexte = t.substring(i).trim();
+        long p = pgcd(num, den);
+        return new Quantite(texte, num / p, den / p, uniteTexte, normaliserUnite(uniteTexte),
+                espace, enFraction, sep);
+    }
+
+    /**
+     * Indique si la quantité commence par un nombre et peut donc être mise à l'échelle.
+     * @return true si la quantité a un nombre
+     */
+    public boolean isChiffree() {
+        return denominateur > 0;
+    }
+
+    /**
+     * Retourne le numérateur du montant (fraction irréductible).
+     * @return le numérateur
+     */
+    public long getNumerateur() {
+        return numerateur;
+    }
+
+    /**
+     * Retourne le dénominateur du montant (fraction irréductible).
+     * @return le dénominateur, 0 si la quantité n'a pas de nombre
+     */
+    public long getDenominateur() {
+        return denominateur;
+    }
+
+    /**
+     * Retourne le montant en décimal.
+     * @return le montant, ou NaN si la quantité n'a pas de nombre
+     */
+    public double getValeur() {
+        return isChiffree() ? (double) numerateur / denominateur : Double.NaN;
+    }
+
+    /**
+     * Retourne le montant en décimal exact, ou à 6 décimales pour les fractions comme 1/3
+     * (c'est ce qui est enregistré dans la colonne {@code montant}).
+     * @return le montant, ou null si la quantité n'a pas de nombre
+     */
+    public BigDecimal getMontant() {
+        if (!isChiffree()) return null;
+        BigDecimal n = BigDecimal.valueOf(numerateur);
+        if (denominateur == 1) return n;
+        return n.divide(BigDecimal.valueOf(denominateur), 6, RoundingMode.HALF_UP).stripTrailingZeros();
+    }
+
+    /**
+     * Retourne l'unité normalisée (g, kg, mg, ml, cl, dl, l, ou le texte de l'unité
+     * en minuscules et sans accents pour les autres).
+     * @return l'unité, vide s'il n'y en a pas, null si la quantité n'a pas de nombre
+     */
+    public String getUnite() {
+        return unite;
+    }
+
+    /**
+     * Retourne l'unité comme elle a été saisie.
+     * @return l'unité saisie
+     */
+    public String getUniteTexte() {
+        return uniteTexte;
+    }
+
+    /**
+     * Retourne l'unité de base dans laquelle convertir pour additionner
+     * (g pour les masses, ml pour les volumes, l'unité elle-même sinon).
+     * @return l'unité de base
+     */
+    public String getUniteBase() {
+        return uniteBase(unite);
+    }
+
+    /**
+     * Retourne la même quantité exprimée dans l'unité de base.
+     * @return la quantité convertie, ou elle-même si l'unité n'a pas de conversion
+     */
+    public Quantite versBase() {
+        Conversion c = CONVERSIONS.get(unite);
+        if (c == null || !isChiffree() || c.base().equals(unite)) return this;
+        long[] f = fraction(numerateur, c.num(), denominateur, c.den());
+        return de(f[0], f[1], c.base());
+    }
+
+    /**
+     * Retourne l'unité de base d'une unité normalisée (g pour kg, ml pour l...).
+     *
+     * @param unite l'unité normalisée
+     * @return l'unité de base, ou l'unité elle-même si elle n'a pas de conversion
+     */
+    public static String uniteBase(String unite) {
+        Conversion c = CONVERSIONS.get(unite);
+        return c == null ? unite : c.base();
+    }
+
+    /**
+     * Convertit un montant dans l'unité de base de son unité (1,5 kg donne 1500 g).
+     *
+     * @param montant le montant
+     * @param unite l'unité normalisée du montant
+     * @return le montant dans l'unité de base
+     */
+    public static BigDecimal versUniteBase(BigDecimal montant, String unite) {
+        Conversion c = CONVERSIONS.get(unite);
+        if (c == null) return montant;
+        BigDecimal m = montant.multiply(BigDecimal.valueOf(c.num()));
+        return c.den() == 1 ? m : m.divide(BigDecimal.valueOf(c.den()), 6, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Multiplie la quantité par un rapport.
+     *
+     * @param num le numérateur du rapport
+     * @param den le dénominateur du rapport (strictement positif)
+     * @return la nouvelle quantité, ou elle-même si elle n'a pas de nombre
+     */
+    public Quantite multiplier(long num, long den) {
+        if (!isChiffree()) return this;
+        long[] f = fraction(numerateur, num, denominateur, den);
+        return new Quantite(null, f[0], f[1], uniteTexte, unite, espace, fraction, separateur);
+    }
+
+    /**
+     * Ajoute une quantité de même unité.
+     *
+     * @param autre la quantité à ajouter (même unité normalisée)
+     * @return la somme
+     */
+    public Quantite plus(Quantite autre) {
+        long[] f;
+        try {
+            f = reduite(Math.addExact(Math.multiplyExact(numerateur, autre.denominateur),
+                                      Math.multiplyExact(autre.numerateur, denominateur)),
+                        Math.multiplyExact(denominateur, autre.denominateur));
+        } catch (ArithmeticException e) {
+            f = reduite(BigInteger.valueOf(numerateur).multiply(BigInteger.valueOf(autre.denominateur))
+                            .add(BigInteger.valueOf(autre.numerateur).multiply(BigInteger.valueOf(denominateur))),
+                        BigInteger.valueOf(denominateur).multiply(BigInteger.valueOf(autre.denominateur)));
+        }
+        return new Quantite(null, f[0], f[1], uniteTexte, unite, espace, fraction && autre.fraction, separateur);
+    }
+
+    /**
+     * Écrit la quantité multipliée par un rapport, sans créer de quantité intermédiaire.
+     * Les quantités sans nombre sont écrites telles quelles.
+     *
+     * @param sb où écrire
+     * @param num le numérateur du rapport
+     * @param den le dénominateur du rapport (strictement positif)
+     */
+    public void ecrire(StringBuilder sb, long num, long den) {
+        if (!isChiffree()) {
+            if (texte != null) sb.append(texte);
+            return;
+        }
+        long[] f = fraction(numerateur, num, denominateur, den);
+        ecrireNombre(sb, f[0], f[1]);
+        if (!uniteTexte.isEmpty()) {
+            if (espace) sb.append(' ');
+            sb.append(uniteTexte);
+        }
+    }
+
+    @Override
+    public String toString() {
+        if (texte != null) return texte;
+        StringBuilder sb = new StringBuilder();
+        ecrire(sb, 1, 1);
+        return sb.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Quantite)) return false;
+        Quantite q = (Quantite) o;
+        return numerateur == q.numerateur && denominateur == q.denominateur && Objects.equals(unite, q.unite);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * Long.hashCode(numerateur) + Long.hashCode(denominateur)) + Objects.hashCode(unite);
+    }
+
+    // ecrit n/d : entier, fraction (si saisie en fraction et petit denominateur) ou decimal a 2 chiffres
+    private void ecrireNombre(StringBuilder sb, long n, long d) {
+        if (d == 1) {
+            sb.append(n);
+            return;
+        }
+        if (fraction && d <= 8) {
+            if (n >= d) sb.append(n / d).append(' ');
+            sb.append(n % d).append('/').append(d);
+            return;
+        }
+        long centiemes = Math.round((double) n * 100 / d);
+        sb.append(centiemes / 100);
+        long reste = centiemes % 100;
+        if (reste != 0) {
+            sb.append(separateur);
+            if (reste < 10) sb.append('0');
+            sb.append(reste % 10 == 0 ? reste / 10 : reste); // pas de 0 inutile a la fin
+        }
+    }
+
+    private static Quantite sansNombre(String texte) {
+        // pas d'unite : "une pincee" n'a rien a faire dans la colonne unite
+        return new Quantite(texte, 0, 0, texte.trim(), null, false, false, ',');
+    }
+
+    private static String normaliserUnite(String u) {
+        String cle = Normalisation.normaliser(u).trim();
+        if (cle.endsWith(".")) cle = cle.substring(0, cle.length() - 1); // "gr." -> "gr"
+        String norme = UNITES.get(cle);
+        return norme != null ? norme : cle;
+    }
+
+    private static boolean chiffre(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    // en quarts, 0 si ce n'est pas une fraction connue
+    private static int fractionUnicode(char c) {
+        switch (c) {
+            case '\u00BC': return 1; // ¼
+            case '\u00BD': return 2; // ½
+            case '\u00BE': return 3; // ¾
+            default: return 0;
+        }
+    }
+
+    // a*b / (c*d) en fraction irreductible, en BigInteger seulement si un produit deborde d'un long
+    private static long[] fraction(long a, long b, long c, long d) {
+        try {
+            return reduite(Math.multiplyExact(a, b), Math.multiplyExact(c, d));
+        } catch (ArithmeticException e) {
+            return reduite(BigInteger.valueOf(a).multiply(BigInteger.valueOf(b)),
+                           BigInteger.valueOf(c).multiply(BigInteger.valueOf(d)));
+        }
+    }
+
+    private static long[] reduite(long n, long d) {
+        long p = pgcd(Math.abs(n), d);
+        return new long[] { n / p, d / p };
+    }
+
+    // irreductible si elle tient dans des long, sinon arrondie au millionieme
+    // (ArithmeticException si meme arrondie elle ne tient pas : plus de 9 000 milliards)
+    private static long[] reduite(BigInteger n, BigInteger d) {
+        BigInteger p = n.gcd(d);
+        if (p.signum() > 0) {
+            n = n.divide(p);
+            d = d.divide(p);
+        }
+        if (n.bitLength() < 64 && d.bitLength() < 64) return new long[] { n.longValue(), d.longValue() };
+        BigDecimal v = new BigDecimal(n).divide(new BigDecimal(d), 6, RoundingMode.HALF_UP);
+        return reduite(v.unscaledValue().longValueExact(), 1_000_000);
+    }
+
+    private static long pgcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a == 0 ? 1 : a;
+    }
+}
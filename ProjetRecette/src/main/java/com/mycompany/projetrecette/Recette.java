@@ -1,5 +1,10 @@
 package com.mycompany.projetrecette;
 
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.Comparator;
+import java.util.Locale;
+
 /**
  * Classe représentant une recette avec tous ses attributs.
  * Contient les informations : identifiant, nom, genre, ingrédients, instructions, 
@@ -10,6 +15,24 @@ package com.mycompany.projetrecette;
  */
 public class Recette {
 
+    /**
+     * Tri par nom dans l'ordre du français, sans tenir compte de la casse (bouton "Trier par Nom"),
+     * puis par identifiant : c'est aussi l'ordre de {@link Stockage#getPageParNom(Recette, int)}.
+     */
+    public static final Comparator<Recette> PAR_NOM =
+            Comparator.comparing(Recette::getCleTriNom).thenComparingInt(Recette::getIdRecette);
+
+    /** Tri par genre dans l'ordre du français, sans tenir compte de la casse (bouton "Trier par Genre"). */
+    public static final Comparator<Recette> PAR_GENRE = Comparator.comparing(Recette::getCleTriGenre);
+
+    // un Collator par thread : ses methodes sont synchronized, le tri parallele se bloquerait dessus
+    // (memes regles partout, les cles de deux threads se comparent sans probleme)
+    private static final ThreadLocal<Collator> COLLATOR = ThreadLocal.withInitial(() -> {
+        Collator c = Collator.getInstance(Locale.FRENCH);
+        c.setStrength(Collator.SECONDARY); // les accents comptent, pas la casse
+        return c;
+    });
+
     private int idRecette; // identifiant unique
     private String nomRecette; // nom de la recette
     private String genreRecette; // type: entree, plat, dessert, aperitif
@@ -19,6 +42,13 @@ public class Recette {
     private int nbPersonnes; // pr combien de personnes
     private double prixMoyen; // le prix moyen
 
+    // cles de recherche (minuscules sans accents), calculees une fois a la demande
+    private volatile String cleNom;
+    private volatile String cleGenre;
+    // cles de tri (ordre du francais), pareil
+    private volatile CollationKey cleTriNom;
+    private volatile CollationKey cleTriGenre;
+
     /**
      * Constructeur complet pour créer une recette avec tous ses paramètres.
      * 
@@ -102,13 +132,13 @@ public class Recette {
      * Définit le nom de la recette.
      * @param n le nouveau nom
      */
-    public void setNomRecette(String n) { this.nomRecette = n; } // setter pr le nom
+    public void setNomRecette(String n) { this.nomRecette = n; this.cleNom = null; this.cleTriNom = null; } // setter pr le nom
     
     /**
      * Définit le genre de la recette.
      * @param g le nouveau genre
      */
-    public void setGenreRecette(String g) { this.genreRecette = g; } // change le genre
+    public void setGenreRecette(String g) { this.genreRecette = g; this.cleGenre = null; this.cleTriGenre = null; } // change le genre
     
     /**
      * Définit la liste des ingrédients.
@@ -139,4 +169,51 @@ public class Recette {
      * @param p le nouveau prix moyen
      */
     public void setPrixMoyen(double p) { this.prixMoyen = p; } // setter pr le prix
+
+    /**
+     * Retourne le nom normalisé (minuscules, sans accents) pour la recherche.
+     * Calculé au premier appel puis gardé jusqu'au prochain changement de nom.
+     * @return la clé de recherche du nom
+     */
+    public String getCleNom() {
+        String c = cleNom;
+        if (c == null) cleNom = c = Normalisation.normaliser(nomRecette);
+        return c;
+    }
+
+    /**
+     * Retourne le genre normalisé (minuscules, sans accents) pour la recherche.
+     * @return la clé de recherche du genre
+     */
+    public String getCleGenre() {
+        String c = cleGenre;
+        if (c == null) cleGenre = c = Normalisation.normaliser(genreRecette);
+        return c;
+    }
+
+    /**
+     * Retourne la clé de tri du nom : comparer deux clés revient à comparer les noms dans l'ordre
+     * du français ("Éclair" avant "Zeste"), sans refaire l'analyse des lettres à chaque comparaison.
+     * Calculée au premier appel puis gardée jusqu'au prochain changement de nom.
+     * @return la clé de tri du nom
+     */
+    public CollationKey getCleTriNom() {
+        CollationKey c = cleTriNom;
+        if (c == null) cleTriNom = c = cleTri(nomRecette);
+        return c;
+    }
+
+    /**
+     * Retourne la clé de tri du genre (ordre du français).
+     * @return la clé de tri du genre
+     */
+    public CollationKey getCleTriGenre() {
+        CollationKey c = cleTriGenre;
+        if (c == null) cleTriGenre = c = cleTri(genreRecette);
+        return c;
+    }
+
+    private static CollationKey cleTri(String texte) {
+        return COLLATOR.get().getCollationKey(texte == null ? "" : texte);
+    }
 }
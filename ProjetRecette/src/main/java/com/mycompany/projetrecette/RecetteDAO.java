@@ -6,23 +6,76 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 
 /**
  * Data Access Object pour la gestion des recettes en base de données.
  * Fournit les méthodes CRUD (Create, Read, Update, Delete) pour les recettes.
+ * Les {@link RecetteListener} enregistrés sont prévenus de chaque écriture réussie,
+ * faite ici ou sur un autre poste (voir {@link #appliquerNotification(String, String)}).
+ * Chaque méthode publique qui va en base est mesurée (appels, erreurs, lignes, durées, voir {@link Metriques}).
  * 
  * @author bapti
  * @version 1.0
  */
 public class RecetteDAO {
 
-    private Connection conn; // la connection a la bdd
+    // les colonnes lues pr construire une Recette
+    private static final String COLONNES = "id, nom, genre, ingredients, instructions, duree, nb_personnes, prix_moyen";
+    // meme expression que l'index recettes_nom_francais_idx, sinon il ne sert pas
+    private static final String ORDRE_NOM = " ORDER BY nom COLLATE francais, id";
+    // la fonction qui transforme le texte de la recherche en tsquery
+    private static final Map<ModeRecherche, String> FONCTIONS_REQUETE = Map.of(
+            ModeRecherche.MOTS, "websearch_to_tsquery",
+            ModeRecherche.PHRASE, "phraseto_tsquery",
+            ModeRecherche.PREFIXE, "to_tsquery");
+    private static final Pattern SEPARATEURS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // une mesure par methode, publiees en JMX (voir Metriques)
+    private static final Mesure GET_ALL = Metriques.mesure("RecetteDAO.getAll");
+    private static final Mesure GET_BY_ID = Metriques.mesure("RecetteDAO.getById");
+    private static final Mesure GET_MODIFICATIONS = Metriques.mesure("RecetteDAO.getModifications");
+    private static final Mesure GET_PAGE = Metriques.mesure("RecetteDAO.getPage");
+    private static final Mesure PARCOURIR = Metriques.mesure("RecetteDAO.parcourir");
+    private static final Mesure GET_PAGE_PAR_NOM = Metriques.mesure("RecetteDAO.getPageParNom");
+    private static final Mesure PARCOURIR_PAR_NOM = Metriques.mesure("RecetteDAO.parcourirParNom");
+    private static final Mesure SEARCH = Metriques.mesure("RecetteDAO.search");
+    private static final Mesure INSERT = Metriques.mesure("RecetteDAO.insert");
+    private static final Mesure UPDATE = Metriques.mesure("RecetteDAO.update");
+    private static final Mesure SAVE = Metriques.mesure("RecetteDAO.save");
+    private static final Mesure DELETE = Metriques.mesure("RecetteDAO.delete");
+
+    // les ecouteurs sont partages par toutes les instances du DAO
+    private static final List<RecetteListener> LISTENERS = new CopyOnWriteArrayList<>();
+
+    private final Database db; // la bdd, on y emprunte une connection a chaque appel
 
     /**
-     * Constructeur qui initialise la connexion à la base de données.
+     * Constructeur qui récupère l'accès à la base de données.
      */
     public RecetteDAO() {
-        conn = Database.getInstance().getConnection(); // recupere la connection unique
+        db = Database.getInstance(); // le singleton qui gere le pool
+    }
+
+    /**
+     * Ajoute un écouteur prévenu après chaque insertion, mise à jour ou suppression réussie.
+     * 
+     * @param listener l'écouteur à ajouter
+     */
+    public static void ajouterListener(RecetteListener listener) {
+        LISTENERS.add(listener);
+    }
+
+    /**
+     * Retire un écouteur.
+     * 
+     * @param listener l'écouteur à retirer
+     */
+    public static void retirerListener(RecetteListener listener) {
+        LISTENERS.remove(listener);
     }
 
     /**
@@ -34,51 +87,502 @@ public class RecetteDAO {
         List<Recette> listeRecettes = new ArrayList<>();
 
         // requete pr recuperer tout depuis la table recettes
-        String sql = "SELECT id, nom, genre, ingredients, instructions, duree, nb_personnes, prix_moyen " +
-                     "FROM recettes";
+        String sql = "SELECT " + COLONNES + " FROM recettes";
 
-        try {
-            PreparedStatement pst = conn.prepareStatement(sql);
-            ResultSet rs = pst.executeQuery();
+        long debut = GET_ALL.debut();
+        // le try ferme tout, meme en cas d'exception (la requete reste en cache dans le pool)
+        try (Connection conn = db.getConnection(); // emprunte une connection, rendue a la fin du try
+             PreparedStatement pst = conn.prepareStatement(sql);
+             ResultSet rs = pst.executeQuery()) {
             // boucle sur les resultats et crée les objets recette
 
             while (rs.next()) {
-                Recette r = new Recette( // constructeur avec tous les params
-                        rs.getInt("id"),
-                        rs.getString("nom"),
-                        rs.getString("genre"),
-                        rs.getString("ingredients"),
-                        rs.getString("instructions"),
-                        rs.getString("duree"),
-                        rs.getInt("nb_personnes"),
-                        rs.getDouble("prix_moyen")
-                );
-                listeRecettes.add(r); // ajoute a la liste
-            }
-
-            rs.close(); // ferme le resultat
-            pst.close(); // faut fermer les ressources
+                listeRecettes.add(lire(rs)); // ajoute a la liste
+            }
 
         } catch (SQLException e) {
+            GET_ALL.erreur();
             e.printStackTrace();
+        } finally {
+            GET_ALL.fin(debut, listeRecettes.size());
         }
 
         return listeRecettes;
     }
 
+    /**
+     * Récupère une recette par son identifiant.
+     * 
+     * @param idRecette l'identifiant de la recette
+     * @return la recette, ou null si elle n'existe pas ou en cas d'erreur
+     */
+    public Recette getById(int idRecette) {
+        String sql = "SELECT " + COLONNES + " FROM recettes WHERE id = ?";
+
+        long debut = GET_BY_ID.debut();
+        try (Connection conn = db.getConnection();
+             PreparedStatement pst = conn.prepareStatement(sql)) {
+            pst.setInt(1, idRecette);
+
+            try (ResultSet rs = pst.executeQuery()) {
+                if (rs.next()) return lire(rs);
+            }
+
+        } catch (SQLException e) {
+            GET_BY_ID.erreur();
+            e.printStackTrace();
+        } finally {
+            GET_BY_ID.fin(debut);
+        }
+        return null;
+    }
+
+    /**
+     * Récupère les recettes modifiées ou supprimées depuis un numéro du journal des recettes
+     * (scripts {@code V7__journal_recettes.sql} et {@code V8__journal_transactions.sql}),
+     * sans leurs ingrédients. Le numéro est le xmin de la base (la plus ancienne transaction
+     * encore ouverte), lu avant les recettes : une transaction pas encore commitée pendant
+     * la lecture, ou commitée entre les deux, a un identifiant au moins égal et sera relue la fois suivante.
+     * Avec un numéro négatif, récupère tout le catalogue.
+     *
+     * @param depuis le numéro de la dernière mise à jour, -1 pour tout
+     * @return les modifications
+     * @throws SQLException en cas d'erreur SQL (ou si le journal n'existe pas encore) : un catalogue
+     *         vide n'est jamais une erreur
+     */
+    public Modifications getModifications(long depuis) throws SQLException {
+        List<Recette> recettes = new ArrayList<>();
+        List<Integer> supprimees = new ArrayList<>();
+
+        long debut = GET_MODIFICATIONS.debut();
+        try (Connection conn = db.getConnection()) {
+            long numero;
+            try (PreparedStatement pst = conn.prepareStatement(
+                    "SELECT txid_snapshot_xmin(txid_current_snapshot())");
+                 ResultSet rs = pst.executeQuery()) {
+                rs.next();
+                numero = rs.getLong(1);
+            }
+
+            if (depuis < 0) {
+                try (PreparedStatement pst = conn.prepareStatement("SELECT " + COLONNES + " FROM recettes");
+                     ResultSet rs = pst.executeQuery()) {
+                    while (rs.next()) recettes.add(lire(rs));
+                }
+                return new Modifications(numero, true, recettes, Map.of(), supprimees);
+            }
+
+            // une recette du journal qui n'est plus dans recettes a ete supprimee
+            // >= : la transaction xmin elle-meme n'etait pas finie
+            String sql = "SELECT j.recette_id, r." + COLONNES.replace(", ", ", r.")
+                    + " FROM recettes_journal j LEFT JOIN recettes r ON r.id = j.recette_id WHERE j.xid >= ?";
+            try (PreparedStatement pst = conn.prepareStatement(sql)) {
+                pst.setLong(1, depuis);
+                try (ResultSet rs = pst.executeQuery()) {
+                    while (rs.next()) {
+                        if (rs.getObject("id") == null) {
+                            supprimees.add(rs.getInt("recette_id"));
+                        } else {
+                            recettes.add(lire(rs));
+                        }
+                    }
+                }
+            }
+            return new Modifications(numero, false, recettes, Map.of(), supprimees);
+
+        } catch (SQLException e) {
+            GET_MODIFICATIONS.erreur();
+            throw e;
+        } finally {
+            GET_MODIFICATIONS.fin(debut, recettes.size() + supprimees.size());
+        }
+    }
+
+    /**
+     * Traite une notification des triggers de la base (script {@code V4__notifications.sql}) :
+     * une recette ou ses ingrédients ont changé, ici ou sur un autre poste.
+     * Invalide le cache des ingrédients de la recette, relit ce qui a changé et prévient les écouteurs.
+     * Pour une écriture faite ici les écouteurs sont donc prévenus deux fois, ils doivent le supporter.
+     * 
+     * @param canal {@code recettes} (contenu {@code I:id}, {@code U:id} ou {@code D:id})
+     *              ou {@code recette_ingredients} (contenu : l'identifiant de la recette)
+     * @param contenu le contenu de la notification
+     */
+    public void appliquerNotification(String canal, String contenu) {
+        switch (canal) {
+            case "recettes": {
+                int id = Integer.parseInt(contenu.substring(2));
+                if (contenu.charAt(0) == 'D') {
+                    IngredientDAO.invaliderRecette(id);
+                    for (RecetteListener l : LISTENERS) l.recetteSupprimee(id);
+                } else {
+                    Recette r = getById(id);
+                    if (r != null) notifierEnregistree(r, null);
+                }
+                break;
+            }
+            case "recette_ingredients": {
+                int id = Integer.parseInt(contenu);
+                IngredientDAO.invaliderRecette(id);
+                Recette r = getById(id); // null si elle a ete supprimee avec ses liens
+                if (r != null) notifierEnregistree(r, new IngredientDAO().getPourRecette(id));
+                break;
+            }
+            default:
+                System.out.println("Notification inconnue : " + canal + " " + contenu);
+        }
+    }
+
+    /**
+     * Récupère une page de recettes, triées par identifiant (pagination par clé).
+     * Contrairement à un OFFSET, le coût ne dépend pas de la position de la page :
+     * l'index de la clé primaire mène directement à la première ligne.
+     * 
+     * @param apresId l'identifiant de la dernière recette de la page précédente (0 pour la première page)
+     * @param limite le nombre maximum de recettes de la page
+     * @return les recettes de la page, moins de {@code limite} si c'est la dernière
+     */
+    public List<Recette> getPage(int apresId, int limite) {
+        List<Recette> page = new ArrayList<>();
+
+        String sql = "SELECT " + COLONNES + " FROM recettes WHERE id > ? ORDER BY id LIMIT ?";
+
+        long debut = GET_PAGE.debut();
+        try (Connection conn = db.getConnection();
+             PreparedStatement pst = conn.prepareStatement(sql)) {
+            pst.setInt(1, apresId);
+            pst.setInt(2, limite);
+
+            try (ResultSet rs = pst.executeQuery()) {
+                while (rs.next()) {
+                    page.add(lire(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            GET_PAGE.erreur();
+            e.printStackTrace();
+        } finally {
+            GET_PAGE.fin(debut, page.size());
+        }
+
+        return page;
+    }
+
+    /**
+     * Parcourt les recettes avec un curseur côté serveur, sans tout charger en mémoire.
+     * Le driver ne récupère que {@code fetchSize} lignes à la fois (il faut pour ça
+     * désactiver l'autocommit le temps du parcours).
+     * 
+     * @param apresId ne parcourt que les recettes d'identifiant supérieur (0 pour toutes)
+     * @param fetchSize le nombre de lignes récupérées par aller-retour
+     * @param action appelée pour chaque recette, dans l'ordre des identifiants
+     */
+    public void parcourir(int apresId, int fetchSize, Consumer<Recette> action) {
+        String sql = "SELECT " + COLONNES + " FROM recettes WHERE id > ? ORDER BY id";
+
+        long debut = PARCOURIR.debut();
+        int lues = 0;
+        try (Connection conn = db.getConnection()) {
+            conn.setAutoCommit(false); // sinon pgjdbc ignore le fetchSize et lit tout
+            try (PreparedStatement pst = conn.prepareStatement(sql)) {
+                pst.setFetchSize(fetchSize);
+                pst.setInt(1, apresId);
+
+                try (ResultSet rs = pst.executeQuery()) {
+                    while (rs.next()) {
+                        action.accept(lire(rs));
+                        lues++;
+                    }
+                }
+            }
+            conn.commit();
+
+        } catch (SQLException e) {
+            PARCOURIR.erreur();
+            e.printStackTrace();
+        } finally {
+            PARCOURIR.fin(debut, lues);
+        }
+    }
+
+    /**
+     * Récupère une page de recettes triées par nom dans l'ordre du français, puis par identifiant
+     * (pagination par clé sur le couple nom, id). La collation {@code francais} et l'index
+     * {@code recettes_nom_francais_idx} viennent du script {@code V5__tri_francais.sql} :
+     * la base lit l'index dans l'ordre, sans trier, et l'affichage par défaut n'a rien à retrier.
+     * 
+     * @param apres la dernière recette de la page précédente (null pour la première page)
+     * @param limite le nombre maximum de recettes de la page
+     * @return les recettes de la page, moins de {@code limite} si c'est la dernière
+     * @throws SQLException en cas d'erreur SQL (pas de page partielle, le chargeur réessaie)
+     */
+    public List<Recette> getPageParNom(Recette apres, int limite) throws SQLException {
+        List<Recette> page = new ArrayList<>();
+
+        String sql = "SELECT " + COLONNES + " FROM recettes" + apresNom(apres) + ORDRE_NOM + " LIMIT ?";
+
+        long debut = GET_PAGE_PAR_NOM.debut();
+        try (Connection conn = db.getConnection();
+             PreparedStatement pst = conn.prepareStatement(sql)) {
+            int i = parametresApresNom(pst, apres);
+            pst.setInt(i, limite);
+
+            try (ResultSet rs = pst.executeQuery()) {
+                while (rs.next()) {
+                    page.add(lire(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            GET_PAGE_PAR_NOM.erreur();
+            throw e; // une page vide passerait pr la derniere
+        } finally {
+            GET_PAGE_PAR_NOM.fin(debut, page.size());
+        }
+
+        return page;
+    }
+
+    /**
+     * Parcourt les recettes dans l'ordre de {@link #getPageParNom(Recette, int)},
+     * avec un curseur côté serveur.
+     * 
+     * @param apres ne parcourt que les recettes qui viennent après celle-ci (null pour toutes)
+     * @param fetchSize le nombre de lignes récupérées par aller-retour
+     * @param action appelée pour chaque recette, dans l'ordre des noms
+     * @throws SQLException en cas d'erreur SQL, après les recettes déjà lues
+     */
+    public void parcourirParNom(Recette apres, int fetchSize, Consumer<Recette> action) throws SQLException {
+        String sql = "SELECT " + COLONNES + " FROM recettes" + apresNom(apres) + ORDRE_NOM;
+
+        long debut = PARCOURIR_PAR_NOM.debut();
+        int lues = 0;
+        try (Connection conn = db.getConnection()) {
+            conn.setAutoCommit(false); // sinon pgjdbc ignore le fetchSize et lit tout
+            try (PreparedStatement pst = conn.prepareStatement(sql)) {
+                pst.setFetchSize(fetchSize);
+                parametresApresNom(pst, apres);
+
+                try (ResultSet rs = pst.executeQuery()) {
+                    while (rs.next()) {
+                        action.accept(lire(rs));
+                        lues++;
+                    }
+                }
+            }
+            conn.commit();
+
+        } catch (SQLException e) {
+            PARCOURIR_PAR_NOM.erreur();
+            throw e; // sinon le chargeur croirait avoir tout lu
+        } finally {
+            PARCOURIR_PAR_NOM.fin(debut, lues);
+        }
+    }
+
+    /**
+     * Recherche plein texte dans le nom, les ingrédients et les instructions des recettes,
+     * avec la colonne {@code recherche} et son index GIN (script {@code V6__recherche_texte.sql}).
+     * La base classe les recettes trouvées (un mot du nom compte plus qu'un ingrédient,
+     * qui compte plus que les instructions) et ne renvoie que les meilleures.
+     * 
+     * @param requete le texte cherché
+     * @param mode la façon de lire le texte
+     * @param limite le nombre maximum de recettes
+     * @return les recettes trouvées, la plus pertinente d'abord (vide si rien ou en cas d'erreur)
+     */
+    public List<Recette> search(String requete, ModeRecherche mode, int limite) {
+        List<Recette> trouvees = new ArrayList<>();
+
+        String texte = mode == ModeRecherche.PREFIXE ? prefixes(requete) : requete;
+        if (texte == null || texte.isBlank()) return trouvees;
+
+        String sql = "SELECT " + COLONNES + " FROM recettes, " + FONCTIONS_REQUETE.get(mode) + "('french', ?) q"
+                + " WHERE recherche @@ q ORDER BY ts_rank(recherche, q) DESC, id LIMIT ?";
+
+        long debut = SEARCH.debut();
+        try (Connection conn = db.getConnection();
+             PreparedStatement pst = conn.prepareStatement(sql)) {
+            pst.setString(1, texte);
+            pst.setInt(2, limite);
+
+            try (ResultSet rs = pst.executeQuery()) {
+                while (rs.next()) {
+                    trouvees.add(lire(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            SEARCH.erreur();
+            e.printStackTrace();
+        } finally {
+            SEARCH.fin(debut, trouvees.size());
+        }
+
+        return trouvees;
+    }
+
     /**
      * Insère une nouvelle recette dans la base de données.
      * 
      * @param recette la recette à insérer
+     * @return la recette telle qu'enregistrée (avec son identifiant), ou null en cas d'erreur
      */
-    public void insert(Recette recette) {
+    public Recette insert(Recette recette) {
+        long debut = INSERT.debut();
+        try (Connection conn = db.getConnection()) {
+            Recette enregistree = insert(conn, recette);
+            notifierEnregistree(enregistree, null);
+            return enregistree;
+
+        } catch (SQLException e) {
+            INSERT.erreur();
+            e.printStackTrace();
+        } finally {
+            INSERT.fin(debut);
+        }
+        return null;
+    }
+
+    /**
+     * Met à jour une recette existante en base de données.
+     * 
+     * @param recette la recette avec les données mises à jour
+     * @return la recette telle qu'enregistrée, ou null si elle n'existe plus ou en cas d'erreur
+     */
+    public Recette update(Recette recette) {
+        long debut = UPDATE.debut();
+        try (Connection conn = db.getConnection()) {
+            Recette enregistree = update(conn, recette);
+            if (enregistree != null) notifierEnregistree(enregistree, null);
+            return enregistree;
+
+        } catch (SQLException e) {
+            UPDATE.erreur();
+            e.printStackTrace();
+        } finally {
+            UPDATE.fin(debut);
+        }
+        return null;
+    }
+
+    /**
+     * Enregistre une recette et tous ses ingrédients en une seule transaction.
+     * Insère la recette si son identifiant vaut 0, la met à jour sinon. Les liens vers
+     * les ingrédients d'une nouvelle recette sont insérés avec un batch JDBC ; pour une recette
+     * existante seuls les liens ajoutés, modifiés ou retirés sont écrits. Un ingrédient présent
+     * deux fois n'est gardé qu'une fois, avec la dernière quantité, dans les deux cas.
+     * 
+     * @param recette la recette à enregistrer
+     * @param ingredients les ingrédients de la recette avec leurs quantités
+     * @return la recette telle qu'enregistrée (avec son identifiant), ou null en cas d'erreur
+     *         (rien n'est enregistré)
+     */
+    public Recette save(Recette recette, List<IngredientRecette> ingredients) {
+        IngredientDAO ingredientDAO = new IngredientDAO();
+        RecetteIngredientDAO liensDAO = new RecetteIngredientDAO();
+        // un ingredient saisi deux fois : la derniere quantite, que la recette soit nouvelle ou non
+        List<IngredientRecette> liens = IngredientRecette.sansDoublons(ingredients);
+
+        long debut = SAVE.debut();
+        try (Connection conn = db.getConnection()) {
+            conn.setAutoCommit(false); // une seule transaction pr la recette et ses liens
+
+            Recette enregistree;
+            if (recette.getIdRecette() == 0) {
+                enregistree = insert(conn, recette);
+            } else {
+                enregistree = update(conn, recette);
+                if (enregistree == null) return null; // supprimee par quelqu'un d'autre
+            }
+            int idRecette = enregistree.getIdRecette();
+
+            // tous les ids d'ingredients d'un coup (cache ou une seule requete)
+            List<String> noms = new ArrayList<>();
+            for (IngredientRecette ir : liens) noms.add(ir.getNomIngredient());
+            Map<String, Integer> ids = ingredientDAO.resoudreIds(conn, noms);
+
+            int[] idsIngredients = new int[liens.size()];
+            for (int i = 0; i < idsIngredients.length; i++) {
+                Integer id = ids.get(noms.get(i));
+                // le rollback se fait en rendant la connexion, comme pr les autres erreurs
+                if (id == null) throw new SQLException("Ingrédient introuvable : " + noms.get(i));
+                idsIngredients[i] = id;
+            }
+            if (recette.getIdRecette() == 0) {
+                liensDAO.insertBatch(conn, idRecette, idsIngredients, liens);
+            } else {
+                // on n'ecrit que les liens qui ont change
+                liensDAO.synchroniser(conn, idRecette, idsIngredients, liens);
+            }
+
+            conn.commit(); // tout est enregistre d'un coup
+            ingredientDAO.memoriser(ids); // les nouveaux ingredients existent vraiment maintenant
+            IngredientDAO.invaliderRecette(idRecette); // ses liens ont change
+            notifierEnregistree(enregistree, liens);
+            return enregistree;
+
+        } catch (SQLException e) {
+            SAVE.erreur();
+            e.printStackTrace(); // le rollback est fait quand la connection revient au pool
+        } finally {
+            SAVE.fin(debut, liens.size());
+        }
+        return null;
+    }
+
+    // construit une recette a partir de la ligne courante (package pr les benchmarks)
+    static Recette lire(ResultSet rs) throws SQLException {
+        return new Recette( // constructeur avec tous les params
+                rs.getInt("id"),
+                rs.getString("nom"),
+                rs.getString("genre"),
+                rs.getString("ingredients"),
+                rs.getString("instructions"),
+                rs.getString("duree"),
+                rs.getInt("nb_personnes"),
+                rs.getDouble("prix_moyen")
+        );
+    }
+
+    // "pom tar" -> "pom:* & tar:*" pr to_tsquery, on ne garde que les lettres et les chiffres
+    private static String prefixes(String requete) {
+        if (requete == null) return null;
+        StringBuilder sb = new StringBuilder();
+        for (String mot : SEPARATEURS.split(requete)) {
+            if (mot.isEmpty()) continue;
+            if (sb.length() > 0) sb.append(" & ");
+            sb.append(mot).append(":*");
+        }
+        return sb.toString();
+    }
+
+    // la condition de pagination par nom, vide pr la premiere page
+    private static String apresNom(Recette apres) {
+        return apres == null ? "" : " WHERE (nom COLLATE francais, id) > (?, ?)";
+    }
+
+    // remplit les parametres de apresNom, retourne l'indice du parametre suivant
+    private static int parametresApresNom(PreparedStatement pst, Recette apres) throws SQLException {
+        if (apres == null) return 1;
+        pst.setString(1, apres.getNomRecette());
+        pst.setInt(2, apres.getIdRecette());
+        return 3;
+    }
+
+    private void notifierEnregistree(Recette recette, List<IngredientRecette> ingredients) {
+        for (RecetteListener l : LISTENERS) l.recetteEnregistree(recette, ingredients);
+    }
+
+    // INSERT sur une connection donnee, retourne la ligne inseree
+    private Recette insert(Connection conn, Recette recette) throws SQLException {
 
         // INSERT avec ? pr eviter les injections SQL
         String sql = "INSERT INTO recettes (nom, ingredients, genre, instructions, duree, nb_personnes, prix_moyen) " +
-                     "VALUES (?, ?, ?, ?, ?, ?, ?)";
+                     "VALUES (?, ?, ?, ?, ?, ?, ?) RETURNING " + COLONNES;
 
-        try {
-            PreparedStatement pst = conn.prepareStatement(sql);
+        try (PreparedStatement pst = conn.prepareStatement(sql)) {
             // on met les parametres dans le bon ordre
             pst.setString(1, recette.getNomRecette()); // param 1: nom
             pst.setString(2, recette.getIngredients()); // param 2: ingredients
@@ -88,28 +592,21 @@ public class RecetteDAO {
             pst.setInt(6, recette.getNbPersonnes()); // param 6: nb personnes
             pst.setDouble(7, recette.getPrixMoyen()); // param 7: prix
 
-            pst.executeUpdate(); // execute l'insert
-            pst.close();
-
-        } catch (SQLException e) {
-            e.printStackTrace();
+            try (ResultSet rs = pst.executeQuery()) { // execute l'insert, RETURNING donne la ligne avec son id
+                rs.next();
+                return lire(rs);
+            }
         }
     }
 
-    /**
-     * Met à jour une recette existante en base de données.
-     * 
-     * @param recette la recette avec les données mises à jour
-     */
-    public void update(Recette recette) {
+    // UPDATE sur une connection donnee, retourne la ligne modifiee ou null si elle n'existe pas
+    private Recette update(Connection conn, Recette recette) throws SQLException {
 
         // UPDATE pr modifier une recette existante
         String sql = "UPDATE recettes SET nom = ?, ingredients = ?, genre = ?, instructions = ?, duree = ?, nb_personnes = ?, prix_moyen = ? " +
-                     "WHERE id = ?";
-
-        try {
-            PreparedStatement pst = conn.prepareStatement(sql);
+                     "WHERE id = ? RETURNING " + COLONNES;
 
+        try (PreparedStatement pst = conn.prepareStatement(sql)) {
             pst.setString(1, recette.getNomRecette()); // le nouveau nom
             pst.setString(2, recette.getIngredients()); // les ingredients
             pst.setString(3, recette.getGenreRecette()); // le genre
@@ -119,63 +616,43 @@ public class RecetteDAO {
             pst.setDouble(7, recette.getPrixMoyen()); // le prix
             pst.setInt(8, recette.getIdRecette()); // WHERE id = ... c'est le 8eme param
 
-            pst.executeUpdate(); // applique la modif
-            pst.close();
-
-        } catch (SQLException e) {
-            e.printStackTrace();
+            try (ResultSet rs = pst.executeQuery()) { // applique la modif
+                return rs.next() ? lire(rs) : null;
+            }
         }
     }
 
     /**
-     * Supprime une recette de la base de données.
+     * Supprime une recette et ses liens vers les ingrédients, en une seule transaction.
      * 
      * @param idRecette l'identifiant de la recette à supprimer
+     * @return true si la suppression a réussi
      */
-    public void delete(int idRecette) {
+    public boolean delete(int idRecette) {
 
         // DELETE la recette avec cet id
         String sql = "DELETE FROM recettes WHERE id = ?";
 
-        try {
-            PreparedStatement pst = conn.prepareStatement(sql);
-            pst.setInt(1, idRecette);
-            pst.executeUpdate();
-            pst.close();
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-    }
-
-    /**
-     * Récupère l'identifiant de la dernière recette insérée.
-     * 
-     * @return l'identifiant de la dernière recette, ou -1 en cas d'erreur
-     */
-    public int getLastInsertedId() {
-
-        // SELECT le max id (aka le dernier id inseree)
-        String sql = "SELECT max(id) AS id FROM recettes";
-
-        try {
-            PreparedStatement pst = conn.prepareStatement(sql);
-            ResultSet rs = pst.executeQuery();
-
-            if (rs.next()) {
-                int id = rs.getInt("id");
-                rs.close();
-                pst.close();
-                return id; // retourne l'id
+        long debut = DELETE.debut();
+        try (Connection conn = db.getConnection()) {
+            conn.setAutoCommit(false); // les autres postes ne voient jamais la recette sans ses liens
+            new RecetteIngredientDAO().deleteAllForRecette(conn, idRecette); // d'abord les liens
+            try (PreparedStatement pst = conn.prepareStatement(sql)) {
+                pst.setInt(1, idRecette);
+                pst.executeUpdate();
             }
+            conn.commit();
+            IngredientDAO.invaliderRecette(idRecette);
 
-            rs.close();
-            pst.close();
+            for (RecetteListener l : LISTENERS) l.recetteSupprimee(idRecette);
+            return true;
 
         } catch (SQLException e) {
+            DELETE.erreur();
             e.printStackTrace();
+        } finally {
+            DELETE.fin(debut);
         }
-
-        return -1; // erreur si -1
+        return false;
     }
 }
@@ -2,7 +2,15 @@ package com.mycompany.projetrecette;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Data Access Object pour la gestion de la relation entre recettes et ingrédients.
@@ -13,13 +21,19 @@ import java.sql.SQLException;
  */
 public class RecetteIngredientDAO {
 
-    private Connection conn; // la connection a la bdd
+    // une mesure par methode, publiees en JMX (voir Metriques)
+    private static final Mesure DELETE_ALL = Metriques.mesure("RecetteIngredientDAO.deleteAllForRecette");
+    private static final Mesure INSERT = Metriques.mesure("RecetteIngredientDAO.insert");
+    private static final Mesure INSERT_BATCH = Metriques.mesure("RecetteIngredientDAO.insertBatch");
+    private static final Mesure SYNCHRONISER = Metriques.mesure("RecetteIngredientDAO.synchroniser");
+
+    private final Database db; // la bdd, on y emprunte une connection a chaque appel
 
     /**
-     * Constructeur qui initialise la connexion à la base de données.
+     * Constructeur qui récupère l'accès à la base de données.
      */
     public RecetteIngredientDAO() {
-        conn = Database.getInstance().getConnection(); // recupere la connection du singleton
+        db = Database.getInstance(); // le singleton qui gere le pool
     }
 
     /**
@@ -28,16 +42,17 @@ public class RecetteIngredientDAO {
      * @param idRecette l'identifiant de la recette dont supprimer les ingrédients
      */
     public void deleteAllForRecette(int idRecette) {
-        try {
-            String sql = "DELETE FROM recette_ingredients WHERE recette_id = ?"; // supprime tous les liens
-            PreparedStatement pst = conn.prepareStatement(sql);
-            pst.setInt(1, idRecette);
-            pst.executeUpdate();
+        long debut = DELETE_ALL.debut();
+        try (Connection conn = db.getConnection()) { // emprunte une connection, rendue a la fin du try
             // efface tous les liens entre cette recette et ses ingredients
-            pst.close();
+            deleteAllForRecette(conn, idRecette);
+            IngredientDAO.invaliderRecette(idRecette);
 
         } catch (SQLException e) {
+            DELETE_ALL.erreur();
             e.printStackTrace();
+        } finally {
+            DELETE_ALL.fin(debut);
         }
     }
 
@@ -49,20 +64,237 @@ public class RecetteIngredientDAO {
      * @param quantite la quantité de l'ingrédient pour la recette (ex: "250g", "2 cuillères")
      */
     public void insert(int idRecette, int idIngredient, String quantite) {
-        try {
-            // INSERT pour ajouter l'association
-            String sql = "INSERT INTO recette_ingredients(recette_id, ingredient_id, quantite) VALUES(?,?,?)";
-            PreparedStatement pst = conn.prepareStatement(sql);
-
+        // INSERT pour ajouter l'association
+        String sql = "INSERT INTO recette_ingredients(recette_id, ingredient_id, quantite, montant, unite) VALUES(?,?,?,?,?)";
+        long debut = INSERT.debut();
+        try (Connection conn = db.getConnection();
+             PreparedStatement pst = conn.prepareStatement(sql)) {
             pst.setInt(1, idRecette); // l'id de la recette
             pst.setInt(2, idIngredient); // l'id de l'ingredient
             pst.setString(3, quantite); // la quantite (250g, 1L, etc)
+            IngredientRecette ir = new IngredientRecette(null, quantite);
+            pst.setBigDecimal(4, ir.getMontant()); // 250, 1...
+            pst.setString(5, ir.getUnite()); // g, l...
 
             pst.executeUpdate();
-            pst.close();
+            IngredientDAO.invaliderRecette(idRecette);
+
+        } catch (SQLException e) {
+            INSERT.erreur();
+            e.printStackTrace();
+        } finally {
+            INSERT.fin(debut, 1);
+        }
+    }
+
+    /**
+     * Associe plusieurs ingrédients à une recette en un seul aller-retour,
+     * dans une transaction.
+     * 
+     * @param idRecette l'identifiant de la recette
+     * @param idsIngredients les identifiants des ingrédients, dans le même ordre que {@code ingredients}
+     * @param ingredients les ingrédients avec leurs quantités
+     */
+    public void insertBatch(int idRecette, int[] idsIngredients, List<IngredientRecette> ingredients) {
+        long debut = INSERT_BATCH.debut();
+        try (Connection conn = db.getConnection()) {
+            conn.setAutoCommit(false); // tout ou rien
+            insertBatch(conn, idRecette, idsIngredients, ingredients);
+            conn.commit();
+            IngredientDAO.invaliderRecette(idRecette);
+
+        } catch (SQLException e) {
+            INSERT_BATCH.erreur();
+            e.printStackTrace(); // le pool fait le rollback en reprenant la connection
+        } finally {
+            INSERT_BATCH.fin(debut, ingredients.size());
+        }
+    }
+
+    /**
+     * Met les liens d'une recette en conformité avec la liste éditée, dans une transaction.
+     * Seules les lignes qui changent sont écrites (voir {@link #synchroniser(Connection, int, int[], List)}).
+     * 
+     * @param idRecette l'identifiant de la recette
+     * @param idsIngredients les identifiants des ingrédients, dans le même ordre que {@code ingredients}
+     * @param ingredients les ingrédients avec leurs quantités
+     * @return le nombre de lignes écrites, ou -1 en cas d'erreur
+     */
+    public int synchroniser(int idRecette, int[] idsIngredients, List<IngredientRecette> ingredients) {
+        long debut = SYNCHRONISER.debut();
+        try (Connection conn = db.getConnection()) {
+            conn.setAutoCommit(false);
+            int ecritures = synchroniser(conn, idRecette, idsIngredients, ingredients);
+            conn.commit();
+            IngredientDAO.invaliderRecette(idRecette);
+            SYNCHRONISER.lignes(ecritures);
+            return ecritures;
 
         } catch (SQLException e) {
+            SYNCHRONISER.erreur();
             e.printStackTrace();
+        } finally {
+            SYNCHRONISER.fin(debut);
+        }
+        return -1;
+    }
+
+    /**
+     * Compare les liens enregistrés d'une recette avec la liste éditée et n'envoie que
+     * les INSERT, UPDATE et DELETE nécessaires, chacun en un seul batch.
+     * Un ingrédient présent deux fois dans la liste n'est gardé qu'une fois (la dernière quantité).
+     * 
+     * @param conn la connexion (et la transaction) à utiliser
+     * @param idRecette l'identifiant de la recette
+     * @param idsIngredients les identifiants des ingrédients, dans le même ordre que {@code ingredients}
+     * @param ingredients les ingrédients avec leurs quantités
+     * @return le nombre de lignes écrites
+     * @throws SQLException en cas d'erreur SQL
+     */
+    int synchroniser(Connection conn, int idRecette, int[] idsIngredients, List<IngredientRecette> ingredients)
+            throws SQLException {
+        // l'etat actuel, verrouille pr qu'un autre poste ne le change pas pendant le diff
+        Map<Integer, String> actuels = new HashMap<>();
+        Set<Integer> doublons = new HashSet<>(); // lignes en double en base, on les refait
+        try (PreparedStatement pst = conn.prepareStatement(
+                "SELECT ingredient_id, quantite FROM recette_ingredients WHERE recette_id = ? FOR UPDATE")) {
+            pst.setInt(1, idRecette);
+            try (ResultSet rs = pst.executeQuery()) {
+                while (rs.next()) {
+                    if (actuels.put(rs.getInt(1), rs.getString(2)) != null) doublons.add(rs.getInt(1));
+                }
+            }
+        }
+
+        Ecarts ecarts = comparer(actuels, doublons, idsIngredients, ingredients);
+        List<Integer> aSupprimer = ecarts.aSupprimer;
+        Map<Integer, IngredientRecette> aModifier = ecarts.aModifier;
+        Map<Integer, IngredientRecette> aInserer = ecarts.aInserer;
+
+        if (!aSupprimer.isEmpty()) {
+            try (PreparedStatement pst = conn.prepareStatement(
+                    "DELETE FROM recette_ingredients WHERE recette_id = ? AND ingredient_id = ANY(?)")) {
+                pst.setInt(1, idRecette);
+                pst.setArray(2, conn.createArrayOf("integer", aSupprimer.toArray()));
+                pst.executeUpdate();
+            }
+        }
+
+        if (!aModifier.isEmpty()) {
+            try (PreparedStatement pst = conn.prepareStatement(
+                    "UPDATE recette_ingredients SET quantite = ?, montant = ?, unite = ? "
+                    + "WHERE recette_id = ? AND ingredient_id = ?")) {
+                for (Map.Entry<Integer, IngredientRecette> e : aModifier.entrySet()) {
+                    IngredientRecette ir = e.getValue();
+                    pst.setString(1, ir.getQuantite());
+                    pst.setBigDecimal(2, ir.getMontant());
+                    pst.setString(3, ir.getUnite());
+                    pst.setInt(4, idRecette);
+                    pst.setInt(5, e.getKey());
+                    pst.addBatch();
+                }
+                pst.executeBatch();
+            }
+        }
+
+        if (!aInserer.isEmpty()) {
+            int[] ids = new int[aInserer.size()];
+            List<IngredientRecette> liens = new ArrayList<>(aInserer.values());
+            int i = 0;
+            for (Integer id : aInserer.keySet()) ids[i++] = id;
+            insertBatch(conn, idRecette, ids, liens);
+        }
+
+        return aSupprimer.size() + aModifier.size() + aInserer.size();
+    }
+
+    /**
+     * Les écritures à faire pour passer des liens enregistrés à la liste éditée.
+     */
+    static final class Ecarts {
+        final List<Integer> aSupprimer = new ArrayList<>();
+        final Map<Integer, IngredientRecette> aModifier = new LinkedHashMap<>();
+        final Map<Integer, IngredientRecette> aInserer = new LinkedHashMap<>();
+    }
+
+    /**
+     * Calcule les écarts entre les liens enregistrés et la liste éditée, sans toucher à la base.
+     * 
+     * @param actuels la quantité enregistrée par identifiant d'ingrédient
+     * @param doublons les ingrédients liés plusieurs fois en base (supprimés puis réinsérés)
+     * @param idsIngredients les identifiants des ingrédients, dans le même ordre que {@code ingredients}
+     * @param ingredients les ingrédients avec leurs quantités
+     * @return les suppressions, modifications et insertions à faire
+     */
+    static Ecarts comparer(Map<Integer, String> actuels, Set<Integer> doublons,
+                           int[] idsIngredients, List<IngredientRecette> ingredients) {
+        Map<Integer, IngredientRecette> voulus = new LinkedHashMap<>(); // ingredient -> quantite
+        for (int i = 0; i < idsIngredients.length; i++) {
+            voulus.put(idsIngredients[i], ingredients.get(i));
+        }
+
+        Ecarts ecarts = new Ecarts();
+        for (Integer id : actuels.keySet()) {
+            if (!voulus.containsKey(id) || doublons.contains(id)) ecarts.aSupprimer.add(id);
+        }
+        for (Map.Entry<Integer, IngredientRecette> e : voulus.entrySet()) {
+            Integer id = e.getKey();
+            if (!actuels.containsKey(id) || doublons.contains(id)) {
+                ecarts.aInserer.put(id, e.getValue());
+            } else if (!egales(actuels.get(id), e.getValue().getQuantite())) {
+                ecarts.aModifier.put(id, e.getValue()); // seule la quantite a change
+            }
+        }
+        return ecarts;
+    }
+
+    private static boolean egales(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    /**
+     * Supprime tous les liens d'une recette sur une connexion donnée,
+     * pour faire partie d'une transaction plus large.
+     * 
+     * @param conn la connexion (et la transaction) à utiliser
+     * @param idRecette l'identifiant de la recette
+     * @throws SQLException en cas d'erreur SQL
+     */
+    void deleteAllForRecette(Connection conn, int idRecette) throws SQLException {
+        String sql = "DELETE FROM recette_ingredients WHERE recette_id = ?";
+        try (PreparedStatement pst = conn.prepareStatement(sql)) {
+            pst.setInt(1, idRecette);
+            pst.executeUpdate();
+        }
+    }
+
+    /**
+     * Insère les liens d'une recette avec un batch JDBC sur une connexion donnée.
+     * Avec reWriteBatchedInserts le driver envoie un seul INSERT multi-lignes.
+     * 
+     * @param conn la connexion (et la transaction) à utiliser
+     * @param idRecette l'identifiant de la recette
+     * @param idsIngredients les identifiants des ingrédients, dans le même ordre que {@code ingredients}
+     * @param ingredients les ingrédients avec leurs quantités
+     * @throws SQLException en cas d'erreur SQL
+     */
+    void insertBatch(Connection conn, int idRecette, int[] idsIngredients, List<IngredientRecette> ingredients)
+            throws SQLException {
+        if (ingredients.isEmpty()) return;
+
+        String sql = "INSERT INTO recette_ingredients(recette_id, ingredient_id, quantite, montant, unite) VALUES(?,?,?,?,?)";
+        try (PreparedStatement pst = conn.prepareStatement(sql)) {
+            for (int i = 0; i < ingredients.size(); i++) {
+                IngredientRecette ir = ingredients.get(i);
+                pst.setInt(1, idRecette);
+                pst.setInt(2, idsIngredients[i]);
+                pst.setString(3, ir.getQuantite());
+                pst.setBigDecimal(4, ir.getMontant()); // analysee une fois ici, plus jamais a la lecture
+                pst.setString(5, ir.getUnite());
+                pst.addBatch(); // on empile, rien n'est envoye pour l'instant
+            }
+
+            pst.executeBatch(); // un seul envoi pr toutes les lignes
         }
     }
 }
@@ -0,0 +1,31 @@
+package com.mycompany.projetrecette;
+
+import java.util.List;
+
+/**
+ * Écouteur des modifications de recettes faites par {@link RecetteDAO}.
+ * Appelé seulement quand l'écriture en base a réussi (après le commit),
+ * sur le thread qui a fait l'appel au DAO, ou sur le thread des notifications de la base
+ * pour les écritures des autres postes (et de nouveau pour celles de ce poste).
+ * Une même modification peut donc arriver plusieurs fois.
+ *
+ * @author bapti
+ * @version 1.0
+ */
+public interface RecetteListener {
+
+    /**
+     * Appelée après l'insertion ou la mise à jour d'une recette.
+     *
+     * @param recette la recette telle qu'enregistrée en base (avec son identifiant)
+     * @param ingredients ses ingrédients, ou null s'ils n'ont pas été modifiés
+     */
+    void recetteEnregistree(Recette recette, List<IngredientRecette> ingredients);
+
+    /**
+     * Appelée après la suppression d'une recette.
+     *
+     * @param idRecette l'identifiant de la recette supprimée
+     */
+    void recetteSupprimee(int idRecette);
+}
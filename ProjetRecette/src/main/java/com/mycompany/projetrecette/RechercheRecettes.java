@@ -0,0 +1,132 @@
+package com.mycompany.projetrecette;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moteur de recherche des recettes, indépendant de l'interface.
+ * Garde un {@link IndexTrigrammes} sur les noms et les genres et un {@link IndexIngredients}
+ * sur les ingrédients ; une recherche ne parcourt donc plus toutes les recettes.
+ * Si un nom ou un ingrédient ne donne rien tel quel, on retente en tolérant des fautes
+ * de frappe ({@link IndexApproche}).
+ * Les index sont tenus à jour par les notifications de {@link RecetteDAO}.
+ * Peut être appelé depuis un thread de travail.
+ *
+ * @author bapti
+ * @version 1.0
+ */
+public class RechercheRecettes implements RecetteListener {
+
+    private final IndexTrigrammes noms = new IndexTrigrammes();
+    private final IndexTrigrammes genres = new IndexTrigrammes();
+    private final IndexApproche nomsApproches = new IndexApproche();
+    private final IndexIngredients indexIngredients;
+
+    /**
+     * Crée le moteur de recherche.
+     *
+     * @param indexIngredients l'index ingrédient vers recettes
+     */
+    public RechercheRecettes(IndexIngredients indexIngredients) {
+        this.indexIngredients = indexIngredients;
+    }
+
+    /**
+     * Charge l'index des ingrédients de toutes les recettes.
+     *
+     * @param nomsIngredients les noms d'ingrédients de chaque recette, par identifiant de recette
+     */
+    public void chargerIngredients(Map<Integer, List<String>> nomsIngredients) {
+        indexIngredients.charger(nomsIngredients);
+    }
+
+    /**
+     * Ajoute des recettes chargées aux index des noms et des genres.
+     *
+     * @param recettes les recettes à indexer
+     */
+    public void indexer(List<Recette> recettes) {
+        for (Recette r : recettes) indexer(r.getIdRecette(), r);
+    }
+
+    /**
+     * Cherche les recettes qui correspondent au texte selon le type de recherche.
+     *
+     * @param texte le texte recherché (non vide)
+     * @param type le type de recherche : "Nom", "Genre" ou "Ingrédient"
+     * @return les identifiants des recettes trouvées, triés
+     */
+    public int[] rechercher(String texte, String type) {
+        switch (type) {
+            case "Nom":
+                int[] ids = noms.rechercher(texte);
+                return ids.length > 0 ? ids : nomsApproches.rechercher(texte); // "courgete" -> courgettes
+            case "Genre":
+                return genres.rechercher(texte);
+            case "Ingrédient":
+                return indexIngredients.rechercher(texte);
+            default:
+                return new int[0];
+        }
+    }
+
+    /**
+     * Retourne le nom d'un ingrédient déjà utilisé qui ressemble à celui donné, pour éviter
+     * d'en créer un presque pareil ("Tomate" ou "tomates" quand "tomate" existe).
+     *
+     * @param nom le nom saisi
+     * @return le nom existant le plus proche, le nom existant s'il ne diffère que par la casse
+     *         ou les accents, ou null si aucun n'est proche
+     */
+    public String ingredientProche(String nom) {
+        return indexIngredients.nomProche(nom);
+    }
+
+    /**
+     * Ajoute des noms d'ingrédients pour l'autocomplétion, même sans recette.
+     *
+     * @param noms les noms d'ingrédients
+     */
+    public void ajouterNomsIngredients(List<String> noms) {
+        indexIngredients.ajouterNoms(noms);
+    }
+
+    /**
+     * Propose les noms d'ingrédients qui commencent par le texte saisi, les plus utilisés d'abord.
+     * Les nouveaux ingrédients y sont dès que la recette qui les utilise est enregistrée
+     * (ici ou sur un autre poste).
+     *
+     * @param debut le début du nom
+     * @param limite le nombre maximum de propositions
+     * @return les noms proposés
+     */
+    public List<String> completerIngredient(String debut, int limite) {
+        return indexIngredients.completer(debut, limite);
+    }
+
+    @Override
+    public void recetteEnregistree(Recette recette, List<IngredientRecette> ingredients) {
+        int idRecette = recette.getIdRecette();
+        indexer(idRecette, recette);
+        if (ingredients != null) {
+            List<String> nomsIng = new ArrayList<>(ingredients.size());
+            for (IngredientRecette ir : ingredients) nomsIng.add(ir.getNomIngredient());
+            indexIngredients.majRecette(idRecette, nomsIng);
+        }
+    }
+
+    @Override
+    public void recetteSupprimee(int idRecette) {
+        noms.retirer(idRecette);
+        nomsApproches.retirer(idRecette);
+        genres.retirer(idRecette);
+        indexIngredients.retirerRecette(idRecette);
+    }
+
+    private void indexer(int idRecette, Recette r) {
+        noms.ajouter(idRecette, r.getCleNom()); // deja normalisees
+        nomsApproches.ajouter(idRecette, r.getCleNom());
+        genres.ajouter(idRecette, r.getCleGenre());
+    }
+}
@@ -0,0 +1,208 @@
+package com.mycompany.projetrecette;
+
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Accès aux recettes, aux ingrédients et aux liens entre les deux, quel que soit l'endroit
+ * où ils sont rangés. {@link StockagePostgres} passe par les DAO et la base PostgreSQL,
+ * {@link StockageMemoire} garde tout en mémoire (sans base, pour les tests de charge
+ * et les benchmarks).
+ * Le stockage utilisé est choisi au démarrage avec la propriété système
+ * {@code recette.stockage} : {@code postgres} (par défaut) ou {@code memoire}.
+ * Avec PostgreSQL, l'appli démarre sur une copie locale du catalogue ({@link StockageInstantane})
+ * rangée dans le fichier {@code recette.instantane} ({@code ~/.projetrecette/catalogue.bin}
+ * par défaut, {@code aucun} pour s'en passer).
+ * Toutes les méthodes sont bloquantes et peuvent être appelées depuis plusieurs threads.
+ *
+ * @author bapti
+ * @version 1.0
+ */
+public interface Stockage {
+
+    /**
+     * Crée le stockage choisi par la propriété système {@code recette.stockage}.
+     *
+     * @return le stockage configuré
+     * @throws IllegalArgumentException si la propriété ne correspond à aucun stockage
+     */
+    static Stockage depuisConfiguration() {
+        String choix = System.getProperty("recette.stockage", "postgres");
+        switch (choix) {
+            case "postgres":
+                String instantane = System.getProperty("recette.instantane",
+                        Paths.get(System.getProperty("user.home"), ".projetrecette", "catalogue.bin").toString());
+                if (instantane.equals("aucun")) return new StockagePostgres();
+                return new StockageInstantane(Paths.get(instantane), StockagePostgres::new);
+            case "memoire":
+                return new StockageMemoire();
+            default:
+                throw new IllegalArgumentException("Stockage inconnu : " + choix + " (postgres ou memoire)");
+        }
+    }
+
+    /**
+     * Ouvre l'accès aux données si ce n'est pas déjà fait. Bloquant : à appeler en arrière-plan.
+     *
+     * @return true si les écritures sont possibles, false si le stockage est en lecture seule
+     */
+    default boolean connecter() {
+        return true;
+    }
+
+    /**
+     * Ajoute un écouteur prévenu après chaque enregistrement ou suppression réussi.
+     *
+     * @param listener l'écouteur à ajouter
+     */
+    void ajouterListener(RecetteListener listener);
+
+    /**
+     * Retire un écouteur.
+     *
+     * @param listener l'écouteur à retirer
+     */
+    void retirerListener(RecetteListener listener);
+
+    /**
+     * Récupère toutes les recettes.
+     *
+     * @return toutes les recettes
+     */
+    List<Recette> getAll();
+
+    /**
+     * Récupère une page de recettes, triées par identifiant.
+     *
+     * @param apresId l'identifiant de la dernière recette de la page précédente (0 pour la première page)
+     * @param limite le nombre maximum de recettes de la page
+     * @return les recettes de la page, moins de {@code limite} si c'est la dernière
+     */
+    List<Recette> getPage(int apresId, int limite);
+
+    /**
+     * Parcourt les recettes dans l'ordre des identifiants, sans forcément tout charger d'un coup.
+     *
+     * @param apresId ne parcourt que les recettes d'identifiant supérieur (0 pour toutes)
+     * @param fetchSize le nombre de recettes lues à la fois, si le stockage en tient compte
+     * @param action appelée pour chaque recette
+     */
+    void parcourir(int apresId, int fetchSize, Consumer<Recette> action);
+
+    /**
+     * Récupère une page de recettes, triées par nom ({@link Recette#PAR_NOM}) puis par identifiant.
+     *
+     * @param apres la dernière recette de la page précédente (null pour la première page)
+     * @param limite le nombre maximum de recettes de la page
+     * @return les recettes de la page, moins de {@code limite} si c'est la dernière
+     * @throws SQLException si la page n'a pas pu être lue (une page courte n'est jamais une erreur)
+     */
+    List<Recette> getPageParNom(Recette apres, int limite) throws SQLException;
+
+    /**
+     * Parcourt les recettes dans l'ordre de {@link #getPageParNom(Recette, int)}.
+     *
+     * @param apres ne parcourt que les recettes qui viennent après celle-ci (null pour toutes)
+     * @param fetchSize le nombre de recettes lues à la fois, si le stockage en tient compte
+     * @param action appelée pour chaque recette
+     * @throws SQLException si le parcours s'est arrêté avant la fin (les recettes déjà passées
+     *         à {@code action} sont bonnes)
+     */
+    void parcourirParNom(Recette apres, int fetchSize, Consumer<Recette> action) throws SQLException;
+
+    /**
+     * Récupère ce qui a changé depuis un numéro du journal des recettes, pour remettre à jour
+     * une copie locale sans tout relire.
+     *
+     * @param depuis le numéro rendu par l'appel précédent ({@link Modifications#getNumero()}),
+     *               -1 pour tout récupérer avec le numéro actuel
+     * @return les modifications, ou null si le stockage n'a pas de journal
+     * @throws SQLException si elles n'ont pas pu être lues (jamais un résultat vide à la place)
+     */
+    default Modifications getModifications(long depuis) throws SQLException {
+        return null;
+    }
+
+    /**
+     * Recherche plein texte dans le nom, les ingrédients et les instructions des recettes.
+     *
+     * @param requete le texte cherché
+     * @param mode la façon de lire le texte
+     * @param limite le nombre maximum de recettes
+     * @return les recettes trouvées, la plus pertinente d'abord
+     */
+    List<Recette> search(String requete, ModeRecherche mode, int limite);
+
+    /**
+     * Enregistre une recette et tous ses ingrédients d'un seul coup.
+     * Insère la recette si son identifiant vaut 0, la met à jour sinon.
+     *
+     * @param recette la recette à enregistrer
+     * @param ingredients les ingrédients de la recette avec leurs quantités
+     * @return la recette telle qu'enregistrée (avec son identifiant), ou null en cas d'erreur
+     *         ou si elle n'existe plus (rien n'est enregistré)
+     */
+    Recette save(Recette recette, List<IngredientRecette> ingredients);
+
+    /**
+     * Supprime une recette et ses liens vers les ingrédients.
+     *
+     * @param idRecette l'identifiant de la recette
+     * @return true si la suppression a réussi
+     */
+    boolean delete(int idRecette);
+
+    /**
+     * Résout les identifiants d'un ensemble de noms d'ingrédients, en créant ceux qui n'existent pas.
+     *
+     * @param noms les noms des ingrédients
+     * @return les identifiants par nom (vide en cas d'erreur)
+     */
+    Map<String, Integer> resoudreIds(Collection<String> noms);
+
+    /**
+     * Récupère les ingrédients d'une recette.
+     *
+     * @param idRecette l'identifiant de la recette
+     * @return les ingrédients avec leurs quantités
+     */
+    List<IngredientRecette> getPourRecette(int idRecette);
+
+    /**
+     * Récupère les ingrédients de plusieurs recettes d'un coup.
+     *
+     * @param idsRecettes les identifiants des recettes
+     * @return les ingrédients par identifiant de recette
+     */
+    Map<Integer, List<IngredientRecette>> getPourRecettes(Collection<Integer> idsRecettes);
+
+    /**
+     * Récupère les noms d'ingrédients de toutes les recettes (pour l'index de recherche).
+     *
+     * @return les noms d'ingrédients par identifiant de recette
+     */
+    Map<Integer, List<String>> getNomsParRecette();
+
+    /**
+     * Récupère les noms de tous les ingrédients connus, utilisés ou non (pour l'autocomplétion).
+     *
+     * @return les noms des ingrédients
+     */
+    List<String> getNomsIngredients();
+
+    /**
+     * Nombre d'appels qu'il est utile de faire en parallèle (la taille du pool pour une base).
+     *
+     * @return le parallélisme conseillé
+     */
+    int getMaxParallele();
+
+    /**
+     * Libère les ressources du stockage (connexions...).
+     */
+    void fermer();
+}
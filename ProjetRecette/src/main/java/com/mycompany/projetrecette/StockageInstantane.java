@@ -0,0 +1,279 @@
+package com.mycompany.projetrecette;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Stockage qui démarre sur une copie locale du catalogue (un {@link Instantane} sur le disque)
+ * en attendant la base. Tant que {@link #connecter()} n'a pas réussi, les lectures viennent de
+ * la copie locale et les écritures sont refusées (mode hors ligne, en lecture seule).
+ * {@link #connecter()} peut être rappelée tant qu'elle échoue (l'application réessaie en arrière-plan).
+ * Une fois la base jointe, la copie locale est remise à jour avec le journal des recettes
+ * (seulement ce qui a changé depuis le numéro gardé dans l'instantané, tout au premier lancement)
+ * et réécrite sur le disque si besoin, puis les lectures et les écritures passent par la base ;
+ * chaque modification signalée par la base (de ce poste ou d'un autre) est aussi faite
+ * sur la copie locale, réécrite à la fermeture.
+ *
+ * @author bapti
+ * @version 1.0
+ */
+public class StockageInstantane implements Stockage {
+
+    private final Path fichier;
+    private final Supplier<Stockage> ouvrirDistant; // cree le stockage de la base (bloquant)
+    private final CompletableFuture<StockageMemoire> local; // l'instantane, lu en arriere-plan
+    private final List<RecetteListener> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile Stockage distant; // null tant que la base n'est pas jointe
+    private volatile boolean modifie; // des ecritures depuis le dernier instantane
+    private volatile long numero = -1; // numero du journal des recettes de la copie locale, -1 si inconnu
+
+    /**
+     * Crée le stockage et commence à lire l'instantané en arrière-plan ; les appels qui en ont
+     * besoin attendent la fin de la lecture. Ne touche pas à la base.
+     *
+     * @param fichier le fichier de l'instantané
+     * @param ouvrirDistant crée le stockage de référence (appelé depuis {@link #connecter()})
+     */
+    public StockageInstantane(Path fichier, Supplier<Stockage> ouvrirDistant) {
+        this.fichier = fichier;
+        this.ouvrirDistant = ouvrirDistant;
+        this.local = CompletableFuture.supplyAsync(this::lireInstantane);
+    }
+
+    private StockageMemoire lireInstantane() {
+        long debut = System.nanoTime();
+        StockageMemoire m = new StockageMemoire();
+        Instantane inst = Instantane.lire(fichier);
+        if (inst != null) {
+            m.charger(inst); // les ingredients restent dans le fichier jusqu'a ce qu'on les lise
+            numero = inst.getNumero();
+            System.out.println("Instantané : " + inst.getNbRecettes() + " recettes en "
+                    + (System.nanoTime() - debut) / 1_000_000 + " ms");
+        }
+        return m;
+    }
+
+    /**
+     * Joint la base, met la copie locale à jour et réécrit l'instantané s'il a changé.
+     * Bloquant : à appeler en arrière-plan. Sans effet si la base est déjà jointe.
+     *
+     * @return true si la base est jointe, false si on reste hors ligne
+     */
+    @Override
+    public synchronized boolean connecter() {
+        if (distant != null) return true;
+
+        Stockage s = ouvrirDistant.get();
+        // avant connecter(), qui demarre l'ecoute : ce qui est commite apres sa fin arrive par
+        // les notifications, meme pendant la lecture du journal (le relais attend notre verrou)
+        Relais relais = new Relais();
+        s.ajouterListener(relais);
+        if (!s.connecter()) {
+            s.retirerListener(relais); // on recommencera avec un nouveau relais
+            System.out.println("Base injoignable ou pas à jour, mode hors ligne (lecture seule)");
+            return false;
+        }
+
+        try {
+            rattraper(s);
+        } catch (SQLException e) {
+            // la copie locale reste telle quelle, on reessaiera avec son numero
+            s.retirerListener(relais);
+            System.out.println("Journal des recettes illisible, mode hors ligne : " + e.getMessage());
+            return false;
+        }
+        distant = s;
+        return true;
+    }
+
+    // met la copie locale a jour depuis son numero du journal ; tout relire si elle n'en a pas
+    // ou si la base n'a pas de journal. Sous le verrou de connecter(), le relais attend la fin
+    private void rattraper(Stockage s) throws SQLException {
+        long debut = System.nanoTime();
+        Modifications m = s.getModifications(numero);
+        if (m == null) {
+            m = toutLire(s); // stockage sans journal
+        }
+
+        if (m.isComplet()) {
+            local().charger(m.getRecettes(), m.getIngredients());
+        } else {
+            for (Recette r : m.getRecettes()) {
+                local().mettre(r, m.getIngredients().getOrDefault(r.getIdRecette(), List.of()));
+            }
+            for (int id : m.getSupprimees()) local().retirer(id);
+        }
+        boolean change = m.isComplet() || !m.getRecettes().isEmpty() || !m.getSupprimees().isEmpty();
+        numero = m.getNumero();
+        System.out.println("Copie locale : " + (m.isComplet() ? "rechargée, " : "")
+                + m.getRecettes().size() + " recettes lues, " + m.getSupprimees().size() + " supprimées en "
+                + (System.nanoTime() - debut) / 1_000_000 + " ms");
+        if (change || modifie) sauvegarder();
+    }
+
+    // tout le catalogue, sans numero du journal (stockage sans journal, en memoire : pas d'erreur possible)
+    private static Modifications toutLire(Stockage s) {
+        List<Recette> toutes = s.getAll();
+        List<Integer> ids = new ArrayList<>(toutes.size());
+        for (Recette r : toutes) ids.add(r.getIdRecette());
+        return new Modifications(-1, true, toutes, s.getPourRecettes(ids), List.of());
+    }
+
+    @Override
+    public void ajouterListener(RecetteListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void retirerListener(RecetteListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public List<Recette> getAll() {
+        return lecture().getAll();
+    }
+
+    @Override
+    public List<Recette> getPage(int apresId, int limite) {
+        return lecture().getPage(apresId, limite);
+    }
+
+    @Override
+    public void parcourir(int apresId, int fetchSize, Consumer<Recette> action) {
+        lecture().parcourir(apresId, fetchSize, action);
+    }
+
+    @Override
+    public List<Recette> getPageParNom(Recette apres, int limite) throws SQLException {
+        return lecture().getPageParNom(apres, limite);
+    }
+
+    @Override
+    public void parcourirParNom(Recette apres, int fetchSize, Consumer<Recette> action) throws SQLException {
+        lecture().parcourirParNom(apres, fetchSize, action);
+    }
+
+    @Override
+    public Modifications getModifications(long depuis) throws SQLException {
+        Stockage s = distant;
+        return s != null ? s.getModifications(depuis) : null; // la copie locale n'a pas de journal
+    }
+
+    @Override
+    public List<Recette> search(String requete, ModeRecherche mode, int limite) {
+        return lecture().search(requete, mode, limite);
+    }
+
+    @Override
+    public Recette save(Recette recette, List<IngredientRecette> ingredients) {
+        if (!connecter()) return null; // hors ligne : lecture seule
+
+        return distant.save(recette, ingredients); // la copie locale suit par le relais
+    }
+
+    @Override
+    public boolean delete(int idRecette) {
+        if (!connecter()) return false;
+
+        return distant.delete(idRecette);
+    }
+
+    @Override
+    public Map<String, Integer> resoudreIds(Collection<String> noms) {
+        if (!connecter()) return Map.of(); // les ids locaux ne valent rien pour la base
+        return distant.resoudreIds(noms);
+    }
+
+    @Override
+    public List<IngredientRecette> getPourRecette(int idRecette) {
+        return lecture().getPourRecette(idRecette);
+    }
+
+    @Override
+    public Map<Integer, List<IngredientRecette>> getPourRecettes(Collection<Integer> idsRecettes) {
+        return lecture().getPourRecettes(idsRecettes);
+    }
+
+    @Override
+    public Map<Integer, List<String>> getNomsParRecette() {
+        return lecture().getNomsParRecette();
+    }
+
+    @Override
+    public List<String> getNomsIngredients() {
+        return lecture().getNomsIngredients(); // hors ligne : ceux des recettes de l'instantane
+    }
+
+    @Override
+    public int getMaxParallele() {
+        return Database.getTailleMaxPool(); // sans ouvrir la base
+    }
+
+    /**
+     * Réécrit l'instantané s'il y a eu des écritures, puis ferme la base.
+     */
+    @Override
+    public void fermer() {
+        Stockage s = distant;
+        if (s == null) return; // hors ligne, l'instantane n'a pas change
+        if (modifie) sauvegarder();
+        s.fermer();
+    }
+
+    // la base si elle est jointe, la copie locale sinon
+    private Stockage lecture() {
+        Stockage s = distant;
+        return s != null ? s : local();
+    }
+
+    // la copie locale, une fois l'instantane lu
+    private StockageMemoire local() {
+        return local.join();
+    }
+
+    // recopie les modifications de la base dans la copie locale, puis previent nos ecouteurs
+    // synchronise sur le stockage : attend la fin de rattraper(), sinon une notification recente
+    // pourrait etre ecrasee par l'etat plus ancien lu dans le journal
+    private final class Relais implements RecetteListener {
+        @Override
+        public void recetteEnregistree(Recette recette, List<IngredientRecette> ingredients) {
+            synchronized (StockageInstantane.this) {
+                local().mettre(recette, ingredients);
+                modifie = true;
+            }
+            for (RecetteListener l : listeners) l.recetteEnregistree(recette, ingredients);
+        }
+
+        @Override
+        public void recetteSupprimee(int idRecette) {
+            synchronized (StockageInstantane.this) {
+                local().retirer(idRecette);
+                modifie = true;
+            }
+            for (RecetteListener l : listeners) l.recetteSupprimee(idRecette);
+        }
+    }
+
+    private void sauvegarder() {
+        List<Recette> toutes = local().getAll();
+        List<Integer> ids = new ArrayList<>(toutes.size());
+        for (Recette r : toutes) ids.add(r.getIdRecette());
+        try {
+            Instantane.ecrire(fichier, toutes, local().getPourRecettes(ids), numero);
+            modifie = false;
+        } catch (IOException e) {
+            System.out.println("Impossible d'écrire l'instantané : " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,452 @@
+package com.mycompany.projetrecette;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Stockage entièrement en mémoire, sans base de données.
+ * Les recettes et leurs ingrédients sont dans des {@link TableInt} (clés {@code int}, sans boxing),
+ * et les identifiants des recettes dans un tableau trié pour la pagination. L'ordre par nom
+ * est un tableau des recettes trié à la première lecture qui en a besoin, refait après une écriture.
+ * Les lectures se font en parallèle, les écritures une à la fois (verrou lecture/écriture).
+ * Sert aussi de copie locale du catalogue pour {@link StockageInstantane}.
+ * Comme avec la base, chaque lecture retourne des copies des recettes : modifier une recette
+ * affichée ne change rien tant qu'elle n'est pas enregistrée.
+ * Tout est perdu à la fermeture de l'application.
+ *
+ * @author bapti
+ * @version 1.0
+ */
+public class StockageMemoire implements Stockage {
+
+    private final ReentrantReadWriteLock verrou = new ReentrantReadWriteLock();
+    private final List<RecetteListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final TableInt<Recette> recettes = new TableInt<>(1024); // id -> recette
+    private final TableInt<List<IngredientRecette>> liens = new TableInt<>(1024); // id recette -> ingredients
+    private final Map<String, Integer> idsIngredients = new HashMap<>(); // nom -> id
+
+    private int[] ids = new int[1024]; // ids des recettes, tries (les nouveaux sont toujours les plus grands)
+    private int nbIds;
+    private int dernierIdRecette;
+    private int dernierIdIngredient;
+    private volatile Recette[] parNom; // les recettes dans l'ordre Recette.PAR_NOM, null apres une ecriture
+
+    @Override
+    public void ajouterListener(RecetteListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void retirerListener(RecetteListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public List<Recette> getAll() {
+        return getPage(0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Recette> getPage(int apresId, int limite) {
+        verrou.readLock().lock();
+        try {
+            int debut = Arrays.binarySearch(ids, 0, nbIds, apresId);
+            debut = debut >= 0 ? debut + 1 : -debut - 1; // la premiere recette apres apresId
+            int fin = (int) Math.min(nbIds, (long) debut + limite);
+
+            List<Recette> page = new ArrayList<>(Math.max(0, fin - debut));
+            for (int i = debut; i < fin; i++) page.add(copie(recettes.get(ids[i])));
+            return page;
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void parcourir(int apresId, int fetchSize, Consumer<Recette> action) {
+        // par paquets de fetchSize, l'action est appelee sans tenir le verrou
+        int taille = Math.max(1, fetchSize);
+        List<Recette> paquet;
+        do {
+            paquet = getPage(apresId, taille);
+            for (Recette r : paquet) action.accept(r);
+            if (!paquet.isEmpty()) apresId = paquet.get(paquet.size() - 1).getIdRecette();
+        } while (paquet.size() == taille);
+    }
+
+    @Override
+    public List<Recette> getPageParNom(Recette apres, int limite) {
+        verrou.readLock().lock();
+        try {
+            Recette[] tries = triesParNom();
+            int debut = 0;
+            if (apres != null) {
+                debut = Arrays.binarySearch(tries, apres, Recette.PAR_NOM);
+                debut = debut >= 0 ? debut + 1 : -debut - 1;
+            }
+            int fin = (int) Math.min(tries.length, (long) debut + limite);
+
+            List<Recette> page = new ArrayList<>(Math.max(0, fin - debut));
+            for (int i = debut; i < fin; i++) page.add(copie(tries[i]));
+            return page;
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void parcourirParNom(Recette apres, int fetchSize, Consumer<Recette> action) {
+        int taille = Math.max(1, fetchSize);
+        List<Recette> paquet;
+        do {
+            paquet = getPageParNom(apres, taille);
+            for (Recette r : paquet) action.accept(r);
+            if (!paquet.isEmpty()) apres = paquet.get(paquet.size() - 1);
+        } while (paquet.size() == taille);
+    }
+
+    /**
+     * Recherche simple, recette par recette : chaque mot doit se trouver dans le nom, les ingrédients
+     * ou les instructions (sans accents ni casse), le nom compte le plus puis les ingrédients.
+     * Contrairement à la base il n'y a ni racines ("pommes" ne trouve pas "pomme")
+     * ni la syntaxe de {@link ModeRecherche#MOTS}.
+     */
+    @Override
+    public List<Recette> search(String requete, ModeRecherche mode, int limite) {
+        List<String> mots = mots(requete);
+        if (mots.isEmpty()) return new ArrayList<>();
+
+        List<Recette> trouvees = new ArrayList<>();
+        Map<Recette, Double> scores = new HashMap<>();
+        verrou.readLock().lock();
+        try {
+            for (int i = 0; i < nbIds; i++) {
+                Recette r = recettes.get(ids[i]);
+                StringBuilder ing = new StringBuilder();
+                for (IngredientRecette ir : liens.get(ids[i])) ing.append(ir.getNomIngredient()).append(' ');
+
+                double score = score(mots, mode, mots(r.getNomRecette()), mots(ing.toString()),
+                        mots(r.getInstructions()));
+                if (score > 0) {
+                    Recette c = copie(r);
+                    trouvees.add(c);
+                    scores.put(c, score);
+                }
+            }
+        } finally {
+            verrou.readLock().unlock();
+        }
+
+        // les ids sont parcourus dans l'ordre, le tri est stable : a score egal par id comme en base
+        trouvees.sort((a, b) -> Double.compare(scores.get(b), scores.get(a)));
+        return new ArrayList<>(trouvees.subList(0, Math.min(limite, trouvees.size())));
+    }
+
+    @Override
+    public Recette save(Recette recette, List<IngredientRecette> ingredients) {
+        ingredients = IngredientRecette.sansDoublons(ingredients); // comme en base
+        Recette enregistree;
+        verrou.writeLock().lock();
+        try {
+            int id = recette.getIdRecette();
+            if (id == 0) {
+                id = dernierIdRecette + 1;
+            } else if (recettes.get(id) == null) {
+                return null; // supprimee entre temps
+            }
+
+            enregistree = copie(recette, id);
+            mettreSousVerrou(enregistree, ingredients);
+            enregistree = copie(enregistree); // l'appelant ne doit pas pouvoir modifier celle gardee
+        } finally {
+            verrou.writeLock().unlock();
+        }
+
+        for (RecetteListener l : listeners) l.recetteEnregistree(enregistree, ingredients);
+        return enregistree;
+    }
+
+    @Override
+    public boolean delete(int idRecette) {
+        retirer(idRecette);
+        // comme en base, supprimer une recette deja absente n'est pas une erreur
+        for (RecetteListener l : listeners) l.recetteSupprimee(idRecette);
+        return true;
+    }
+
+    /**
+     * Remplace tout le contenu par des recettes qui ont déjà leur identifiant (un instantané
+     * ou une copie de la base). Les écouteurs ne sont pas prévenus.
+     *
+     * @param toutes les recettes
+     * @param ingredients les ingrédients par identifiant de recette
+     */
+    void charger(List<Recette> toutes, Map<Integer, List<IngredientRecette>> ingredients) {
+        verrou.writeLock().lock();
+        try {
+            vider();
+            for (Recette r : toutes) {
+                mettreSousVerrou(copie(r), ingredients.getOrDefault(r.getIdRecette(), List.of()));
+            }
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remplace tout le contenu par celui d'un instantané, sans prévenir les écouteurs.
+     * Les recettes sont décodées tout de suite (pagination et tri) ; les ingrédients de chaque
+     * recette restent dans le fichier jusqu'à la première lecture qui en a besoin.
+     *
+     * @param inst l'instantané lu
+     */
+    void charger(Instantane inst) {
+        List<String> noms = inst.getNomsIngredients();
+        boolean sansNoms = noms.isEmpty(); // ancien format : les noms ne sont que dans les ingredients
+        verrou.writeLock().lock();
+        try {
+            vider();
+            for (String nom : noms) idIngredient(nom);
+            for (int i = 0; i < inst.getNbRecettes(); i++) {
+                Recette r = inst.getRecette(i);
+                if (sansNoms) {
+                    mettreSousVerrou(r, inst.getIngredients(i));
+                    continue;
+                }
+                int id = r.getIdRecette();
+                if (recettes.put(id, r) == null) ajouterId(id);
+                liens.put(id, inst.getIngredients(i)); // en lecture seule, decodee a la demande
+                dernierIdRecette = Math.max(dernierIdRecette, id);
+            }
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    // sous le verrou d'ecriture
+    private void vider() {
+        recettes.clear();
+        liens.clear();
+        idsIngredients.clear();
+        nbIds = 0;
+        dernierIdRecette = 0;
+        parNom = null;
+    }
+
+    /**
+     * Ajoute ou remplace une recette qui a déjà son identifiant, sans prévenir les écouteurs.
+     *
+     * @param recette la recette enregistrée ailleurs
+     * @param ingredients ses ingrédients, ou null pour garder ceux qu'elle a déjà
+     */
+    void mettre(Recette recette, List<IngredientRecette> ingredients) {
+        verrou.writeLock().lock();
+        try {
+            if (ingredients == null) ingredients = liens.get(recette.getIdRecette());
+            mettreSousVerrou(copie(recette), ingredients == null ? List.of() : ingredients);
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retire une recette et ses ingrédients, sans prévenir les écouteurs.
+     *
+     * @param idRecette l'identifiant de la recette
+     */
+    void retirer(int idRecette) {
+        verrou.writeLock().lock();
+        try {
+            if (recettes.remove(idRecette) != null) {
+                liens.remove(idRecette);
+                int i = Arrays.binarySearch(ids, 0, nbIds, idRecette);
+                System.arraycopy(ids, i + 1, ids, i, nbIds - i - 1);
+                nbIds--;
+                parNom = null;
+            }
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Map<String, Integer> resoudreIds(Collection<String> noms) {
+        Map<String, Integer> resultat = new HashMap<>();
+        verrou.writeLock().lock();
+        try {
+            for (String nom : noms) resultat.put(nom, idIngredient(nom));
+        } finally {
+            verrou.writeLock().unlock();
+        }
+        return resultat;
+    }
+
+    @Override
+    public List<IngredientRecette> getPourRecette(int idRecette) {
+        verrou.readLock().lock();
+        try {
+            List<IngredientRecette> l = liens.get(idRecette);
+            return l == null ? new ArrayList<>() : new ArrayList<>(l);
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Map<Integer, List<IngredientRecette>> getPourRecettes(Collection<Integer> idsRecettes) {
+        Map<Integer, List<IngredientRecette>> parRecette = new HashMap<>();
+        verrou.readLock().lock();
+        try {
+            for (int id : idsRecettes) {
+                List<IngredientRecette> l = liens.get(id);
+                if (l != null && !l.isEmpty()) parRecette.put(id, new ArrayList<>(l));
+            }
+        } finally {
+            verrou.readLock().unlock();
+        }
+        return parRecette;
+    }
+
+    @Override
+    public Map<Integer, List<String>> getNomsParRecette() {
+        Map<Integer, List<String>> noms = new HashMap<>();
+        verrou.readLock().lock();
+        try {
+            for (int i = 0; i < nbIds; i++) {
+                List<IngredientRecette> l = liens.get(ids[i]);
+                if (l == null || l.isEmpty()) continue;
+                List<String> n = new ArrayList<>(l.size());
+                for (IngredientRecette ir : l) n.add(ir.getNomIngredient());
+                noms.put(ids[i], n);
+            }
+        } finally {
+            verrou.readLock().unlock();
+        }
+        return noms;
+    }
+
+    @Override
+    public List<String> getNomsIngredients() {
+        verrou.readLock().lock();
+        try {
+            return new ArrayList<>(idsIngredients.keySet());
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int getMaxParallele() {
+        return Runtime.getRuntime().availableProcessors(); // pas de connexions a economiser
+    }
+
+    @Override
+    public void fermer() {
+        // rien a liberer
+    }
+
+    // sous le verrou d'ecriture
+    private int idIngredient(String nom) {
+        Integer id = idsIngredients.get(nom);
+        if (id == null) idsIngredients.put(nom, id = ++dernierIdIngredient);
+        return id;
+    }
+
+    // sous le verrou d'ecriture : range la recette (deja copiee) et ses ingredients
+    private void mettreSousVerrou(Recette recette, List<IngredientRecette> ingredients) {
+        int id = recette.getIdRecette();
+        List<IngredientRecette> lignes = new ArrayList<>(ingredients.size());
+        for (IngredientRecette ir : ingredients) {
+            idIngredient(ir.getNomIngredient()); // cree l'ingredient s'il est nouveau
+            // comme en base : le texte, et le montant et l'unite analyses une fois
+            lignes.add(new IngredientRecette(ir.getNomIngredient(), ir.getQuantite(),
+                    ir.getMontant(), ir.getUnite()));
+        }
+
+        if (recettes.put(id, recette) == null) ajouterId(id);
+        liens.put(id, lignes);
+        dernierIdRecette = Math.max(dernierIdRecette, id);
+        parNom = null;
+    }
+
+    // sous le verrou de lecture : les ecritures attendent, deux lecteurs peuvent trier en meme temps sans gene
+    private Recette[] triesParNom() {
+        Recette[] t = parNom;
+        if (t == null) {
+            t = new Recette[nbIds];
+            for (int i = 0; i < nbIds; i++) t[i] = recettes.get(ids[i]);
+            Arrays.parallelSort(t, Recette.PAR_NOM); // les cles de tri restent sur les recettes gardees
+            parNom = t;
+        }
+        return t;
+    }
+
+    // sous le verrou d'ecriture, garde le tableau trie (le plus souvent id est le plus grand)
+    private void ajouterId(int id) {
+        if (nbIds == ids.length) ids = Arrays.copyOf(ids, nbIds * 2);
+        int i = nbIds;
+        if (i > 0 && ids[i - 1] > id) {
+            i = -Arrays.binarySearch(ids, 0, nbIds, id) - 1;
+            System.arraycopy(ids, i, ids, i + 1, nbIds - i);
+        }
+        ids[i] = id;
+        nbIds++;
+    }
+
+    // les poids de ts_rank par defaut : nom (A), ingredients (B), instructions (C)
+    private static final double[] POIDS = { 1.0, 0.4, 0.2 };
+
+    // 0 si la recette ne correspond pas, sinon la somme des poids du meilleur champ de chaque mot
+    @SafeVarargs
+    private static double score(List<String> mots, ModeRecherche mode, List<String>... champs) {
+        if (mode == ModeRecherche.PHRASE) {
+            String phrase = " " + String.join(" ", mots) + " ";
+            for (int c = 0; c < champs.length; c++) {
+                if ((" " + String.join(" ", champs[c]) + " ").contains(phrase)) return POIDS[c] * mots.size();
+            }
+            return 0;
+        }
+
+        double score = 0;
+        for (String mot : mots) {
+            double meilleur = 0;
+            for (int c = 0; c < champs.length && meilleur == 0; c++) { // les champs du plus au moins important
+                for (String m : champs[c]) {
+                    if (mode == ModeRecherche.PREFIXE ? m.startsWith(mot) : m.equals(mot)) {
+                        meilleur = POIDS[c];
+                        break;
+                    }
+                }
+            }
+            if (meilleur == 0) return 0; // tous les mots sont obligatoires
+            score += meilleur;
+        }
+        return score;
+    }
+
+    // les mots d'un texte, en minuscules sans accents
+    private static List<String> mots(String texte) {
+        List<String> mots = new ArrayList<>();
+        for (String m : Normalisation.normaliser(texte).split("[^\\p{L}\\p{N}]+")) {
+            if (!m.isEmpty()) mots.add(m);
+        }
+        return mots;
+    }
+
+    private static Recette copie(Recette r) {
+        return copie(r, r.getIdRecette());
+    }
+
+    private static Recette copie(Recette r, int id) {
+        return new Recette(id, r.getNomRecette(), r.getGenreRecette(), r.getIngredients(),
+                r.getInstructions(), r.getDuree(), r.getNbPersonnes(), r.getPrixMoyen());
+    }
+}
@@ -0,0 +1,181 @@
+package com.mycompany.projetrecette;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Stockage dans la base PostgreSQL, à travers {@link RecetteDAO}, {@link IngredientDAO}
+ * et {@link RecetteIngredientDAO}. La base (et son pool) n'est ouverte qu'au premier appel
+ * qui en a besoin, en général {@link #connecter()} en arrière-plan.
+ * Une fois connecté, les notifications de la base sont écoutées : les écouteurs sont aussi
+ * prévenus des modifications faites sur les autres postes, à partir du retour de {@link #connecter()}.
+ *
+ * @author bapti
+ * @version 1.0
+ */
+public class StockagePostgres implements Stockage {
+
+    private RecetteDAO recetteDAO; // crees au premier appel, ils ouvrent la base
+    private IngredientDAO ingredientDAO;
+    private volatile boolean ouverte;
+
+    /**
+     * Crée le stockage, sans ouvrir la base.
+     */
+    public StockagePostgres() {
+        // rien, voir ouvrir()
+    }
+
+    // ouvre la base au premier appel qui en a besoin (bloquant)
+    private void ouvrir() {
+        if (ouverte) return;
+        synchronized (this) {
+            if (ouverte) return;
+            recetteDAO = new RecetteDAO();
+            ingredientDAO = new IngredientDAO();
+            ouverte = true; // publie les deux DAO
+        }
+    }
+
+    private RecetteDAO recettes() {
+        ouvrir();
+        return recetteDAO;
+    }
+
+    private IngredientDAO ingredients() {
+        ouvrir();
+        return ingredientDAO;
+    }
+
+    /**
+     * Ouvre la base si ce n'est pas déjà fait, vérifie la version du schéma sur une vraie connexion
+     * et démarre l'écoute des notifications. Peut être rappelée tant qu'elle échoue :
+     * le pool réessaie d'ouvrir une connexion à chaque emprunt.
+     * Une base qui attend des migrations ({@code --migrer}) compte comme injoignable : les requêtes
+     * sur les ingrédients et toutes les écritures utilisent les colonnes des derniers scripts,
+     * l'application reste donc hors ligne (en lecture seule) jusqu'à ce que la base soit à jour.
+     *
+     * @return true si la base a répondu et que son schéma est à jour
+     */
+    @Override
+    public boolean connecter() {
+        RecetteDAO dao = recettes();
+        Database db = Database.getInstance();
+        try {
+            // emprunte une connexion, donc la base repond vraiment
+            if (!db.verifierSchema()) return false; // deja signale, on reessaiera plus tard
+        } catch (SQLException e) {
+            System.out.println("Base injoignable : " + e.getMessage());
+            return false;
+        }
+        // avant de rendre la main : l'appelant lit ensuite le journal, rien ne doit passer entre les deux
+        if (!db.demarrerEcoute(dao::appliquerNotification, "recettes", "recette_ingredients")) {
+            System.out.println("Écoute des notifications pas encore active");
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void ajouterListener(RecetteListener listener) {
+        RecetteDAO.ajouterListener(listener);
+    }
+
+    @Override
+    public void retirerListener(RecetteListener listener) {
+        RecetteDAO.retirerListener(listener);
+    }
+
+    @Override
+    public List<Recette> getAll() {
+        return recettes().getAll();
+    }
+
+    @Override
+    public List<Recette> getPage(int apresId, int limite) {
+        return recettes().getPage(apresId, limite);
+    }
+
+    @Override
+    public void parcourir(int apresId, int fetchSize, Consumer<Recette> action) {
+        recettes().parcourir(apresId, fetchSize, action);
+    }
+
+    @Override
+    public List<Recette> getPageParNom(Recette apres, int limite) throws SQLException {
+        return recettes().getPageParNom(apres, limite);
+    }
+
+    @Override
+    public void parcourirParNom(Recette apres, int fetchSize, Consumer<Recette> action) throws SQLException {
+        recettes().parcourirParNom(apres, fetchSize, action);
+    }
+
+    @Override
+    public Modifications getModifications(long depuis) throws SQLException {
+        Modifications m = recettes().getModifications(depuis);
+        if (m.getRecettes().isEmpty()) return m;
+
+        List<Integer> ids = new ArrayList<>(m.getRecettes().size());
+        for (Recette r : m.getRecettes()) ids.add(r.getIdRecette());
+        return m.avecIngredients(ingredients().lirePourRecettes(ids)); // une erreur ne donne pas des listes vides
+    }
+
+    @Override
+    public List<Recette> search(String requete, ModeRecherche mode, int limite) {
+        return recettes().search(requete, mode, limite);
+    }
+
+    @Override
+    public Recette save(Recette recette, List<IngredientRecette> ingredients) {
+        return recettes().save(recette, ingredients);
+    }
+
+    @Override
+    public boolean delete(int idRecette) {
+        return recettes().delete(idRecette); // avec ses liens
+    }
+
+    @Override
+    public Map<String, Integer> resoudreIds(Collection<String> noms) {
+        return ingredients().resoudreIds(noms);
+    }
+
+    @Override
+    public List<IngredientRecette> getPourRecette(int idRecette) {
+        return ingredients().getPourRecette(idRecette);
+    }
+
+    @Override
+    public Map<Integer, List<IngredientRecette>> getPourRecettes(Collection<Integer> idsRecettes) {
+        return ingredients().getPourRecettes(idsRecettes);
+    }
+
+    @Override
+    public Map<Integer, List<String>> getNomsParRecette() {
+        return ingredients().getNomsParRecette();
+    }
+
+    @Override
+    public List<String> getNomsIngredients() {
+        return ingredients().getNoms();
+    }
+
+    @Override
+    public int getMaxParallele() {
+        return Database.getTailleMaxPool(); // pas plus d'appels que de connexions, sans ouvrir la base
+    }
+
+    @Override
+    public void fermer() {
+        if (!ouverte) return; // jamais ouverte, on ne l'ouvre pas pour la fermer
+        IngredientsRecetteCache c = IngredientDAO.getCacheRecettes();
+        System.out.println(String.format("Cache des ingrédients : %.0f %% de succès, %d évictions, %d recettes (~%d Ko)",
+                c.getTauxSucces() * 100, c.getEvictions(), c.size(), c.getOctetsEstimes() / 1024));
+        Database.getInstance().fermer(); // ferme toutes les connections du pool
+    }
+}
@@ -0,0 +1,137 @@
+package com.mycompany.projetrecette;
+
+import java.util.Arrays;
+
+/**
+ * Table de hachage à clés {@code int}, sans boxing : les clés sont dans un {@code int[]}
+ * et les valeurs dans un tableau parallèle (adressage ouvert, sondage linéaire).
+ * Une case est libre quand sa valeur est null, les valeurs null sont donc interdites.
+ * Pas thread-safe : l'appelant synchronise (voir {@link StockageMemoire}).
+ *
+ * @param <V> le type des valeurs
+ * @author bapti
+ * @version 1.0
+ */
+class TableInt<V> {
+
+    private int[] cles;
+    private Object[] valeurs;
+    private int taille;
+    private int masque; // capacite - 1, la capacite est une puissance de 2
+
+    /**
+     * Crée une table vide.
+     *
+     * @param capaciteInitiale le nombre d'entrées prévu
+     */
+    TableInt(int capaciteInitiale) {
+        int capacite = Integer.highestOneBit(Math.max(4, capaciteInitiale * 2 - 1)) << 1;
+        cles = new int[capacite];
+        valeurs = new Object[capacite];
+        masque = capacite - 1;
+    }
+
+    /**
+     * Retourne la valeur associée à une clé.
+     *
+     * @param cle la clé
+     * @return la valeur, ou null si la clé est absente
+     */
+    @SuppressWarnings("unchecked")
+    V get(int cle) {
+        for (int i = place(cle); valeurs[i] != null; i = (i + 1) & masque) {
+            if (cles[i] == cle) return (V) valeurs[i];
+        }
+        return null;
+    }
+
+    /**
+     * Associe une valeur à une clé.
+     *
+     * @param cle la clé
+     * @param valeur la valeur, non null
+     * @return l'ancienne valeur, ou null si la clé était absente
+     */
+    @SuppressWarnings("unchecked")
+    V put(int cle, V valeur) {
+        if (valeur == null) throw new NullPointerException("valeur");
+        int i = place(cle);
+        for (; valeurs[i] != null; i = (i + 1) & masque) {
+            if (cles[i] == cle) {
+                V ancienne = (V) valeurs[i];
+                valeurs[i] = valeur;
+                return ancienne;
+            }
+        }
+        cles[i] = cle;
+        valeurs[i] = valeur;
+        if (++taille * 2 > valeurs.length) agrandir(); // on garde au moins la moitie des cases libres
+        return null;
+    }
+
+    /**
+     * Retire une clé.
+     *
+     * @param cle la clé
+     * @return la valeur retirée, ou null si la clé était absente
+     */
+    @SuppressWarnings("unchecked")
+    V remove(int cle) {
+        int i = place(cle);
+        for (; valeurs[i] != null; i = (i + 1) & masque) {
+            if (cles[i] == cle) break;
+        }
+        V retiree = (V) valeurs[i];
+        if (retiree == null) return null;
+
+        // on recule les entrees suivantes de la meme sequence pr ne pas laisser de trou
+        int trou = i;
+        for (int j = (i + 1) & masque; valeurs[j] != null; j = (j + 1) & masque) {
+            int ideale = place(cles[j]);
+            // l'entree j peut combler le trou si sa place ideale n'est pas entre le trou et j
+            if (((j - ideale) & masque) >= ((j - trou) & masque)) {
+                cles[trou] = cles[j];
+                valeurs[trou] = valeurs[j];
+                trou = j;
+            }
+        }
+        valeurs[trou] = null;
+        taille--;
+        return retiree;
+    }
+
+    /**
+     * Retourne le nombre d'entrées.
+     *
+     * @return la taille de la table
+     */
+    int size() {
+        return taille;
+    }
+
+    /**
+     * Vide la table.
+     */
+    void clear() {
+        Arrays.fill(valeurs, null);
+        taille = 0;
+    }
+
+    private int place(int cle) {
+        int h = cle * 0x9E3779B9; // melange de Fibonacci, les ids consecutifs se dispersent
+        return (h ^ (h >>> 16)) & masque;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void agrandir() {
+        int[] anciennesCles = cles;
+        Object[] anciennesValeurs = valeurs;
+        cles = new int[anciennesCles.length * 2];
+        valeurs = new Object[anciennesValeurs.length * 2];
+        masque = cles.length - 1;
+        taille = 0;
+        for (int i = 0; i < anciennesValeurs.length; i++) {
+            if (anciennesValeurs[i] != null) put(anciennesCles[i], (V) anciennesValeurs[i]);
+        }
+    }
+}
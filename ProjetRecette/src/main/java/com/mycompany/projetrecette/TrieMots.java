@@ -0,0 +1,301 @@
+package com.mycompany.projetrecette;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Arbre des préfixes (trie) d'un ensemble de mots, pour retrouver les mots proches d'un mot
+ * mal tapé ("courgete" trouve "courgette") selon la distance de Levenshtein.
+ * La recherche simule un automate de Levenshtein sur l'arbre : on descend lettre par lettre
+ * en calculant une ligne de la matrice des distances par nœud, et on abandonne une branche dès
+ * que toute sa ligne dépasse la distance voulue. Les mots qui partagent un début ne sont donc
+ * comparés qu'une fois pour ce début, et la plupart des branches sont coupées après 2 ou 3 lettres.
+ * Chaque mot peut avoir un poids, pour proposer les mots qui commencent par un texte donné,
+ * les plus lourds d'abord ({@link #completer(String, int)}, l'autocomplétion). Chaque nœud garde
+ * le plus grand poids de sa branche : la complétion va d'abord vers les branches les plus lourdes
+ * et s'arrête dès qu'elle a ses mots, sans parcourir le reste.
+ * Les mots s'ajoutent et se retirent un par un, sans reconstruire l'arbre.
+ * Pas synchronisé : c'est à l'index qui l'utilise de protéger les accès.
+ *
+ * @author bapti
+ * @version 1.0
+ */
+public class TrieMots {
+
+    // le plus lourd d'abord, puis par ordre alphabetique ; une branche passe avant ses mots
+    // (poids max >= celui de ses mots, prefixe <= ses mots)
+    private static final Comparator<Candidat> ORDRE_COMPLETION =
+            Comparator.comparingInt((Candidat c) -> -c.poids).thenComparing(c -> c.texte);
+
+    private static final int SANS_MOT = Integer.MIN_VALUE; // max d'une branche sans aucun mot
+
+    private final Noeud racine = new Noeud();
+    private int taille;
+
+    /**
+     * Ajoute un mot (sans effet s'il y est déjà).
+     *
+     * @param mot le mot (déjà normalisé)
+     */
+    public void ajouter(String mot) {
+        Noeud[] chemin = chemin(mot);
+        Noeud n = chemin[mot.length()];
+        if (n.mot == null) {
+            n.mot = mot;
+            taille++;
+            recalculer(chemin);
+        }
+    }
+
+    /**
+     * Change le poids d'un mot, en l'ajoutant s'il n'y est pas.
+     *
+     * @param mot le mot (déjà normalisé)
+     * @param poids son nouveau poids
+     */
+    public void setPoids(String mot, int poids) {
+        Noeud[] chemin = chemin(mot);
+        Noeud n = chemin[mot.length()];
+        if (n.mot == null) {
+            n.mot = mot;
+            taille++;
+        }
+        n.poids = poids;
+        recalculer(chemin);
+    }
+
+    /**
+     * Retire un mot. Les nœuds qui ne mènent plus à aucun mot restent, ils sont réutilisés
+     * si le mot revient.
+     *
+     * @param mot le mot (déjà normalisé)
+     */
+    public void retirer(String mot) {
+        Noeud[] chemin = new Noeud[mot.length() + 1];
+        Noeud n = chemin[0] = racine;
+        for (int i = 0; i < mot.length(); i++) {
+            n = n.enfant(mot.charAt(i));
+            if (n == null) return;
+            chemin[i + 1] = n;
+        }
+        if (n.mot != null) {
+            n.mot = null;
+            n.poids = 0;
+            taille--;
+            recalculer(chemin);
+        }
+    }
+
+    /**
+     * Retourne les mots qui commencent par un texte, les plus lourds d'abord
+     * (à poids égal par ordre alphabétique).
+     * Part du nœud du début donné et descend toujours vers la branche au plus grand poids :
+     * une branche n'est ouverte que si elle peut encore fournir l'un des {@code limite} meilleurs mots,
+     * le coût dépend de {@code limite} et de la longueur des mots, pas de la taille de la branche.
+     *
+     * @param debut le début des mots (déjà normalisé)
+     * @param limite le nombre maximum de mots
+     * @return les mots trouvés
+     */
+    public List<String> completer(String debut, int limite) {
+        Noeud n = racine;
+        for (int i = 0; i < debut.length() && n != null; i++) n = n.enfant(debut.charAt(i));
+        List<String> mots = new ArrayList<>();
+        if (n == null || n.max == SANS_MOT || limite <= 0) return mots;
+
+        // le meilleur candidat en tete : un mot sorti est forcement meilleur que tout ce qui reste
+        PriorityQueue<Candidat> candidats = new PriorityQueue<>(ORDRE_COMPLETION);
+        candidats.add(new Candidat(n, debut, n.max));
+        while (!candidats.isEmpty() && mots.size() < limite) {
+            Candidat c = candidats.poll();
+            if (c.noeud == null) {
+                mots.add(c.texte);
+                continue;
+            }
+            Noeud courant = c.noeud;
+            if (courant.mot != null) candidats.add(new Candidat(null, courant.mot, courant.poids));
+            for (int i = 0; i < courant.nbEnfants; i++) {
+                Noeud e = courant.enfants[i];
+                if (e.max != SANS_MOT) candidats.add(new Candidat(e, c.texte + courant.lettres[i], e.max));
+            }
+        }
+        return mots;
+    }
+
+    /**
+     * Cherche les mots à au plus {@code distanceMax} modifications (ajout, suppression
+     * ou remplacement d'une lettre) du mot donné.
+     *
+     * @param mot le mot cherché (déjà normalisé)
+     * @param distanceMax le nombre maximum de modifications
+     * @return les mots trouvés, du plus proche au plus éloigné
+     */
+    public List<String> rechercher(String mot, int distanceMax) {
+        List<String> trouves = new ArrayList<>();
+        List<Integer> distances = new ArrayList<>();
+
+        // une ligne par profondeur, reutilisee d'une branche a l'autre ; on ne descend jamais
+        // plus bas que la longueur du mot + distanceMax (plus de lettres que ca : trop loin)
+        int[][] lignes = new int[mot.length() + distanceMax + 2][mot.length() + 1];
+        for (int i = 0; i <= mot.length(); i++) lignes[0][i] = i; // depuis le mot vide
+        if (racine.mot != null && lignes[0][mot.length()] <= distanceMax) {
+            trouves.add(racine.mot);
+            distances.add(lignes[0][mot.length()]);
+        }
+        for (int i = 0; i < racine.nbEnfants; i++) {
+            descendre(racine.enfants[i], racine.lettres[i], mot, lignes, 1, distanceMax, trouves, distances);
+        }
+
+        // tri par distance, peu de resultats
+        Integer[] ordre = new Integer[trouves.size()];
+        for (int i = 0; i < ordre.length; i++) ordre[i] = i;
+        Arrays.sort(ordre, (a, b) -> Integer.compare(distances.get(a), distances.get(b)));
+        List<String> tries = new ArrayList<>(ordre.length);
+        for (int i : ordre) tries.add(trouves.get(i));
+        return tries;
+    }
+
+    /**
+     * Retourne le nombre de mots.
+     * @return le nombre de mots
+     */
+    public int taille() {
+        return taille;
+    }
+
+    // les noeuds du mot depuis la racine (crees s'il le faut), chemin[i] apres i lettres
+    private Noeud[] chemin(String mot) {
+        Noeud[] chemin = new Noeud[mot.length() + 1];
+        Noeud n = chemin[0] = racine;
+        for (int i = 0; i < mot.length(); i++) chemin[i + 1] = n = n.enfantOuNouveau(mot.charAt(i));
+        return chemin;
+    }
+
+    // remet a jour le poids max des noeuds du chemin, du bas vers la racine
+    private static void recalculer(Noeud[] chemin) {
+        for (int i = chemin.length - 1; i >= 0; i--) {
+            Noeud n = chemin[i];
+            int max = n.mot != null ? n.poids : SANS_MOT;
+            for (int j = 0; j < n.nbEnfants; j++) max = Math.max(max, n.enfants[j].max);
+            n.max = max;
+        }
+    }
+
+    // une lettre de plus dans l'arbre : la ligne suivante de la matrice, a partir de celle du parent
+    private static void descendre(Noeud n, char lettre, String mot, int[][] lignes, int profondeur,
+                                  int distanceMax, List<String> trouves, List<Integer> distances) {
+        int m = mot.length();
+        int[] precedente = lignes[profondeur - 1];
+        int[] ligne = lignes[profondeur];
+        ligne[0] = profondeur;
+        int min = ligne[0];
+        for (int i = 1; i <= m; i++) {
+            int cout = mot.charAt(i - 1) == lettre ? 0 : 1;
+            int v = Math.min(Math.min(ligne[i - 1], precedente[i]) + 1, precedente[i - 1] + cout);
+            ligne[i] = v;
+            if (v < min) min = v;
+        }
+        if (min > distanceMax) return; // tous les mots de cette branche sont trop loin
+
+        if (n.mot != null && ligne[m] <= distanceMax) {
+            trouves.add(n.mot);
+            distances.add(ligne[m]);
+        }
+        for (int i = 0; i < n.nbEnfants; i++) {
+            descendre(n.enfants[i], n.lettres[i], mot, lignes, profondeur + 1, distanceMax, trouves, distances);
+        }
+    }
+
+    /**
+     * Distance de Levenshtein entre deux mots, calculée sur deux lignes seulement.
+     * Le calcul s'arrête dès qu'elle dépasse forcément {@code max}.
+     *
+     * @param a le premier mot
+     * @param b le second mot
+     * @param max la distance au-delà de laquelle la valeur exacte n'intéresse pas
+     * @return la distance, ou un nombre plus grand que {@code max} si elle le dépasse
+     */
+    public static int distance(String a, String b, int max) {
+        int la = a.length();
+        int lb = b.length();
+        if (Math.abs(la - lb) > max) return max + 1; // il faut au moins autant d'ajouts
+        if (la == 0) return lb;
+        if (lb == 0) return la;
+
+        int[] precedente = new int[lb + 1];
+        int[] courante = new int[lb + 1];
+        for (int j = 0; j <= lb; j++) precedente[j] = j;
+
+        for (int i = 1; i <= la; i++) {
+            courante[0] = i;
+            int minLigne = i;
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= lb; j++) {
+                int cout = ca == b.charAt(j - 1) ? 0 : 1;
+                int v = Math.min(Math.min(courante[j - 1], precedente[j]) + 1, precedente[j - 1] + cout);
+                courante[j] = v;
+                if (v < minLigne) minLigne = v;
+            }
+            if (minLigne > max) return max + 1; // la distance ne fait que croitre d'une ligne a l'autre
+            int[] t = precedente;
+            precedente = courante;
+            courante = t;
+        }
+        return precedente[lb];
+    }
+
+    /**
+     * Un candidat de la complétion : une branche (avec le plus grand poids de ses mots) ou un mot.
+     */
+    private static final class Candidat {
+        final Noeud noeud; // null pour un mot
+        final String texte; // le debut de la branche, ou le mot
+        final int poids;
+
+        Candidat(Noeud noeud, String texte, int poids) {
+            this.noeud = noeud;
+            this.texte = texte;
+            this.poids = poids;
+        }
+    }
+
+    /**
+     * Un nœud : ses enfants par lettre (tableaux triés, il y en a peu), le mot qui s'y termine
+     * et le plus grand poids des mots de sa branche.
+     */
+    private static final class Noeud {
+        char[] lettres = new char[0];
+        Noeud[] enfants = new Noeud[0];
+        int nbEnfants;
+        String mot; // null si aucun mot ne finit ici
+        int poids;
+        int max = SANS_MOT; // le plus grand poids de la branche (ce noeud compris)
+
+        Noeud enfant(char c) {
+            int i = Arrays.binarySearch(lettres, 0, nbEnfants, c);
+            return i >= 0 ? enfants[i] : null;
+        }
+
+        Noeud enfantOuNouveau(char c) {
+            int i = Arrays.binarySearch(lettres, 0, nbEnfants, c);
+            if (i >= 0) return enfants[i];
+
+            i = -i - 1;
+            if (nbEnfants == lettres.length) {
+                int capacite = Math.max(2, nbEnfants * 2);
+                lettres = Arrays.copyOf(lettres, capacite);
+                enfants = Arrays.copyOf(enfants, capacite);
+            }
+            System.arraycopy(lettres, i, lettres, i + 1, nbEnfants - i);
+            System.arraycopy(enfants, i, enfants, i + 1, nbEnfants - i);
+            Noeud n = new Noeud();
+            lettres[i] = c;
+            enfants[i] = n;
+            nbEnfants++;
+            return n;
+        }
+    }
+}
@@ -2,6 +2,7 @@ module com.mycompany.projetrecette {
     requires javafx.controls;
     requires javafx.graphics;
     requires java.sql;
+    requires java.management; // les mesures publiees en JMX
 
     opens com.mycompany.projetrecette;
     exports com.mycompany.projetrecette;
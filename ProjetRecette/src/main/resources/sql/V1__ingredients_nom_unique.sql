@@ -0,0 +1,13 @@
+-- Un seul ingredient par nom, pour pouvoir faire des upserts (ON CONFLICT (nom)).
+-- On fusionne d'abord les doublons existants sur le plus petit id.
+
+UPDATE recette_ingredients ri
+SET ingredient_id = d.garde
+FROM (SELECT id, min(id) OVER (PARTITION BY nom) AS garde FROM ingredients) d
+WHERE ri.ingredient_id = d.id AND d.id <> d.garde;
+
+DELETE FROM ingredients i
+USING (SELECT id, min(id) OVER (PARTITION BY nom) AS garde FROM ingredients) d
+WHERE i.id = d.id AND d.id <> d.garde;
+
+CREATE UNIQUE INDEX IF NOT EXISTS ingredients_nom_key ON ingredients(nom);
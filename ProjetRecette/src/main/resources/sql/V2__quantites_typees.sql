@@ -0,0 +1,6 @@
+-- La quantite analysee a cote du texte saisi : montant numerique et unite normalisee (g, kg, ml, l...).
+-- NULL tant que la ligne n'est pas analysee ou si le texte n'a pas de nombre ("une pincee").
+-- Les lignes existantes sont remplies par la migration java V3 (voir Migrations).
+
+ALTER TABLE recette_ingredients ADD COLUMN IF NOT EXISTS montant NUMERIC;
+ALTER TABLE recette_ingredients ADD COLUMN IF NOT EXISTS unite TEXT;
@@ -0,0 +1,35 @@
+-- Chaque modification de recettes ou de recette_ingredients publie une notification (NOTIFY),
+-- pour que les autres postes mettent a jour leur liste et leurs caches sans tout recharger.
+-- Canal recettes : 'I:<id>', 'U:<id>' ou 'D:<id>'. Canal recette_ingredients : '<recette_id>'.
+-- Les notifications partent au commit, et les doublons d'une meme transaction n'en font qu'une
+-- (un batch de 20 liens pour une recette ne donne qu'un seul evenement).
+
+CREATE OR REPLACE FUNCTION notifier_recette() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        PERFORM pg_notify('recettes', 'D:' || OLD.id);
+    ELSE
+        PERFORM pg_notify('recettes', left(TG_OP, 1) || ':' || NEW.id);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION notifier_recette_ingredients() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        PERFORM pg_notify('recette_ingredients', OLD.recette_id::text);
+    ELSE
+        PERFORM pg_notify('recette_ingredients', NEW.recette_id::text);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS recettes_notifier ON recettes;
+CREATE TRIGGER recettes_notifier AFTER INSERT OR UPDATE OR DELETE ON recettes
+    FOR EACH ROW EXECUTE PROCEDURE notifier_recette();
+
+DROP TRIGGER IF EXISTS recette_ingredients_notifier ON recette_ingredients;
+CREATE TRIGGER recette_ingredients_notifier AFTER INSERT OR UPDATE OR DELETE ON recette_ingredients
+    FOR EACH ROW EXECUTE PROCEDURE notifier_recette_ingredients();
@@ -0,0 +1,23 @@
+-- Tri des recettes par nom dans l'ordre du francais ("Eclair" avec les E, pas apres "Zeste"),
+-- sans tenir compte de la casse, comme Recette.PAR_NOM cote client.
+-- La collation ICU si le serveur l'a, sinon la locale fr_FR du systeme, sinon celle par defaut
+-- (l'ordre est alors moins bon mais tout marche).
+-- L'index (nom, id) sert au chargement page par page dans cet ordre (RecetteDAO.getPageParNom).
+
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_collation WHERE collname = 'francais') THEN
+        BEGIN
+            CREATE COLLATION francais (provider = icu, locale = 'fr-u-ks-level2');
+        EXCEPTION WHEN OTHERS THEN
+            BEGIN
+                CREATE COLLATION francais (locale = 'fr_FR.utf8');
+            EXCEPTION WHEN OTHERS THEN
+                CREATE COLLATION francais FROM "default";
+            END;
+        END;
+    END IF;
+END;
+$$;
+
+CREATE INDEX IF NOT EXISTS recettes_nom_francais_idx ON recettes (nom COLLATE francais, id);
@@ -0,0 +1,61 @@
+-- Recherche plein texte en base (RecetteDAO.search) : nom, ingredients et instructions de chaque recette,
+-- avec la configuration french (racine des mots, sans les mots vides : "pommes" trouve "pomme").
+-- Les noms des ingredients sont recopies dans recettes.noms_ingredients par des triggers sur
+-- recette_ingredients (une colonne generee ne peut pas lire une autre table), puis la colonne
+-- generee recherche les combine, ponderes : nom (A), ingredients (B), instructions (C).
+
+ALTER TABLE recettes ADD COLUMN IF NOT EXISTS noms_ingredients TEXT;
+ALTER TABLE recettes ADD COLUMN IF NOT EXISTS recherche tsvector GENERATED ALWAYS AS (
+    setweight(to_tsvector('french'::regconfig, coalesce(nom, '')), 'A') ||
+    setweight(to_tsvector('french'::regconfig, coalesce(noms_ingredients, '')), 'B') ||
+    setweight(to_tsvector('french'::regconfig, coalesce(instructions, '')), 'C')
+) STORED;
+
+CREATE INDEX IF NOT EXISTS recettes_recherche_idx ON recettes USING gin (recherche);
+
+CREATE OR REPLACE FUNCTION maj_noms_ingredients(ids INT[]) RETURNS void AS $$
+    UPDATE recettes r
+    SET noms_ingredients = (SELECT string_agg(i.nom, ' ' ORDER BY i.nom)
+                            FROM recette_ingredients ri JOIN ingredients i ON i.id = ri.ingredient_id
+                            WHERE ri.recette_id = r.id)
+    WHERE r.id = ANY(ids);
+$$ LANGUAGE sql;
+
+-- un appel par requete et pas par ligne : le batch des liens d'une recette ne la reecrit qu'une fois
+CREATE OR REPLACE FUNCTION noms_ingredients_apres_modif() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        PERFORM maj_noms_ingredients(ARRAY(SELECT DISTINCT recette_id FROM nouveaux));
+    ELSIF TG_OP = 'DELETE' THEN
+        PERFORM maj_noms_ingredients(ARRAY(SELECT DISTINCT recette_id FROM anciens));
+    ELSE
+        PERFORM maj_noms_ingredients(ARRAY(SELECT recette_id FROM nouveaux UNION SELECT recette_id FROM anciens));
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- une table de transition par evenement, donc trois triggers
+DROP TRIGGER IF EXISTS recette_ingredients_noms_insert ON recette_ingredients;
+CREATE TRIGGER recette_ingredients_noms_insert AFTER INSERT ON recette_ingredients
+    REFERENCING NEW TABLE AS nouveaux
+    FOR EACH STATEMENT EXECUTE PROCEDURE noms_ingredients_apres_modif();
+
+DROP TRIGGER IF EXISTS recette_ingredients_noms_update ON recette_ingredients;
+CREATE TRIGGER recette_ingredients_noms_update AFTER UPDATE ON recette_ingredients
+    REFERENCING OLD TABLE AS anciens NEW TABLE AS nouveaux
+    FOR EACH STATEMENT EXECUTE PROCEDURE noms_ingredients_apres_modif();
+
+DROP TRIGGER IF EXISTS recette_ingredients_noms_delete ON recette_ingredients;
+CREATE TRIGGER recette_ingredients_noms_delete AFTER DELETE ON recette_ingredients
+    REFERENCING OLD TABLE AS anciens
+    FOR EACH STATEMENT EXECUTE PROCEDURE noms_ingredients_apres_modif();
+
+-- recopier les noms ne doit pas notifier les autres postes (V4) : seulement les colonnes affichees
+DROP TRIGGER IF EXISTS recettes_notifier ON recettes;
+CREATE TRIGGER recettes_notifier
+    AFTER INSERT OR DELETE OR UPDATE OF nom, genre, ingredients, instructions, duree, nb_personnes, prix_moyen
+    ON recettes FOR EACH ROW EXECUTE PROCEDURE notifier_recette();
+
+-- les recettes existantes
+SELECT maj_noms_ingredients(ARRAY(SELECT id FROM recettes));
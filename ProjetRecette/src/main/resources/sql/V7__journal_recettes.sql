@@ -0,0 +1,39 @@
+-- Journal des recettes modifiees, pr que la copie locale du catalogue (StockageInstantane) ne relise
+-- au demarrage que ce qui a change depuis sa derniere mise a jour, au lieu de tout le catalogue.
+-- Une ligne par recette : chaque ecriture sur la recette ou sur ses ingredients lui donne le numero
+-- suivant de la sequence. Une recette supprimee garde sa ligne (elle n'est plus dans recettes).
+-- Les numeros sont pris avant le commit : une transaction encore ouverte pendant la relecture peut
+-- finir avec un numero plus petit, le poste la recoit alors par les notifications (V4).
+-- Les recettes d'avant ce script n'ont pas de ligne, un poste sans numero relit tout une fois.
+
+CREATE SEQUENCE IF NOT EXISTS recettes_journal_seq;
+
+CREATE TABLE IF NOT EXISTS recettes_journal (
+    recette_id INT PRIMARY KEY,
+    numero BIGINT NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS recettes_journal_numero_idx ON recettes_journal (numero);
+
+CREATE OR REPLACE FUNCTION journaliser_recette() RETURNS trigger AS $$
+DECLARE
+    rid INT;
+BEGIN
+    IF TG_TABLE_NAME = 'recettes' THEN
+        IF TG_OP = 'DELETE' THEN rid := OLD.id; ELSE rid := NEW.id; END IF;
+    ELSE
+        IF TG_OP = 'DELETE' THEN rid := OLD.recette_id; ELSE rid := NEW.recette_id; END IF;
+    END IF;
+    INSERT INTO recettes_journal (recette_id, numero) VALUES (rid, nextval('recettes_journal_seq'))
+        ON CONFLICT (recette_id) DO UPDATE SET numero = EXCLUDED.numero;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS recettes_journaliser ON recettes;
+CREATE TRIGGER recettes_journaliser AFTER INSERT OR UPDATE OR DELETE ON recettes
+    FOR EACH ROW EXECUTE PROCEDURE journaliser_recette();
+
+DROP TRIGGER IF EXISTS recette_ingredients_journaliser ON recette_ingredients;
+CREATE TRIGGER recette_ingredients_journaliser AFTER INSERT OR UPDATE OR DELETE ON recette_ingredients
+    FOR EACH ROW EXECUTE PROCEDURE journaliser_recette();
@@ -0,0 +1,30 @@
+-- Le numero du journal (V7) etait pris dans une sequence avant le commit : une transaction lente
+-- pouvait commiter avec un numero plus petit que celui deja lu par un poste, qui ne la relisait
+-- plus jamais (la recette restait perimee dans sa copie locale, meme aux lancements suivants).
+-- Chaque ligne garde maintenant l'identifiant de la transaction qui l'a ecrite, et un poste retient
+-- le xmin de la base lu avant sa relecture (txid_snapshot_xmin) : une transaction encore ouverte
+-- a ce moment a un identifiant >= xmin, elle est donc relue la fois suivante quoi qu'il arrive.
+
+ALTER TABLE recettes_journal ADD COLUMN IF NOT EXISTS xid BIGINT;
+-- les lignes d'avant ce script sont relues une fois par les postes qui ont encore un ancien numero
+UPDATE recettes_journal SET xid = txid_current() WHERE xid IS NULL;
+ALTER TABLE recettes_journal ALTER COLUMN xid SET NOT NULL;
+
+ALTER TABLE recettes_journal DROP COLUMN IF EXISTS numero; -- et son index
+DROP SEQUENCE IF EXISTS recettes_journal_seq;
+CREATE INDEX IF NOT EXISTS recettes_journal_xid_idx ON recettes_journal (xid);
+
+CREATE OR REPLACE FUNCTION journaliser_recette() RETURNS trigger AS $$
+DECLARE
+    rid INT;
+BEGIN
+    IF TG_TABLE_NAME = 'recettes' THEN
+        IF TG_OP = 'DELETE' THEN rid := OLD.id; ELSE rid := NEW.id; END IF;
+    ELSE
+        IF TG_OP = 'DELETE' THEN rid := OLD.recette_id; ELSE rid := NEW.recette_id; END IF;
+    END IF;
+    INSERT INTO recettes_journal (recette_id, xid) VALUES (rid, txid_current())
+        ON CONFLICT (recette_id) DO UPDATE SET xid = EXCLUDED.xid;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,62 @@
+package com.mycompany.projetrecette;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests de {@link IndexTrigrammes} : intersection des listes de trigrammes,
+ * vérification des candidats et mises à jour.
+ *
+ * @author bapti
+ * @version 1.0
+ */
+class IndexTrigrammesTest {
+
+    private IndexTrigrammes index() {
+        IndexTrigrammes index = new IndexTrigrammes();
+        index.ajouter(3, "Tarte aux pommes");
+        index.ajouter(1, "Pommes de terre sautées");
+        index.ajouter(7, "Crème brûlée");
+        index.ajouter(5, "Compote de pommes");
+        return index;
+    }
+
+    @Test
+    void intersecteLesTrigrammesDeLaRequete() {
+        assertArrayEquals(new int[] { 1, 3, 5 }, index().rechercher("pomme"));
+        assertArrayEquals(new int[] { 5 }, index().rechercher("compote de"));
+    }
+
+    @Test
+    void ignoreLaCasseEtLesAccents() {
+        assertArrayEquals(new int[] { 7 }, index().rechercher("CREME BRU"));
+        assertArrayEquals(new int[] { 1 }, index().rechercher("sautees"));
+    }
+
+    @Test
+    void verifieLeTexteApresLIntersection() {
+        // tous les trigrammes de "terre pom" sont dans 1 ("terre", "pommes") mais pas dans cet ordre
+        assertArrayEquals(new int[0], index().rechercher("terre pom"));
+        assertArrayEquals(new int[0], index().rechercher("xyz")); // trigramme absent
+    }
+
+    @Test
+    void requeteCourteParcourtTout() {
+        assertArrayEquals(new int[] { 1, 3, 5, 7 }, index().rechercher("e"));
+        assertArrayEquals(new int[] { 7 }, index().rechercher("br"));
+    }
+
+    @Test
+    void remplacerEtRetirerMettentLesListesAJour() {
+        IndexTrigrammes index = index();
+        index.ajouter(3, "Tarte au citron");
+        index.retirer(5);
+        index.retirer(42); // absent, sans effet
+
+        assertArrayEquals(new int[] { 1 }, index.rechercher("pomme"));
+        assertArrayEquals(new int[] { 3 }, index.rechercher("citron"));
+        assertEquals(3, index.taille());
+    }
+}
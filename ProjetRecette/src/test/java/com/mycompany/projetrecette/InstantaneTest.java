@@ -0,0 +1,183 @@
+package com.mycompany.projetrecette;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests de {@link Instantane} : écriture puis relecture, ancien format
+ * et fichiers abîmés.
+ *
+ * @author bapti
+ * @version 1.0
+ */
+class InstantaneTest {
+
+    @TempDir
+    Path dossier;
+
+    private static final List<Recette> RECETTES = List.of(
+            new Recette(2, "Crêpes", "dessert", "farine, oeufs, lait", "Mélanger.", "20 min", 4, 3.5),
+            new Recette(5, "Omelette", "plat", null, null, null, 1, 0.0));
+
+    private static final Map<Integer, List<IngredientRecette>> INGREDIENTS = Map.of(
+            2, List.of(new IngredientRecette("farine", "250 g", new BigDecimal("250"), "g"),
+                    new IngredientRecette("oeufs", "3", new BigDecimal("3"), ""),
+                    new IngredientRecette("sel", "une pincée", null, null)),
+            5, List.of(new IngredientRecette("oeufs", "1/3", new BigDecimal("0.333333"), "")));
+
+    @Test
+    void relitCeQuiAEteEcrit() throws IOException {
+        Path fichier = dossier.resolve("catalogue.bin");
+        Instantane.ecrire(fichier, RECETTES, INGREDIENTS, 42);
+
+        Instantane inst = Instantane.lire(fichier);
+        assertNotNull(inst);
+        assertEquals(42, inst.getNumero());
+        assertEquals(2, inst.getNbRecettes());
+        assertEquals(List.of("farine", "oeufs", "sel"), inst.getNomsIngredients().stream().sorted().toList());
+
+        for (int i = 0; i < RECETTES.size(); i++) {
+            Recette attendue = RECETTES.get(i);
+            Recette lue = inst.getRecette(i);
+            assertEquals(attendue.getIdRecette(), lue.getIdRecette());
+            assertEquals(attendue.getNomRecette(), lue.getNomRecette());
+            assertEquals(attendue.getGenreRecette(), lue.getGenreRecette());
+            assertEquals(attendue.getIngredients(), lue.getIngredients());
+            assertEquals(attendue.getInstructions(), lue.getInstructions());
+            assertEquals(attendue.getDuree(), lue.getDuree());
+            assertEquals(attendue.getNbPersonnes(), lue.getNbPersonnes());
+            assertEquals(attendue.getPrixMoyen(), lue.getPrixMoyen());
+
+            List<IngredientRecette> ing = inst.getIngredients(i);
+            List<IngredientRecette> ingAttendus = INGREDIENTS.get(attendue.getIdRecette());
+            assertEquals(ingAttendus.size(), ing.size());
+            for (int j = 0; j < ing.size(); j++) {
+                assertEquals(ingAttendus.get(j).getNomIngredient(), ing.get(j).getNomIngredient());
+                assertEquals(ingAttendus.get(j).getQuantite(), ing.get(j).getQuantite());
+                assertEquals(ingAttendus.get(j).getMontant(), ing.get(j).getMontant());
+                assertEquals(ingAttendus.get(j).getUnite(), ing.get(j).getUnite());
+            }
+        }
+    }
+
+    @Test
+    void ingredientsDecodesAuPremierAcces() throws IOException {
+        Path fichier = dossier.resolve("catalogue.bin");
+        Instantane.ecrire(fichier, RECETTES, INGREDIENTS, -1);
+        Instantane inst = Instantane.lire(fichier);
+
+        List<IngredientRecette> ing = inst.getIngredients(0);
+        IngredientRecette premier = ing.get(0);
+        assertSame(premier, ing.get(0)); // decodes une seule fois, la meme liste ensuite
+        assertEquals(-1, inst.getNumero());
+    }
+
+    @Test
+    void remplaceLAncienFichier() throws IOException {
+        Path fichier = dossier.resolve("catalogue.bin");
+        Instantane.ecrire(fichier, RECETTES, INGREDIENTS, 1);
+        Instantane.ecrire(fichier, RECETTES.subList(1, 2), Map.of(), 2);
+
+        Instantane inst = Instantane.lire(fichier);
+        assertEquals(2, inst.getNumero());
+        assertEquals(1, inst.getNbRecettes());
+        assertTrue(inst.getIngredients(0).isEmpty());
+        try (var fichiers = Files.list(dossier)) {
+            // ni .tmp qui traine ni ancienne generation
+            assertEquals(List.of("catalogue.bin.2"), fichiers.map(f -> f.getFileName().toString()).toList());
+        }
+    }
+
+    @Test
+    void lAncienResteLisibleApresReecriture() throws IOException {
+        Path fichier = dossier.resolve("catalogue.bin");
+        Instantane.ecrire(fichier, RECETTES, INGREDIENTS, 1);
+        Instantane ancien = Instantane.lire(fichier);
+        List<IngredientRecette> ing = ancien.getIngredients(0); // pas encore decodes
+
+        Instantane.ecrire(fichier, RECETTES.subList(1, 2), Map.of(), 2);
+        assertEquals("farine", ing.get(0).getNomIngredient());
+        assertEquals("Crêpes", ancien.getRecette(0).getNomRecette());
+        assertEquals(2, Instantane.lire(fichier).getNumero());
+    }
+
+    @Test
+    void generationAbimeeOnPrendLaPrecedente() throws IOException {
+        Path fichier = dossier.resolve("catalogue.bin");
+        Instantane.ecrire(fichier, RECETTES, INGREDIENTS, 4);
+        Files.write(dossier.resolve("catalogue.bin.9"), new byte[] { 1, 2, 3 });
+
+        assertEquals(4, Instantane.lire(fichier).getNumero());
+        Instantane.ecrire(fichier, RECETTES, INGREDIENTS, 5);
+        assertTrue(Files.exists(dossier.resolve("catalogue.bin.10")));
+        assertEquals(5, Instantane.lire(fichier).getNumero());
+    }
+
+    @Test
+    void litLaVersion1() throws IOException {
+        Path fichier = dossier.resolve("v1.bin");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(fichier))) {
+            out.writeInt(Instantane.MAGIQUE);
+            out.writeInt(1);
+            out.writeInt(1);
+            out.writeInt(9);
+            for (String s : new String[] { "Tarte", "dessert", null, null, "1 h" }) texte(out, s);
+            out.writeInt(6);
+            out.writeDouble(12.0);
+            out.writeInt(1);
+            for (String s : new String[] { "pommes", "4", "4", "" }) texte(out, s);
+        }
+
+        Instantane inst = Instantane.lire(fichier);
+        assertNotNull(inst);
+        assertEquals(-1, inst.getNumero());
+        assertTrue(inst.getNomsIngredients().isEmpty());
+        assertEquals("Tarte", inst.getRecette(0).getNomRecette());
+        assertEquals("pommes", inst.getIngredients(0).get(0).getNomIngredient());
+        assertEquals(new BigDecimal("4"), inst.getIngredients(0).get(0).getMontant());
+    }
+
+    @Test
+    void fichierAbsentOuAbimeIgnore() throws IOException {
+        assertNull(Instantane.lire(dossier.resolve("absent.bin")));
+
+        Path inconnu = dossier.resolve("inconnu.bin");
+        Files.write(inconnu, "pas un instantane".getBytes(StandardCharsets.UTF_8));
+        assertNull(Instantane.lire(inconnu));
+
+        Path fichier = dossier.resolve("catalogue.bin");
+        Instantane.ecrire(fichier, RECETTES, INGREDIENTS, 3);
+        byte[] octets = Files.readAllBytes(dossier.resolve("catalogue.bin.1"));
+        Path tronque = dossier.resolve("tronque.bin");
+        for (int n : new int[] { 0, 6, 20, octets.length / 2, octets.length - 1 }) {
+            Files.write(tronque, Arrays.copyOf(octets, n));
+            assertNull(Instantane.lire(tronque), "tronque a " + n);
+        }
+    }
+
+    private static void texte(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] octets = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(octets.length);
+        out.write(octets);
+    }
+}
@@ -0,0 +1,86 @@
+package com.mycompany.projetrecette;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests de {@link ListeCourses} : mise à l'échelle, regroupement des unités
+ * et fusion des tables des threads.
+ *
+ * @author bapti
+ * @version 1.0
+ */
+class ListeCoursesTest {
+
+    private static Recette recette(int id, int nbPersonnes) {
+        return new Recette(id, "recette " + id, "plat", "", "", "30 min", nbPersonnes, 10.0);
+    }
+
+    @Test
+    void additionneLesUnitesCompatibles() {
+        Map<Recette, Integer> plan = new LinkedHashMap<>();
+        plan.put(recette(1, 4), 8); // x2
+        plan.put(recette(2, 2), 2); // x1
+        Map<Integer, List<IngredientRecette>> ingredients = Map.of(
+                1, List.of(new IngredientRecette("Farine", "250 g"), new IngredientRecette("Lait", "0,5 l"),
+                        new IngredientRecette("Sel", "une pincée")),
+                2, List.of(new IngredientRecette("farine", "1 kg"), new IngredientRecette("Lait", "20 cl"),
+                        new IngredientRecette("Sel", "à volonté")));
+
+        List<ListeCourses.Ligne> lignes = ListeCourses.calculer(plan, ingredients);
+
+        assertEquals(3, lignes.size());
+        assertEquals("Farine : 1,5 kg", lignes.get(0).toString());
+        assertEquals("g", lignes.get(0).getUnite());
+        assertEquals("Lait : 1,2 l", lignes.get(1).toString());
+        ListeCourses.Ligne sel = lignes.get(2);
+        assertEquals(0, BigDecimal.ZERO.compareTo(sel.getMontant()));
+        assertTrue(sel.getAutres().containsAll(List.of("une pincée", "à volonté")));
+    }
+
+    @Test
+    void unitesIncompatiblesSurDesLignesSeparees() {
+        Map<Recette, Integer> plan = Map.of(recette(1, 3), 1); // 1/3
+        Map<Integer, List<IngredientRecette>> ingredients = Map.of(
+                1, List.of(new IngredientRecette("sucre", "300 g"), new IngredientRecette("sucre", "3 cuillères")));
+
+        List<ListeCourses.Ligne> lignes = ListeCourses.calculer(plan, ingredients);
+
+        assertEquals(2, lignes.size());
+        assertEquals("sucre : 1 cuilleres", lignes.get(0).toString());
+        assertEquals("sucre : 100 g", lignes.get(1).toString());
+    }
+
+    @Test
+    void reductionParalleleIdentiqueAuTotal() {
+        // assez de recettes pr que plusieurs threads aient leur table a fusionner
+        Map<Recette, Integer> plan = new HashMap<>();
+        Map<Integer, List<IngredientRecette>> ingredients = new HashMap<>();
+        for (int id = 1; id <= 500; id++) {
+            plan.put(recette(id, 2), 4);
+            ingredients.put(id, List.of(new IngredientRecette("oeufs", "3"),
+                    new IngredientRecette("beurre", "12,5 g"), new IngredientRecette("poivre", "un peu")));
+        }
+
+        List<ListeCourses.Ligne> lignes = ListeCourses.calculer(plan, ingredients);
+
+        assertEquals(3, lignes.size());
+        assertEquals(0, new BigDecimal("12500").compareTo(lignes.get(0).getMontant())); // beurre
+        assertEquals(0, new BigDecimal("3000").compareTo(lignes.get(1).getMontant())); // oeufs
+        assertEquals("", lignes.get(1).getUnite());
+        assertEquals(500, lignes.get(2).getAutres().size()); // poivre
+    }
+
+    @Test
+    void recetteSansIngredientsIgnoree() {
+        assertTrue(ListeCourses.calculer(Map.of(recette(9, 4), 2), Map.of()).isEmpty());
+    }
+}
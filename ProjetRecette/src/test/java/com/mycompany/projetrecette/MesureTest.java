@@ -0,0 +1,81 @@
+package com.mycompany.projetrecette;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests de {@link Mesure} : classes log-linéaires de l'histogramme et centiles.
+ *
+ * @author bapti
+ * @version 1.0
+ */
+class MesureTest {
+
+    @Test
+    void petitesDureesUneClasseChacune() {
+        for (int us = 0; us < 4; us++) {
+            assertEquals(us, Mesure.classe(us));
+            assertEquals(us + 1, Mesure.borneHaute(us));
+        }
+        assertEquals(0, Mesure.classe(-5)); // horloge qui recule
+        assertEquals(4, Mesure.classe(4));
+        assertEquals(7, Mesure.classe(7));
+        assertEquals(8, Mesure.classe(8));
+        assertEquals(8, Mesure.classe(9)); // [8,10[
+        assertEquals(10, Mesure.borneHaute(8));
+    }
+
+    @Test
+    void chaqueDureeEntreLesBornesDeSaClasse() {
+        int precedente = 0;
+        for (long us = 0; us < 1_000_000; us++) {
+            int c = Mesure.classe(us);
+            assertTrue(c == precedente || c == precedente + 1, "classes consecutives a " + us);
+            assertTrue(us < Mesure.borneHaute(c), "borne haute a " + us);
+            if (c > 0) assertTrue(us >= Mesure.borneHaute(c - 1), "borne basse a " + us);
+            precedente = c;
+        }
+    }
+
+    @Test
+    void erreurDeMoinsDe25Pourcent() {
+        for (int c = 4; c < 143; c++) {
+            long bas = Mesure.borneHaute(c - 1);
+            long haut = Mesure.borneHaute(c);
+            assertTrue((haut - bas) * 4 <= bas, "classe " + c);
+            assertEquals(c, Mesure.classe(bas));
+            assertEquals(c, Mesure.classe(haut - 1));
+        }
+    }
+
+    @Test
+    void tresLonguesDureesDansLaDerniereClasse() {
+        assertEquals(143, Mesure.classe(1L << 37));
+        assertEquals(143, Mesure.classe(Long.MAX_VALUE));
+        assertEquals(1L << 37, Mesure.borneHaute(143));
+    }
+
+    @Test
+    void centilesDesAppels() {
+        Mesure m = new Mesure("test");
+        assertEquals(0, m.centile(0.5));
+
+        // 90 appels de 100 us et 10 de 50 ms, en reculant le debut
+        for (int i = 0; i < 90; i++) m.fin(System.nanoTime() - 100_000);
+        for (int i = 0; i < 10; i++) m.fin(System.nanoTime() - 50_000_000, 2);
+        m.erreur();
+
+        assertEquals(100, m.getAppels());
+        assertEquals(1, m.getErreurs());
+        assertEquals(20, m.getLignes());
+        assertTrue(m.getP50Ms() >= 0.1 && m.getP50Ms() < 50, "p50 " + m.getP50Ms()); // pas exact, la machine peut ralentir
+        assertTrue(m.getP95Ms() >= 50 && m.getP95Ms() <= m.getMaxMs(), "p95 " + m.getP95Ms());
+        assertTrue(m.getMaxMs() >= 50);
+
+        m.reinitialiser();
+        assertEquals(0, m.getAppels());
+        assertEquals(0, m.getP99Ms());
+    }
+}
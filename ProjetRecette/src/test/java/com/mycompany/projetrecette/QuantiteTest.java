@@ -0,0 +1,146 @@
+package com.mycompany.projetrecette;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests de {@link Quantite} : analyse du texte, calculs en fractions et réécriture.
+ *
+ * @author bapti
+ * @version 1.0
+ */
+class QuantiteTest {
+
+    private static String ecrire(Quantite q, long num, long den) {
+        StringBuilder sb = new StringBuilder();
+        q.ecrire(sb, num, den);
+        return sb.toString();
+    }
+
+    @Test
+    void parserEntiersEtUnites() {
+        Quantite q = Quantite.parser("250g");
+        assertTrue(q.isChiffree());
+        assertEquals(250, q.getNumerateur());
+        assertEquals(1, q.getDenominateur());
+        assertEquals("g", q.getUnite());
+
+        assertEquals("kg", Quantite.parser("2 Kilos").getUnite());
+        assertEquals("g", Quantite.parser("100 gr.").getUnite());
+        assertEquals("cuilleres", Quantite.parser("2 cuillères").getUnite());
+        assertEquals("", Quantite.parser("3").getUnite());
+    }
+
+    @Test
+    void parserDecimauxEtFractions() {
+        Quantite q = Quantite.parser("0,5 L");
+        assertEquals(1, q.getNumerateur());
+        assertEquals(2, q.getDenominateur());
+        assertEquals("l", q.getUnite());
+
+        assertEquals(new BigDecimal("1.5"), Quantite.parser("1.5kg").getMontant());
+        assertEquals(new BigDecimal("0.5"), Quantite.parser("1/2").getMontant());
+        assertEquals(3.0 / 2, Quantite.parser("1 1/2 verre").getValeur());
+        assertEquals("verre", Quantite.parser("1 1/2 verre").getUnite());
+        assertEquals(new BigDecimal("0.75"), Quantite.parser("¾").getMontant());
+        assertEquals(5.0 / 2, Quantite.parser("2½ tasses").getValeur());
+        assertEquals(new BigDecimal("0.333333"), Quantite.parser("1/3").getMontant());
+    }
+
+    @Test
+    void sansNombrePasDUnite() {
+        for (String texte : new String[] { "une pincée", "1/0", "", "  ", "selon le goût" }) {
+            Quantite q = Quantite.parser(texte);
+            assertFalse(q.isChiffree(), texte);
+            assertNull(q.getUnite(), texte);
+            assertNull(q.getMontant(), texte);
+            assertTrue(Double.isNaN(q.getValeur()), texte);
+            assertEquals(texte, q.toString());
+        }
+        assertNull(Quantite.parser(null).getUnite());
+        assertNull(new IngredientRecette("sel", "une pincée").getUnite());
+        assertNull(new IngredientRecette("sel", "1/0").getMontant());
+    }
+
+    @Test
+    void texteTropLongPasAnalyse() {
+        assertFalse(Quantite.parser("1234567890123456789012345678901 g").isChiffree());
+    }
+
+    @Test
+    void nombresTropLongsPasAnalyses() {
+        // 20 chiffres : deborderait d'un long
+        for (String texte : new String[] { "12345678901234567890 g", "1/12345678901", "2 1/99999999999 verre",
+                                           "1234567890", "99999999999 1/2" }) {
+            Quantite q = Quantite.parser(texte);
+            assertFalse(q.isChiffree(), texte);
+            assertNull(q.getUnite(), texte);
+        }
+        assertEquals(999_999_999, Quantite.parser("999999999 g").getNumerateur());
+        assertEquals(999_999_999, Quantite.parser("1/999999999").getDenominateur());
+    }
+
+    @Test
+    void longDecimalSansDebordement() {
+        Quantite q = Quantite.parser("0,1234567890123456789");
+        assertTrue(q.getDenominateur() <= 1_000_000); // 6 decimales gardees
+        assertEquals(new BigDecimal("0.123456"), q.getMontant());
+
+        // des denominateurs premiers entre eux qui deborderaient d'un long une fois multiplies
+        Quantite a = Quantite.parser("1/999999937");
+        Quantite b = Quantite.parser("1/999999929");
+        Quantite somme = a.plus(b).plus(Quantite.parser("1/999999893"));
+        assertTrue(somme.getDenominateur() > 0);
+        assertEquals(3e-9, somme.getValeur(), 1e-6);
+
+        Quantite grande = Quantite.parser("999999999/999999937").multiplier(999_999_929L * 13, 999_999_893L * 13);
+        assertTrue(grande.getDenominateur() > 0 && grande.getNumerateur() > 0);
+        assertEquals(1.0, grande.getValeur(), 1e-6);
+    }
+
+    @Test
+    void multiplierResteExact() {
+        Quantite q = Quantite.parser("1/3 verre");
+        Quantite x = q.multiplier(3, 1);
+        assertEquals(1, x.getNumerateur());
+        assertEquals(1, x.getDenominateur());
+
+        // 4 -> 6 -> 4 personnes, pas d'arrondi qui s'accumule
+        Quantite aller = Quantite.parser("100 g").multiplier(6, 4);
+        assertEquals(Quantite.parser("100 g"), aller.multiplier(4, 6));
+
+        Quantite pincee = Quantite.parser("une pincée");
+        assertSame(pincee, pincee.multiplier(2, 1));
+    }
+
+    @Test
+    void plusEtConversions() {
+        Quantite somme = Quantite.parser("1,5 kg").versBase().plus(Quantite.parser("250 g"));
+        assertEquals(Quantite.de(1750, 1, "g"), somme);
+        assertEquals("g", Quantite.parser("2 kg").getUniteBase());
+        assertEquals("ml", Quantite.uniteBase("cl"));
+        assertEquals("verre", Quantite.uniteBase("verre"));
+        assertEquals(0, new BigDecimal("150").compareTo(Quantite.versUniteBase(new BigDecimal("15"), "cl")));
+        assertEquals(0, new BigDecimal("1.5").compareTo(Quantite.versUniteBase(new BigDecimal("1500"), "mg")));
+        assertThrows(IllegalArgumentException.class, () -> Quantite.de(1, 0, "g"));
+    }
+
+    @Test
+    void ecrireGardeLaFormeSaisie() {
+        assertEquals("500g", ecrire(Quantite.parser("250g"), 2, 1));
+        assertEquals("0,75 L", ecrire(Quantite.parser("0,5 L"), 3, 2));
+        assertEquals("1.13kg", ecrire(Quantite.parser("1.5kg"), 3, 4));
+        assertEquals("3/4 verre", ecrire(Quantite.parser("1/2 verre"), 3, 2));
+        assertEquals("1 1/2 verre", ecrire(Quantite.parser("1/2 verre"), 3, 1));
+        assertEquals("une pincée", ecrire(Quantite.parser("une pincée"), 2, 1));
+        assertEquals("2 cuilleres", Quantite.de(2, 1, "cuilleres").toString());
+    }
+}
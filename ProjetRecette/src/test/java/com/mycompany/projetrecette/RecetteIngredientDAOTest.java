@@ -0,0 +1,86 @@
+package com.mycompany.projetrecette;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests du calcul des écarts de {@link RecetteIngredientDAO#synchroniser}
+ * et de {@link IngredientRecette#sansDoublons}, sans base.
+ *
+ * @author bapti
+ * @version 1.0
+ */
+class RecetteIngredientDAOTest {
+
+    @Test
+    void nEcritQueCeQuiChange() {
+        Map<Integer, String> actuels = Map.of(1, "200 g", 2, "3", 3, "1 pincée");
+        RecetteIngredientDAO.Ecarts e = RecetteIngredientDAO.comparer(actuels, Set.of(),
+                new int[] { 1, 2, 4 },
+                List.of(new IngredientRecette("farine", "200 g"),
+                        new IngredientRecette("oeufs", "4"),
+                        new IngredientRecette("lait", "50 cl")));
+
+        assertEquals(List.of(3), e.aSupprimer);
+        assertEquals(Set.of(2), e.aModifier.keySet());
+        assertEquals("4", e.aModifier.get(2).getQuantite());
+        assertEquals(Set.of(4), e.aInserer.keySet());
+    }
+
+    @Test
+    void listeIdentiqueSansEcriture() {
+        RecetteIngredientDAO.Ecarts e = RecetteIngredientDAO.comparer(Map.of(1, "2"), Set.of(),
+                new int[] { 1 }, List.of(new IngredientRecette("oeufs", "2")));
+
+        assertTrue(e.aSupprimer.isEmpty());
+        assertTrue(e.aModifier.isEmpty());
+        assertTrue(e.aInserer.isEmpty());
+    }
+
+    @Test
+    void quantitesNullesComparees() {
+        Map<Integer, String> actuels = new java.util.HashMap<>();
+        actuels.put(1, null);
+        RecetteIngredientDAO.Ecarts e = RecetteIngredientDAO.comparer(actuels, Set.of(),
+                new int[] { 1 }, List.of(new IngredientRecette("sel", null)));
+        assertTrue(e.aModifier.isEmpty());
+
+        e = RecetteIngredientDAO.comparer(actuels, Set.of(),
+                new int[] { 1 }, List.of(new IngredientRecette("sel", "1 pincée")));
+        assertEquals(Set.of(1), e.aModifier.keySet());
+    }
+
+    @Test
+    void doublonsEnBaseRefaits() {
+        RecetteIngredientDAO.Ecarts e = RecetteIngredientDAO.comparer(Map.of(1, "2"), Set.of(1),
+                new int[] { 1 }, List.of(new IngredientRecette("oeufs", "2")));
+
+        assertEquals(List.of(1), e.aSupprimer);
+        assertEquals(Set.of(1), e.aInserer.keySet());
+        assertTrue(e.aModifier.isEmpty());
+    }
+
+    @Test
+    void doublonsSaisisGardentLaDerniereQuantite() {
+        List<IngredientRecette> saisis = List.of(
+                new IngredientRecette("farine", "100 g"),
+                new IngredientRecette("sucre", "50 g"),
+                new IngredientRecette("farine", "250 g"));
+        List<IngredientRecette> liens = IngredientRecette.sansDoublons(saisis);
+
+        assertEquals(2, liens.size());
+        assertEquals("farine", liens.get(0).getNomIngredient());
+        assertEquals("250 g", liens.get(0).getQuantite());
+        assertEquals("sucre", liens.get(1).getNomIngredient());
+
+        List<IngredientRecette> uniques = List.of(new IngredientRecette("sel", "1 pincée"));
+        assertSame(uniques, IngredientRecette.sansDoublons(uniques));
+    }
+}
@@ -0,0 +1,94 @@
+package com.mycompany.projetrecette;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests de {@link TableInt}, comparée à une {@link HashMap} : collisions, agrandissement
+ * et suppression par recul des entrées suivantes.
+ *
+ * @author bapti
+ * @version 1.0
+ */
+class TableIntTest {
+
+    @Test
+    void putGetRemove() {
+        TableInt<String> t = new TableInt<>(2);
+        assertNull(t.put(7, "sept"));
+        assertNull(t.put(-3, "moins trois"));
+        assertNull(t.put(0, "zero"));
+        assertEquals("sept", t.put(7, "SEPT"));
+
+        assertEquals("SEPT", t.get(7));
+        assertEquals("moins trois", t.get(-3));
+        assertEquals("zero", t.get(0));
+        assertNull(t.get(8));
+        assertEquals(3, t.size());
+
+        assertEquals("zero", t.remove(0));
+        assertNull(t.remove(0));
+        assertNull(t.get(0));
+        assertEquals(2, t.size());
+
+        t.clear();
+        assertEquals(0, t.size());
+        assertNull(t.get(7));
+        assertThrows(NullPointerException.class, () -> t.put(1, null));
+    }
+
+    @Test
+    void agranditSansPerdreDEntrees() {
+        TableInt<Integer> t = new TableInt<>(1);
+        for (int i = 0; i < 10_000; i++) t.put(i * 16, i); // multiples de 16, memes bits de poids faible
+        assertEquals(10_000, t.size());
+        for (int i = 0; i < 10_000; i++) assertEquals(i, t.get(i * 16));
+    }
+
+    @Test
+    void suppressionNeCassePasLesSequences() {
+        // table pleine a moitie et jamais agrandie : beaucoup de collisions et de sequences qui font le tour
+        Random r = new Random(42);
+        for (int essai = 0; essai < 200; essai++) {
+            TableInt<Integer> t = new TableInt<>(16);
+            Map<Integer, Integer> attendu = new HashMap<>();
+            for (int op = 0; op < 300; op++) {
+                int cle = r.nextInt(40) - 20;
+                if (r.nextInt(3) == 0) {
+                    assertEquals(attendu.remove(cle), t.remove(cle));
+                } else if (attendu.size() < 16 || attendu.containsKey(cle)) {
+                    assertEquals(attendu.put(cle, op), t.put(cle, op));
+                }
+                assertEquals(attendu.size(), t.size());
+            }
+            for (int cle = -20; cle < 20; cle++) assertEquals(attendu.get(cle), t.get(cle), "cle " + cle);
+        }
+    }
+
+    @Test
+    void comparaisonAleatoireAvecAgrandissement() {
+        Random r = new Random(7);
+        TableInt<Integer> t = new TableInt<>(4);
+        Map<Integer, Integer> attendu = new HashMap<>();
+        for (int op = 0; op < 100_000; op++) {
+            int cle = r.nextInt(5_000);
+            int choix = r.nextInt(4);
+            if (choix == 0) {
+                assertEquals(attendu.remove(cle), t.remove(cle));
+            } else if (choix == 1) {
+                assertEquals(attendu.get(cle), t.get(cle));
+            } else {
+                assertEquals(attendu.put(cle, op), t.put(cle, op));
+            }
+        }
+        assertEquals(attendu.size(), t.size());
+        for (int cle = 0; cle < 5_000; cle++) assertEquals(attendu.get(cle), t.get(cle));
+    }
+}
@@ -0,0 +1,184 @@
+package com.mycompany.projetrecette;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests de {@link TrieMots} : distance de Levenshtein, recherche des mots proches
+ * et complétion par poids, comparées à un calcul naïf.
+ *
+ * @author bapti
+ * @version 1.0
+ */
+class TrieMotsTest {
+
+    // la matrice complete, sans raccourci
+    private static int levenshtein(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) d[i][0] = i;
+        for (int j = 0; j <= b.length(); j++) d[0][j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int cout = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j], d[i][j - 1]) + 1, d[i - 1][j - 1] + cout);
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+
+    private static String motAuHasard(Random r) {
+        char[] c = new char[1 + r.nextInt(7)];
+        for (int i = 0; i < c.length; i++) c[i] = (char) ('a' + r.nextInt(4)); // peu de lettres, beaucoup de voisins
+        return new String(c);
+    }
+
+    @Test
+    void distanceExacte() {
+        assertEquals(0, TrieMots.distance("tomate", "tomate", 2));
+        assertEquals(1, TrieMots.distance("courgete", "courgette", 2));
+        assertEquals(1, TrieMots.distance("poivre", "poivrr", 2));
+        assertEquals(2, TrieMots.distance("oignon", "ognion", 2));
+        assertEquals(3, TrieMots.distance("", "sel", 3));
+        assertEquals(3, TrieMots.distance("sel", "", 3));
+    }
+
+    @Test
+    void distanceCoupeeAuDelaDuMax() {
+        assertTrue(TrieMots.distance("ail", "aubergine", 2) > 2); // longueurs trop differentes
+        assertTrue(TrieMots.distance("carotte", "navet", 2) > 2);
+
+        Random r = new Random(1);
+        for (int k = 0; k < 5_000; k++) {
+            String a = motAuHasard(r);
+            String b = motAuHasard(r);
+            int attendue = levenshtein(a, b);
+            int max = r.nextInt(4);
+            int d = TrieMots.distance(a, b, max);
+            if (attendue <= max) assertEquals(attendue, d, a + " / " + b);
+            else assertTrue(d > max, a + " / " + b);
+        }
+    }
+
+    @Test
+    void rechercherTrouveLesMotsProchesDuPlusProcheAuPlusLoin() {
+        TrieMots trie = new TrieMots();
+        for (String m : new String[] { "courgette", "courge", "carotte", "tomate", "tomates" }) trie.ajouter(m);
+
+        assertEquals(List.of("courgette"), trie.rechercher("courgete", 1));
+        assertEquals(List.of("tomate", "tomates"), trie.rechercher("tomate", 1));
+        assertEquals(List.of("courge", "courgette"), trie.rechercher("courgee", 2));
+        assertTrue(trie.rechercher("navet", 2).isEmpty());
+    }
+
+    @Test
+    void rechercherCommeLaRechercheNaive() {
+        Random r = new Random(3);
+        TrieMots trie = new TrieMots();
+        Set<String> mots = new HashSet<>();
+        for (int k = 0; k < 300; k++) {
+            String m = motAuHasard(r);
+            trie.ajouter(m);
+            mots.add(m);
+        }
+        for (int k = 0; k < 100; k++) {
+            String m = motAuHasard(r);
+            trie.retirer(m);
+            mots.remove(m);
+        }
+        assertEquals(mots.size(), trie.taille());
+
+        for (int k = 0; k < 200; k++) {
+            String cherche = motAuHasard(r);
+            int max = r.nextInt(3);
+            List<String> trouves = trie.rechercher(cherche, max);
+
+            Set<String> attendus = new HashSet<>();
+            for (String m : mots) if (levenshtein(cherche, m) <= max) attendus.add(m);
+            assertEquals(attendus, new HashSet<>(trouves), cherche);
+            assertEquals(attendus.size(), trouves.size()); // pas de doublon
+
+            List<Integer> distances = new ArrayList<>();
+            for (String m : trouves) distances.add(levenshtein(cherche, m));
+            for (int i = 1; i < distances.size(); i++) assertTrue(distances.get(i - 1) <= distances.get(i));
+        }
+    }
+
+    @Test
+    void completerLesPlusLourdsDAbord() {
+        TrieMots trie = new TrieMots();
+        trie.setPoids("tomate", 5);
+        trie.setPoids("tomme", 9);
+        trie.setPoids("thym", 20);
+        trie.setPoids("tofu", 5);
+        trie.ajouter("tomates"); // poids 0
+
+        assertEquals(List.of("tomme", "tofu", "tomate", "tomates"), trie.completer("to", 10));
+        assertEquals(List.of("thym", "tomme"), trie.completer("t", 2));
+        assertEquals(List.of("tomate", "tomates"), trie.completer("tomate", 5)); // le mot lui-meme compte
+        assertTrue(trie.completer("x", 5).isEmpty());
+        assertTrue(trie.completer("to", 0).isEmpty());
+    }
+
+    @Test
+    void completerSuitLesChangementsDePoids() {
+        TrieMots trie = new TrieMots();
+        trie.setPoids("sucre", 10);
+        trie.setPoids("sel", 3);
+        trie.setPoids("sucre glace", 1);
+
+        trie.setPoids("sel", 30);
+        assertEquals(List.of("sel", "sucre", "sucre glace"), trie.completer("s", 5));
+
+        trie.retirer("sel"); // le max de la branche "s" redescend
+        trie.setPoids("sucre", 0);
+        assertEquals(List.of("sucre glace", "sucre"), trie.completer("s", 5));
+
+        trie.retirer("sucre");
+        trie.retirer("sucre glace");
+        assertTrue(trie.completer("s", 5).isEmpty());
+        assertEquals(0, trie.taille());
+    }
+
+    @Test
+    void completerCommeLeTriNaif() {
+        Random r = new Random(5);
+        TrieMots trie = new TrieMots();
+        Map<String, Integer> poids = new HashMap<>();
+        for (int k = 0; k < 2_000; k++) {
+            String m = motAuHasard(r);
+            if (r.nextInt(5) == 0) {
+                trie.retirer(m);
+                poids.remove(m);
+            } else {
+                int p = r.nextInt(50) - 10;
+                trie.setPoids(m, p);
+                poids.put(m, p);
+            }
+        }
+        Comparator<String> ordre = Comparator.comparingInt((String m) -> -poids.get(m))
+                .thenComparing(Comparator.naturalOrder());
+
+        for (int k = 0; k < 300; k++) {
+            String tire = motAuHasard(r);
+            String debut = tire.substring(0, r.nextInt(Math.min(tire.length(), 3) + 1)); // de 0 a 3 lettres
+            int limite = 1 + r.nextInt(15);
+
+            List<String> attendus = new ArrayList<>();
+            for (String m : poids.keySet()) if (m.startsWith(debut)) attendus.add(m);
+            attendus.sort(ordre);
+            if (attendus.size() > limite) attendus = attendus.subList(0, limite);
+            assertEquals(attendus, trie.completer(debut, limite), debut + " / " + limite);
+        }
+    }
+}